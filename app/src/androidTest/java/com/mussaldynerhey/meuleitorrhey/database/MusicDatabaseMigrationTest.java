@@ -0,0 +1,143 @@
+package com.mussaldynerhey.meuleitorrhey.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testa as migrações do banco a partir da versão 9, a última publicada antes dos esquemas
+ * serem exportados. O banco da versão 9 é criado com o mesmo SQL que o Room gerava na época.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MusicDatabaseMigrationTest {
+    private static final String TEST_DB = "migration-test";
+    private static final int LATEST_VERSION = 15;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), MusicDatabase.class);
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migrate9ToLatest_keepsLibraryAndPlaylists() {
+        SupportSQLiteDatabase db = createVersion9();
+        db.execSQL("INSERT INTO songs (id, title, artist, path, resourceId, duration) VALUES " +
+                "(1, 'Interna 1', 'App', '', 10, 1000), " +
+                "(2, 'Interna 2', 'App', '', 11, 2000), " +
+                "(3, 'Faixa', 'Artista', '/music/a.mp3', 0, 3000), " +
+                "(4, 'Faixa', 'Artista', '/music/a.mp3', 0, 3000), " +
+                "(5, 'Outra', 'Artista', '/music/b.mp3', 0, 4000)");
+        db.execSQL("INSERT INTO playlists (id, name, createdAt) VALUES (1, 'Minha Playlist', 0), (2, 'Segunda', 0)");
+        // Playlist 1 tem as duas linhas repetidas; playlist 2 só a de maior ID
+        db.execSQL("INSERT INTO playlist_songs_ref (playlistId, songId, position) VALUES " +
+                "(1, 1, 0), (1, 3, 1), (1, 4, 2), (1, 5, 3), (2, 4, 0)");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true, Migrations.ALL);
+
+        assertEquals(4, count(db, "SELECT COUNT(*) FROM songs"));
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM songs WHERE path IS NULL"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM songs WHERE id = 4"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM songs WHERE path = '/music/a.mp3'"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM songs WHERE enriched_at != 0 OR duplicate_of IS NOT NULL"));
+
+        assertEquals(3, count(db, "SELECT COUNT(*) FROM playlist_songs_ref WHERE playlistId = 1"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM playlist_songs_ref WHERE playlistId = 2 AND songId = 3"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM playlist_songs_ref WHERE songId = 4"));
+        // Posições renumeradas com intervalos, mantendo a ordem: 1 → 3 → 5
+        assertEquals(3, count(db, "SELECT COUNT(*) FROM playlist_songs_ref WHERE playlistId = 1 " +
+                "AND position IN (65536, 131072, 196608)"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM playlist_songs_ref WHERE playlistId = 1 AND songId = 5 " +
+                "AND position = 196608"));
+
+        // O índice de busca é preenchido com as músicas que já existiam
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM songs_fts WHERE songs_fts MATCH 'outr*'"));
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM songs_fts WHERE songs_fts MATCH 'artista'"));
+
+        // As estatísticas de reprodução começam vazias
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM play_stats"));
+        db.close();
+    }
+
+    @Test
+    public void migrate9ToLatest_rejectsDuplicatePathAfterwards() {
+        SupportSQLiteDatabase db = createVersion9();
+        db.execSQL("INSERT INTO songs (title, artist, path, resourceId, duration) VALUES ('A', 'B', '/music/a.mp3', 0, 0)");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true, Migrations.ALL);
+        try {
+            db.execSQL("INSERT INTO songs (title, artist, path, resourceId, duration) VALUES ('A', 'B', '/music/a.mp3', 0, 0)");
+            fail("O índice único de path deveria rejeitar o caminho repetido");
+        } catch (android.database.sqlite.SQLiteConstraintException expected) {
+            // Esperado
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Cria o banco com o esquema da versão 9, sem as colunas de tags, de cópias e sem índices em songs.
+     * @return Banco aberto na versão 9.
+     */
+    private SupportSQLiteDatabase createVersion9() {
+        SupportSQLiteOpenHelper.Configuration configuration = SupportSQLiteOpenHelper.Configuration.builder(context)
+                .name(TEST_DB)
+                .callback(new SupportSQLiteOpenHelper.Callback(9) {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        db.execSQL("CREATE TABLE IF NOT EXISTS `songs` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                                "`title` TEXT, `artist` TEXT, `path` TEXT, `resourceId` INTEGER NOT NULL, " +
+                                "`duration` INTEGER NOT NULL, `album_art_path` TEXT)");
+                        db.execSQL("CREATE TABLE IF NOT EXISTS `playlists` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                                "`name` TEXT, `createdAt` INTEGER NOT NULL)");
+                        db.execSQL("CREATE TABLE IF NOT EXISTS `playlist_songs_ref` (`playlistId` INTEGER NOT NULL, " +
+                                "`songId` INTEGER NOT NULL, `position` INTEGER NOT NULL, PRIMARY KEY(`playlistId`, `songId`), " +
+                                "FOREIGN KEY(`playlistId`) REFERENCES `playlists`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                                "FOREIGN KEY(`songId`) REFERENCES `songs`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+                        db.execSQL("CREATE INDEX IF NOT EXISTS `index_playlist_songs_ref_playlistId` ON `playlist_songs_ref` (`playlistId`)");
+                        db.execSQL("CREATE INDEX IF NOT EXISTS `index_playlist_songs_ref_songId` ON `playlist_songs_ref` (`songId`)");
+                    }
+
+                    @Override
+                    public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                    }
+                })
+                .build();
+        return new FrameworkSQLiteOpenHelperFactory().create(configuration).getWritableDatabase();
+    }
+
+    private static int count(SupportSQLiteDatabase db, String query) {
+        try (Cursor cursor = db.query(query)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.mussaldynerhey.meuleitorrhey.database;
+
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executores do banco de dados, compartilhados pelo app inteiro.
+ * Com o banco em modo WAL, leituras não esperam pelas escritas: as consultas rodam em um pool
+ * de leitura, enquanto todas as escritas passam por uma única fila, na ordem em que chegaram.
+ * Assim, abrir uma playlist nunca espera um scan terminar de gravar milhares de músicas.
+ */
+public final class DatabaseExecutors {
+    // O SQLite do Android mantém até 4 conexões de leitura em WAL; mais threads só ficariam na fila
+    private static final int READ_POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final ExecutorService READ_EXECUTOR =
+            Executors.newFixedThreadPool(READ_POOL_SIZE, threadFactory("MusicDb-read-")); // Consultas
+    private static final ExecutorService WRITE_EXECUTOR =
+            Executors.newSingleThreadExecutor(threadFactory("MusicDb-write-")); // Escritas, uma de cada vez
+
+    private DatabaseExecutors() {
+    }
+
+    /**
+     * Obtém o pool de leitura, para consultas que podem rodar em paralelo.
+     * @return Executor de leitura.
+     */
+    public static ExecutorService read() {
+        return READ_EXECUTOR;
+    }
+
+    /**
+     * Obtém a fila única de escrita. Escritas enviadas a ela são aplicadas na ordem de envio.
+     * @return Executor de escrita.
+     */
+    public static ExecutorService write() {
+        return WRITE_EXECUTOR;
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, prefix + count.incrementAndGet());
+    }
+}
@@ -0,0 +1,65 @@
+package com.mussaldynerhey.meuleitorrhey.database.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entidade com as estatísticas de reprodução de uma música, agregadas a partir do diário de
+ * eventos de reprodução. Só existe linha para músicas que já foram tocadas ou puladas.
+ */
+@Entity(
+        tableName = "play_stats",
+        foreignKeys = @ForeignKey(
+                entity = Song.class,
+                parentColumns = "id",
+                childColumns = "songId",
+                onDelete = ForeignKey.CASCADE
+        )
+)
+public class PlayStats {
+    @PrimaryKey
+    public int songId; // ID da música
+
+    @ColumnInfo(name = "play_count", defaultValue = "0")
+    public int playCount; // Vezes em que a música foi tocada até o fim
+
+    @ColumnInfo(name = "skip_count", defaultValue = "0")
+    public int skipCount; // Vezes em que a música foi pulada antes do fim
+
+    @ColumnInfo(name = "last_played_at", defaultValue = "0")
+    public long lastPlayedAt; // Momento em que a música começou a tocar pela última vez (0 se nunca)
+
+    /**
+     * Obtém o ID da música.
+     * @return ID da música.
+     */
+    public int getSongId() {
+        return songId;
+    }
+
+    /**
+     * Obtém o número de vezes em que a música foi tocada até o fim.
+     * @return Contagem de reproduções.
+     */
+    public int getPlayCount() {
+        return playCount;
+    }
+
+    /**
+     * Obtém o número de vezes em que a música foi pulada.
+     * @return Contagem de pulos.
+     */
+    public int getSkipCount() {
+        return skipCount;
+    }
+
+    /**
+     * Obtém o momento da última reprodução.
+     * @return Data em milissegundos, ou 0 se a música nunca foi tocada.
+     */
+    public long getLastPlayedAt() {
+        return lastPlayedAt;
+    }
+}
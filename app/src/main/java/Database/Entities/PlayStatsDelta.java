@@ -0,0 +1,20 @@
+package com.mussaldynerhey.meuleitorrhey.database.entities;
+
+/**
+ * Incremento das estatísticas de uma música, somado pelos eventos de reprodução de um lote
+ * do diário e aplicado de uma vez à tabela play_stats.
+ */
+public class PlayStatsDelta {
+    public final int songId; // ID da música
+    public int plays; // Reproduções até o fim no lote
+    public int skips; // Pulos no lote
+    public long lastPlayedAt; // Início de reprodução mais recente no lote (0 se não houver)
+
+    /**
+     * Construtor de um incremento vazio.
+     * @param songId ID da música.
+     */
+    public PlayStatsDelta(int songId) {
+        this.songId = songId;
+    }
+}
@@ -25,22 +25,29 @@ import androidx.room.Index;
                 )
         },
         indices = {
-                @Index("playlistId"),
+                @Index({"playlistId", "position"}),
                 @Index("songId")
         }
 )
 public class PlaylistSong {
+    /**
+     * Distância entre as posições de músicas vizinhas. Uma música movida ou inserida entre duas
+     * outras recebe a posição do meio, sem renumerar as demais; só quando não há mais espaço
+     * entre duas posições a playlist é renumerada.
+     */
+    public static final long POSITION_GAP = 1L << 16;
+
     public int playlistId; // ID da playlist
     public int songId; // ID da música
-    public int position; // Posição da música na playlist
+    public long position; // Chave de ordenação da música na playlist, com intervalos entre músicas vizinhas
 
     /**
      * Construtor para criar uma relação entre playlist e música.
      * @param playlistId ID da playlist.
      * @param songId ID da música.
-     * @param position Posição da música na playlist.
+     * @param position Chave de ordenação da música na playlist.
      */
-    public PlaylistSong(int playlistId, int songId, int position) {
+    public PlaylistSong(int playlistId, int songId, long position) {
         this.playlistId = playlistId;
         this.songId = songId;
         this.position = position;
@@ -63,10 +70,10 @@ public class PlaylistSong {
     }
 
     /**
-     * Obtém a posição da música na playlist.
+     * Obtém a chave de ordenação da música na playlist.
      * @return Posição da música.
      */
-    public int getPosition() {
+    public long getPosition() {
         return position;
     }
 }
\ No newline at end of file
@@ -2,13 +2,21 @@ package com.mussaldynerhey.meuleitorrhey.database.entities;
 
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import java.io.Serializable;
 
 /**
  * Entidade que representa uma música no banco de dados.
  */
-@Entity(tableName = "songs")
+@Entity(
+        tableName = "songs",
+        indices = {
+                @Index(value = "path", unique = true),
+                @Index("title"),
+                @Index("artist")
+        }
+)
 public class Song implements Serializable {
 
     @PrimaryKey(autoGenerate = true)
@@ -23,6 +31,28 @@ public class Song implements Serializable {
     @ColumnInfo(name = "album_art_path")
     private String albumArtPath; // Caminho da capa do álbum
 
+    private String album; // Álbum lido das tags do arquivo
+
+    @ColumnInfo(name = "track_number", defaultValue = "0")
+    private int trackNumber; // Número da faixa no álbum (0 se desconhecido)
+
+    @ColumnInfo(defaultValue = "0")
+    private int year; // Ano de lançamento (0 se desconhecido)
+
+    private String genre; // Gênero musical
+
+    @ColumnInfo(defaultValue = "0")
+    private int bitrate; // Taxa de bits em bits por segundo (0 se desconhecida)
+
+    @ColumnInfo(name = "has_embedded_art", defaultValue = "0")
+    private boolean hasEmbeddedArt; // Indica se o arquivo tem capa embutida
+
+    @ColumnInfo(name = "enriched_at", defaultValue = "0")
+    private long enrichedAt; // Momento em que as tags foram lidas (0 se ainda não foram)
+
+    @ColumnInfo(name = "duplicate_of")
+    private Integer duplicateOf; // ID da música da qual esta é uma cópia idêntica (null se não for cópia)
+
     /**
      * Construtor para criar uma nova música.
      * @param title Título da música.
@@ -152,4 +182,132 @@ public class Song implements Serializable {
     public void setAlbumArtPath(String albumArtPath) {
         this.albumArtPath = albumArtPath;
     }
+
+    /**
+     * Obtém o álbum da música.
+     * @return Nome do álbum.
+     */
+    public String getAlbum() {
+        return album;
+    }
+
+    /**
+     * Define o álbum da música.
+     * @param album Nome do álbum.
+     */
+    public void setAlbum(String album) {
+        this.album = album;
+    }
+
+    /**
+     * Obtém o número da faixa no álbum.
+     * @return Número da faixa, ou 0 se desconhecido.
+     */
+    public int getTrackNumber() {
+        return trackNumber;
+    }
+
+    /**
+     * Define o número da faixa no álbum.
+     * @param trackNumber Número da faixa.
+     */
+    public void setTrackNumber(int trackNumber) {
+        this.trackNumber = trackNumber;
+    }
+
+    /**
+     * Obtém o ano de lançamento.
+     * @return Ano, ou 0 se desconhecido.
+     */
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * Define o ano de lançamento.
+     * @param year Ano de lançamento.
+     */
+    public void setYear(int year) {
+        this.year = year;
+    }
+
+    /**
+     * Obtém o gênero musical.
+     * @return Gênero da música.
+     */
+    public String getGenre() {
+        return genre;
+    }
+
+    /**
+     * Define o gênero musical.
+     * @param genre Gênero da música.
+     */
+    public void setGenre(String genre) {
+        this.genre = genre;
+    }
+
+    /**
+     * Obtém a taxa de bits.
+     * @return Taxa de bits em bits por segundo, ou 0 se desconhecida.
+     */
+    public int getBitrate() {
+        return bitrate;
+    }
+
+    /**
+     * Define a taxa de bits.
+     * @param bitrate Taxa de bits em bits por segundo.
+     */
+    public void setBitrate(int bitrate) {
+        this.bitrate = bitrate;
+    }
+
+    /**
+     * Verifica se o arquivo tem capa embutida.
+     * @return True se houver capa embutida.
+     */
+    public boolean isHasEmbeddedArt() {
+        return hasEmbeddedArt;
+    }
+
+    /**
+     * Define se o arquivo tem capa embutida.
+     * @param hasEmbeddedArt True se houver capa embutida.
+     */
+    public void setHasEmbeddedArt(boolean hasEmbeddedArt) {
+        this.hasEmbeddedArt = hasEmbeddedArt;
+    }
+
+    /**
+     * Obtém o momento em que as tags do arquivo foram lidas.
+     * @return Tempo em milissegundos, ou 0 se as tags ainda não foram lidas.
+     */
+    public long getEnrichedAt() {
+        return enrichedAt;
+    }
+
+    /**
+     * Define o momento em que as tags do arquivo foram lidas.
+     * @param enrichedAt Tempo em milissegundos.
+     */
+    public void setEnrichedAt(long enrichedAt) {
+        this.enrichedAt = enrichedAt;
+    }
+
+    /**
+     * Obtém o ID da música da qual esta é uma cópia idêntica.
+     * @return ID da música original, ou null se esta não for uma cópia.
+     */
+    public Integer getDuplicateOf() {
+        return duplicateOf;
+    }
+
+    /**
+     * Define o ID da música da qual esta é uma cópia idêntica.
+     * @param duplicateOf ID da música original, ou null.
+     */
+    public void setDuplicateOf(Integer duplicateOf) {
+        this.duplicateOf = duplicateOf;
+    }
 }
\ No newline at end of file
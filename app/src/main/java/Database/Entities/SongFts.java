@@ -0,0 +1,53 @@
+package com.mussaldynerhey.meuleitorrhey.database.entities;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+import java.util.Locale;
+
+/**
+ * Índice de busca textual (FTS4) sobre o título e o artista das músicas.
+ * O conteúdo fica na tabela songs; o Room cria os gatilhos que mantêm o índice sincronizado,
+ * e o docid de cada linha é o ID da música.
+ */
+@Fts4(contentEntity = Song.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "songs_fts")
+public class SongFts {
+    public String title; // Título da música
+    public String artist; // Artista da música
+
+    /**
+     * Converte o texto digitado em uma expressão MATCH do FTS: cada palavra vira um prefixo
+     * (ex.: "bob dyl" → "bob* dyl*") e todas precisam aparecer no título ou no artista.
+     * Pontuação é descartada, então o texto nunca é interpretado como operador do FTS.
+     * @param text Texto digitado na busca.
+     * @return Expressão MATCH, ou null se o texto não tiver nenhuma palavra.
+     */
+    public static String toMatchQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(token).append('*');
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    /**
+     * Converte o texto digitado em um padrão LIKE de prefixo, usado para ordenar os resultados.
+     * @param text Texto digitado na busca.
+     * @return Padrão "texto%", com os caracteres especiais do LIKE escapados por '\'.
+     */
+    public static String toPrefixPattern(String text) {
+        String trimmed = text == null ? "" : text.trim();
+        return trimmed.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
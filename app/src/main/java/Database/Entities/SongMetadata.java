@@ -0,0 +1,45 @@
+package com.mussaldynerhey.meuleitorrhey.database.entities;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Metadados lidos das tags de um arquivo de música, usados para atualizar apenas
+ * as colunas correspondentes da entidade Song.
+ */
+public class SongMetadata {
+    public int id; // ID da música
+    public String title; // Título da música
+    public String artist; // Artista da música
+    public long duration; // Duração da música em milissegundos
+    public String album; // Álbum da música
+
+    @ColumnInfo(name = "track_number")
+    public int trackNumber; // Número da faixa no álbum
+
+    public int year; // Ano de lançamento
+    public String genre; // Gênero musical
+    public int bitrate; // Taxa de bits em bits por segundo
+
+    @ColumnInfo(name = "has_embedded_art")
+    public boolean hasEmbeddedArt; // Indica se o arquivo tem capa embutida
+
+    @ColumnInfo(name = "enriched_at")
+    public long enrichedAt; // Momento em que as tags foram lidas
+
+    /**
+     * Construtor que parte dos valores atuais de uma música.
+     * @param song Música cujos metadados serão completados.
+     */
+    public SongMetadata(Song song) {
+        this.id = song.getId();
+        this.title = song.getTitle();
+        this.artist = song.getArtist();
+        this.duration = song.getDuration();
+        this.album = song.getAlbum();
+        this.trackNumber = song.getTrackNumber();
+        this.year = song.getYear();
+        this.genre = song.getGenre();
+        this.bitrate = song.getBitrate();
+        this.hasEmbeddedArt = song.isHasEmbeddedArt();
+    }
+}
@@ -0,0 +1,140 @@
+package com.mussaldynerhey.meuleitorrhey.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.mussaldynerhey.meuleitorrhey.database.entities.PlaylistSong;
+
+/**
+ * Migrações do banco de dados, para que uma mudança de esquema preserve a biblioteca e as playlists.
+ */
+public final class Migrations {
+
+    private Migrations() {
+    }
+
+    /**
+     * Versão 9 → 10: colunas preenchidas pelo enriquecimento de tags.
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE songs ADD COLUMN album TEXT");
+            db.execSQL("ALTER TABLE songs ADD COLUMN track_number INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE songs ADD COLUMN year INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE songs ADD COLUMN genre TEXT");
+            db.execSQL("ALTER TABLE songs ADD COLUMN bitrate INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE songs ADD COLUMN has_embedded_art INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE songs ADD COLUMN enriched_at INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * Versão 10 → 11: coluna que marca cópias idênticas.
+     */
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE songs ADD COLUMN duplicate_of INTEGER");
+        }
+    };
+
+    /**
+     * Versão 11 → 12: índice único em path e índices em title e artist.
+     * Antes de criar o índice único, caminhos vazios viram NULL (músicas internas do app) e
+     * linhas repetidas com o mesmo caminho são unidas na de menor ID, levando junto as playlists.
+     */
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("UPDATE songs SET path = NULL WHERE path = ''");
+
+            String duplicateIds = "SELECT id FROM songs WHERE path IS NOT NULL " +
+                    "AND id NOT IN (SELECT MIN(id) FROM songs WHERE path IS NOT NULL GROUP BY path)";
+            db.execSQL("UPDATE OR IGNORE playlist_songs_ref SET songId = " +
+                    "(SELECT MIN(kept.id) FROM songs kept WHERE kept.path = " +
+                    "(SELECT copy.path FROM songs copy WHERE copy.id = playlist_songs_ref.songId)) " +
+                    "WHERE songId IN (" + duplicateIds + ")");
+            db.execSQL("DELETE FROM playlist_songs_ref WHERE songId IN (" + duplicateIds + ")");
+            db.execSQL("DELETE FROM songs WHERE id IN (" + duplicateIds + ")");
+            db.execSQL("UPDATE songs SET duplicate_of = NULL WHERE duplicate_of NOT IN (SELECT id FROM songs)");
+
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS index_songs_path ON songs (path)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_songs_title ON songs (title)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_songs_artist ON songs (artist)");
+        }
+    };
+
+    /**
+     * Versão 12 → 13: índice de busca textual sobre título e artista.
+     * Os gatilhos são os mesmos que o Room gera para {@code @Fts4(contentEntity = Song.class)},
+     * e o 'rebuild' preenche o índice com as músicas já gravadas.
+     */
+    public static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `songs_fts` USING FTS4(" +
+                    "`title` TEXT, `artist` TEXT, tokenize=unicode61, content=`songs`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_BEFORE_UPDATE " +
+                    "BEFORE UPDATE ON `songs` BEGIN DELETE FROM `songs_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_BEFORE_DELETE " +
+                    "BEFORE DELETE ON `songs` BEGIN DELETE FROM `songs_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_AFTER_UPDATE " +
+                    "AFTER UPDATE ON `songs` BEGIN INSERT INTO `songs_fts`(`docid`, `title`, `artist`) " +
+                    "VALUES (NEW.`rowid`, NEW.`title`, NEW.`artist`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_AFTER_INSERT " +
+                    "AFTER INSERT ON `songs` BEGIN INSERT INTO `songs_fts`(`docid`, `title`, `artist`) " +
+                    "VALUES (NEW.`rowid`, NEW.`title`, NEW.`artist`); END");
+            db.execSQL("INSERT INTO `songs_fts`(`songs_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * Versão 13 → 14: posições das playlists com intervalos ({@code PlaylistSong.POSITION_GAP})
+     * e índice (playlistId, position) no lugar do índice só de playlistId.
+     * As posições atuais são convertidas em postos 1, 2, 3... de cada playlist e multiplicadas
+     * pelo intervalo; uma tabela temporária evita que o UPDATE leia posições já alteradas.
+     */
+    public static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS index_playlist_songs_ref_playlistId");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_playlist_songs_ref_playlistId_position " +
+                    "ON playlist_songs_ref (playlistId, position)");
+            db.execSQL("CREATE TEMP TABLE playlist_ranks AS SELECT ref.playlistId, ref.songId, " +
+                    "(SELECT COUNT(*) FROM playlist_songs_ref other WHERE other.playlistId = ref.playlistId " +
+                    "AND (other.position < ref.position OR (other.position = ref.position AND other.songId <= ref.songId))) " +
+                    "AS rank FROM playlist_songs_ref ref");
+            db.execSQL("UPDATE playlist_songs_ref SET position = " + PlaylistSong.POSITION_GAP + " * " +
+                    "(SELECT rank FROM playlist_ranks WHERE playlist_ranks.playlistId = playlist_songs_ref.playlistId " +
+                    "AND playlist_ranks.songId = playlist_songs_ref.songId)");
+            db.execSQL("DROP TABLE playlist_ranks");
+        }
+    };
+
+    /**
+     * Versão 14 → 15: tabela play_stats, agregada a partir do diário de eventos de reprodução.
+     */
+    public static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `play_stats` (`songId` INTEGER NOT NULL, " +
+                    "`play_count` INTEGER NOT NULL DEFAULT 0, `skip_count` INTEGER NOT NULL DEFAULT 0, " +
+                    "`last_played_at` INTEGER NOT NULL DEFAULT 0, PRIMARY KEY(`songId`), " +
+                    "FOREIGN KEY(`songId`) REFERENCES `songs`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+        }
+    };
+
+    /**
+     * Todas as migrações, na ordem em que devem ser registradas no banco.
+     */
+    public static final Migration[] ALL = {
+            MIGRATION_9_10,
+            MIGRATION_10_11,
+            MIGRATION_11_12,
+            MIGRATION_12_13,
+            MIGRATION_13_14,
+            MIGRATION_14_15
+    };
+}
@@ -4,21 +4,25 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 
 import com.mussaldynerhey.meuleitorrhey.database.daos.SongDao;
 import com.mussaldynerhey.meuleitorrhey.database.daos.PlaylistDao;
 import com.mussaldynerhey.meuleitorrhey.database.daos.PlaylistSongDao;
+import com.mussaldynerhey.meuleitorrhey.database.daos.PlayStatsDao;
 import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
+import com.mussaldynerhey.meuleitorrhey.database.entities.SongFts;
 import com.mussaldynerhey.meuleitorrhey.database.entities.Playlist;
 import com.mussaldynerhey.meuleitorrhey.database.entities.PlaylistSong;
+import com.mussaldynerhey.meuleitorrhey.database.entities.PlayStats;
 
 /**
  * Classe de banco de dados Room que define as entidades e fornece acesso aos DAOs.
  */
 @Database(
-        entities = {Song.class, Playlist.class, PlaylistSong.class},
-        version = 9,
-        exportSchema = false
+        entities = {Song.class, SongFts.class, Playlist.class, PlaylistSong.class, PlayStats.class},
+        version = 15,
+        exportSchema = true
 )
 public abstract class MusicDatabase extends RoomDatabase {
 
@@ -40,6 +44,12 @@ public abstract class MusicDatabase extends RoomDatabase {
      */
     public abstract PlaylistSongDao playlistSongDao();
 
+    /**
+     * Obtém o DAO para as estatísticas de reprodução.
+     * @return Instância de PlayStatsDao.
+     */
+    public abstract PlayStatsDao playStatsDao();
+
     private static volatile MusicDatabase INSTANCE; // Instância singleton do banco de dados
 
     /**
@@ -51,11 +61,21 @@ public abstract class MusicDatabase extends RoomDatabase {
         if (INSTANCE == null) {
             synchronized (MusicDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(
+                    RoomDatabase.Builder<MusicDatabase> builder = Room.databaseBuilder(
                                     context.getApplicationContext(),
                                     MusicDatabase.class, "music_database")
-                            .fallbackToDestructiveMigration()
-                            .build();
+                            .addMigrations(Migrations.ALL)
+                            // WAL: leituras em paralelo com a escrita em andamento
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .setQueryExecutor(DatabaseExecutors.read())
+                            .setTransactionExecutor(DatabaseExecutors.write())
+                            // Versões anteriores à 9 não têm migração registrada
+                            .fallbackToDestructiveMigrationFrom(1, 2, 3, 4, 5, 6, 7, 8);
+                    if ((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+                        // Executor direto: o callback roda na thread da consulta, que fica registrada
+                        builder.setQueryCallback((sql, bindArgs) -> QueryStats.onSql(sql), Runnable::run);
+                    }
+                    INSTANCE = builder.build();
                 }
             }
         }
@@ -0,0 +1,295 @@
+package com.mussaldynerhey.meuleitorrhey.database;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Medições das consultas ao banco de dados, para encontrar regressões com bibliotecas reais.
+ * Cada método do repositório tem um histograma do tempo de execução, o tempo de espera na fila
+ * do executor (medido à parte), o total de linhas devolvidas e quantas vezes foi pedido pela
+ * thread principal; as consultas lentas ficam em um buffer circular com as últimas ocorrências.
+ * Como as consultas rodam nos executores do banco, a thread de origem e o momento do pedido
+ * são capturados por quem chama, antes de enfileirar. Em builds depuráveis, o QueryCallback do Room também conta cada
+ * comando SQL executado e em que thread. Tudo é exibido por
+ * {@code adb shell dumpsys activity service com.mussaldynerhey.meuleitorrhey/.MusicService}.
+ */
+public final class QueryStats {
+    private static final String TAG = "QueryStats";
+    private static final long SLOW_QUERY_MS = 50; // Consultas a partir deste tempo entram no log de lentas
+    private static final int SLOW_LOG_SIZE = 64; // Consultas lentas guardadas
+    private static final int MAX_SQL_KEYS = 256; // Comandos SQL distintos contados; os demais são somados juntos
+    private static final String OTHER_SQL = "(outros comandos)"; // Chave dos comandos além do limite
+    // Limites superiores, em ms, de cada faixa do histograma; a última faixa não tem limite
+    private static final long[] BUCKET_LIMITS_MS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+
+    private static final Map<String, Timing> timings = new ConcurrentHashMap<>(); // Medições por método do repositório
+    private static final Map<String, SqlCount> sqlCounts = new ConcurrentHashMap<>(); // Execuções por comando SQL
+    private static final SlowQuery[] slowLog = new SlowQuery[SLOW_LOG_SIZE]; // Buffer circular, protegido por slowLog
+    private static long slowLogCount = 0; // Total de consultas lentas registradas, protegido por slowLog
+
+    /**
+     * Medições acumuladas de um método do repositório.
+     */
+    private static class Timing {
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_LIMITS_MS.length + 1); // Histograma de latência
+        final AtomicLong count = new AtomicLong(); // Execuções
+        final AtomicLong totalNanos = new AtomicLong(); // Tempo total
+        final AtomicLong maxNanos = new AtomicLong(); // Maior tempo
+        final AtomicLong totalWaitNanos = new AtomicLong(); // Tempo total de espera na fila do executor
+        final AtomicLong maxWaitNanos = new AtomicLong(); // Maior espera na fila do executor
+        final AtomicLong rows = new AtomicLong(); // Linhas devolvidas ou gravadas
+        final AtomicLong mainThread = new AtomicLong(); // Pedidos feitos pela thread principal
+    }
+
+    /**
+     * Execuções de um comando SQL vistas pelo QueryCallback.
+     */
+    private static class SqlCount {
+        final AtomicLong count = new AtomicLong(); // Execuções
+        final AtomicLong mainThread = new AtomicLong(); // Execuções na thread principal
+    }
+
+    /**
+     * Consulta lenta registrada.
+     */
+    private static class SlowQuery {
+        final String name; // Método do repositório
+        final long millis; // Duração da execução
+        final long waitMillis; // Espera na fila do executor antes de executar
+        final int rows; // Linhas devolvidas ou gravadas
+        final String thread; // Thread em que rodou
+        final boolean fromMainThread; // Indica se foi pedida pela thread principal
+        final long timestamp; // Momento em que terminou
+
+        SlowQuery(String name, long millis, long waitMillis, int rows, String thread, boolean fromMainThread,
+                  long timestamp) {
+            this.name = name;
+            this.millis = millis;
+            this.waitMillis = waitMillis;
+            this.rows = rows;
+            this.thread = thread;
+            this.fromMainThread = fromMainThread;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private QueryStats() {
+    }
+
+    /**
+     * Executa e mede uma consulta, já na thread do executor.
+     * @param name Nome da consulta, como "SongDao.getLibraryRows".
+     * @param fromMainThread Indica se a consulta foi pedida pela thread principal ({@link #isMainThread()} de quem chamou).
+     * @param enqueuedAtNanos Momento do pedido, em {@link SystemClock#elapsedRealtimeNanos()}.
+     * @param query Consulta a ser executada.
+     * @return Resultado da consulta.
+     */
+    public static <T> T time(String name, boolean fromMainThread, long enqueuedAtNanos, Supplier<T> query) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        T result = query.get();
+        record(name, fromMainThread, start - enqueuedAtNanos, SystemClock.elapsedRealtimeNanos() - start,
+                rowCount(result));
+        return result;
+    }
+
+    /**
+     * Executa e mede um comando sem resultado, já na thread do executor.
+     * @param name Nome do comando, como "SongDao.applySync".
+     * @param fromMainThread Indica se o comando foi pedido pela thread principal.
+     * @param enqueuedAtNanos Momento do pedido, em {@link SystemClock#elapsedRealtimeNanos()}.
+     * @param command Comando a ser executado.
+     */
+    public static void time(String name, boolean fromMainThread, long enqueuedAtNanos, Runnable command) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        command.run();
+        record(name, fromMainThread, start - enqueuedAtNanos, SystemClock.elapsedRealtimeNanos() - start, 0);
+    }
+
+    /**
+     * Verifica se a thread atual é a principal. Deve ser chamado por quem pede a consulta,
+     * antes de enfileirá-la no executor.
+     * @return True se a thread atual for a principal.
+     */
+    public static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    /**
+     * Conta um comando SQL executado. Chamado pelo QueryCallback do Room na própria thread
+     * da consulta, para saber se ela rodou na thread principal.
+     * @param sql Comando executado; os argumentos não são guardados.
+     */
+    static void onSql(String sql) {
+        boolean onMainThread = isMainThread();
+        SqlCount sqlCount = sqlCounts.get(sql);
+        if (sqlCount == null) {
+            String key = sqlCounts.size() < MAX_SQL_KEYS ? sql : OTHER_SQL;
+            sqlCount = sqlCounts.computeIfAbsent(key, k -> new SqlCount());
+        }
+        sqlCount.count.incrementAndGet();
+        if (onMainThread) {
+            sqlCount.mainThread.incrementAndGet();
+        }
+    }
+
+    private static void record(String name, boolean fromMainThread, long waitNanos, long nanos, int rows) {
+        Timing timing = timings.computeIfAbsent(name, k -> new Timing());
+        long millis = nanos / 1_000_000;
+        long waitMillis = waitNanos / 1_000_000;
+        timing.buckets.incrementAndGet(bucket(millis));
+        timing.count.incrementAndGet();
+        timing.totalNanos.addAndGet(nanos);
+        timing.totalWaitNanos.addAndGet(waitNanos);
+        timing.rows.addAndGet(rows);
+        updateMax(timing.maxNanos, nanos);
+        updateMax(timing.maxWaitNanos, waitNanos);
+
+        if (fromMainThread) {
+            timing.mainThread.incrementAndGet();
+            if (waitMillis + millis >= SLOW_QUERY_MS) {
+                // Se a thread principal esperar pelo resultado, este é o tempo que ela fica parada
+                Log.w(TAG, "Consulta lenta pedida pela thread principal: " + name + " (fila " + waitMillis
+                        + " ms, execução " + millis + " ms)");
+            }
+        }
+        if (waitMillis + millis >= SLOW_QUERY_MS) {
+            SlowQuery slow = new SlowQuery(name, millis, waitMillis, rows, Thread.currentThread().getName(),
+                    fromMainThread, System.currentTimeMillis());
+            synchronized (slowLog) {
+                slowLog[(int) (slowLogCount % SLOW_LOG_SIZE)] = slow;
+                slowLogCount++;
+            }
+        }
+    }
+
+    private static void updateMax(AtomicLong target, long value) {
+        long max;
+        do {
+            max = target.get();
+        } while (value > max && !target.compareAndSet(max, value));
+    }
+
+    private static int bucket(long millis) {
+        for (int i = 0; i < BUCKET_LIMITS_MS.length; i++) {
+            if (millis < BUCKET_LIMITS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS_MS.length;
+    }
+
+    private static int rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        return 1;
+    }
+
+    /**
+     * Descarta todas as medições.
+     */
+    public static void reset() {
+        timings.clear();
+        sqlCounts.clear();
+        synchronized (slowLog) {
+            Arrays.fill(slowLog, null);
+            slowLogCount = 0;
+        }
+    }
+
+    /**
+     * Escreve as medições em formato de texto, para o dumpsys.
+     * @param writer Destino do texto.
+     */
+    public static void dump(PrintWriter writer) {
+        writer.println("Consultas por método (ms: p50 / p95 / máx / média da execução, média / máx da espera"
+                + " na fila, linhas, pedidas pela thread principal):");
+        for (Map.Entry<String, Timing> entry : new TreeMap<>(timings).entrySet()) {
+            Timing timing = entry.getValue();
+            long count = timing.count.get();
+            if (count == 0) {
+                continue;
+            }
+            writer.printf(Locale.US, "  %-40s n=%d p50%s p95%s max=%d avg=%.1f wait=%.1f/%d rows=%d main=%d%n",
+                    entry.getKey(), count, percentile(timing, 0.50), percentile(timing, 0.95),
+                    timing.maxNanos.get() / 1_000_000, timing.totalNanos.get() / 1e6 / count,
+                    timing.totalWaitNanos.get() / 1e6 / count, timing.maxWaitNanos.get() / 1_000_000,
+                    timing.rows.get(), timing.mainThread.get());
+            StringBuilder histogram = new StringBuilder("      ");
+            for (int i = 0; i < timing.buckets.length(); i++) {
+                long bucketCount = timing.buckets.get(i);
+                if (bucketCount > 0) {
+                    histogram.append(bucketLabel(i)).append(':').append(bucketCount).append(' ');
+                }
+            }
+            writer.println(histogram);
+        }
+
+        writer.println();
+        writer.println("Comandos SQL (execuções, thread principal):");
+        for (Map.Entry<String, SqlCount> entry : new TreeMap<>(sqlCounts).entrySet()) {
+            writer.printf(Locale.US, "  %6d %4d  %s%n", entry.getValue().count.get(),
+                    entry.getValue().mainThread.get(), entry.getKey().replaceAll("\\s+", " "));
+        }
+
+        List<SlowQuery> slow = new ArrayList<>();
+        long total;
+        synchronized (slowLog) {
+            total = slowLogCount;
+            int kept = (int) Math.min(total, SLOW_LOG_SIZE);
+            for (int i = 0; i < kept; i++) {
+                slow.add(slowLog[(int) ((total - kept + i) % SLOW_LOG_SIZE)]);
+            }
+        }
+        writer.println();
+        writer.println("Consultas lentas (fila + execução >= " + SLOW_QUERY_MS + " ms), " + slow.size()
+                + " de " + total + ":");
+        SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+        for (SlowQuery query : slow) {
+            writer.printf(Locale.US, "  %s %-40s %5d ms fila=%d ms rows=%d thread=%s%s%n",
+                    format.format(new Date(query.timestamp)), query.name, query.millis, query.waitMillis,
+                    query.rows, query.thread, query.fromMainThread ? " (pedida pela principal)" : "");
+        }
+    }
+
+    /**
+     * Estima um percentil pelo limite superior da faixa do histograma em que ele cai.
+     */
+    private static String percentile(Timing timing, double fraction) {
+        long count = timing.count.get();
+        long target = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < timing.buckets.length(); i++) {
+            seen += timing.buckets.get(i);
+            if (seen >= target) {
+                return bucketLabel(i);
+            }
+        }
+        return bucketLabel(timing.buckets.length() - 1);
+    }
+
+    private static String bucketLabel(int bucket) {
+        return bucket < BUCKET_LIMITS_MS.length
+                ? "<" + BUCKET_LIMITS_MS[bucket]
+                : ">=" + BUCKET_LIMITS_MS[BUCKET_LIMITS_MS.length - 1];
+    }
+}
@@ -0,0 +1,81 @@
+package com.mussaldynerhey.meuleitorrhey.database.daos;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.mussaldynerhey.meuleitorrhey.database.entities.PlayStats;
+import com.mussaldynerhey.meuleitorrhey.database.entities.PlayStatsDelta;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Interface DAO para as estatísticas de reprodução das músicas.
+ */
+@Dao
+public interface PlayStatsDao {
+
+    /**
+     * Cria a linha de estatísticas de uma música, zerada, se ela ainda não existir.
+     * Músicas removidas da biblioteca são ignoradas.
+     * @param songId ID da música.
+     */
+    @Query("INSERT OR IGNORE INTO play_stats (songId) SELECT id FROM songs WHERE id = :songId")
+    void ensureStats(int songId);
+
+    /**
+     * Soma contagens às estatísticas de uma música.
+     * @param songId ID da música.
+     * @param plays Reproduções até o fim a somar.
+     * @param skips Pulos a somar.
+     * @param lastPlayedAt Início de reprodução mais recente; só substitui o atual se for mais novo.
+     */
+    @Query("UPDATE play_stats SET play_count = play_count + :plays, skip_count = skip_count + :skips, " +
+            "last_played_at = MAX(last_played_at, :lastPlayedAt) WHERE songId = :songId")
+    void addToStats(int songId, int plays, int skips, long lastPlayedAt);
+
+    /**
+     * Aplica os incrementos de um lote do diário de reprodução em uma única transação.
+     * @param deltas Incrementos por música.
+     */
+    @Transaction
+    default void applyDeltas(Collection<PlayStatsDelta> deltas) {
+        for (PlayStatsDelta delta : deltas) {
+            ensureStats(delta.songId);
+            addToStats(delta.songId, delta.plays, delta.skips, delta.lastPlayedAt);
+        }
+    }
+
+    /**
+     * Obtém as estatísticas de uma música.
+     * @param songId ID da música.
+     * @return Estatísticas, ou null se a música nunca foi tocada.
+     */
+    @Query("SELECT * FROM play_stats WHERE songId = :songId")
+    PlayStats getStats(int songId);
+
+    /**
+     * Obtém as estatísticas de todas as músicas que já foram tocadas ou puladas.
+     * @return Lista de estatísticas.
+     */
+    @Query("SELECT * FROM play_stats")
+    List<PlayStats> getAllStats();
+
+    /**
+     * Obtém as músicas mais tocadas até o fim.
+     * @param limit Número máximo de músicas.
+     * @return IDs das músicas, da mais para a menos tocada.
+     */
+    @Query("SELECT songId FROM play_stats WHERE play_count > 0 " +
+            "ORDER BY play_count DESC, last_played_at DESC LIMIT :limit")
+    List<Integer> getMostPlayedSongIds(int limit);
+
+    /**
+     * Obtém as músicas tocadas mais recentemente.
+     * @param limit Número máximo de músicas.
+     * @return IDs das músicas, da mais para a menos recente.
+     */
+    @Query("SELECT songId FROM play_stats WHERE last_played_at > 0 ORDER BY last_played_at DESC LIMIT :limit")
+    List<Integer> getRecentlyPlayedSongIds(int limit);
+}
@@ -1,5 +1,6 @@
 package com.mussaldynerhey.meuleitorrhey.database.daos;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
@@ -8,6 +9,7 @@ import androidx.room.Delete;
 import androidx.room.Transaction;
 
 import com.mussaldynerhey.meuleitorrhey.database.entities.Playlist;
+import com.mussaldynerhey.meuleitorrhey.database.relations.PlaylistSummary;
 import com.mussaldynerhey.meuleitorrhey.database.relations.PlaylistWithSongs;
 
 import java.util.List;
@@ -17,6 +19,28 @@ import java.util.List;
  */
 @Dao
 public interface PlaylistDao {
+    /**
+     * Música da capa em uma posição da playlist; a posição (OFFSET) completa a expressão.
+     * Cada uma é uma busca no índice (playlistId, position), com ordem garantida pelo ORDER BY.
+     */
+    String COVER_SONG_AT = "(SELECT cover.songId FROM playlist_songs_ref cover " +
+            "WHERE cover.playlistId = p.id ORDER BY cover.position LIMIT 1 OFFSET ";
+
+    /**
+     * Resumo de todas as playlists, ordenadas por nome, em uma única consulta:
+     * um GROUP BY sobre playlist_songs_ref unida a songs calcula a contagem e a duração total,
+     * e as {@link PlaylistSummary#COVER_SONG_COUNT} primeiras músicas pela posição formam a capa.
+     * O GROUP_CONCAT não garante a ordem das linhas que concatena, então cada música da capa é
+     * uma subconsulta separada, e a concatenação é feita com || na ordem das posições.
+     */
+    String PLAYLIST_SUMMARIES_QUERY = "SELECT p.*, COUNT(s.id) AS songCount, COALESCE(SUM(s.duration), 0) AS totalDuration, " +
+            "NULLIF(COALESCE(" + COVER_SONG_AT + "0), '') || COALESCE(',' || " + COVER_SONG_AT + "1), '') || " +
+            "COALESCE(',' || " + COVER_SONG_AT + "2), '') || COALESCE(',' || " + COVER_SONG_AT + "3), ''), '') " +
+            "AS coverSongIds " +
+            "FROM playlists p " +
+            "LEFT JOIN playlist_songs_ref ref ON ref.playlistId = p.id " +
+            "LEFT JOIN songs s ON s.id = ref.songId " +
+            "GROUP BY p.id ORDER BY p.name ASC";
 
     /**
      * Insere uma nova playlist no banco de dados.
@@ -47,6 +71,21 @@ public interface PlaylistDao {
     @Query("SELECT * FROM playlists ORDER BY name ASC")
     List<Playlist> getAllPlaylists();
 
+    /**
+     * Obtém o resumo de todas as playlists (ver {@link #PLAYLIST_SUMMARIES_QUERY}).
+     * @return Resumos das playlists.
+     */
+    @Query(PLAYLIST_SUMMARIES_QUERY)
+    List<PlaylistSummary> getPlaylistSummaries();
+
+    /**
+     * Observa o resumo de todas as playlists. O InvalidationTracker do Room refaz a consulta
+     * apenas quando playlists, playlist_songs_ref ou songs mudam, no executor de leitura.
+     * @return LiveData com os resumos das playlists.
+     */
+    @Query(PLAYLIST_SUMMARIES_QUERY)
+    LiveData<List<PlaylistSummary>> observePlaylistSummaries();
+
     /**
      * Obtém uma playlist específica pelo seu ID.
      * @param playlistId ID da playlist.
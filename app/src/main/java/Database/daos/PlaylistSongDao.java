@@ -4,9 +4,15 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
 import com.mussaldynerhey.meuleitorrhey.database.entities.PlaylistSong;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Dao
 public interface PlaylistSongDao {
 
@@ -16,6 +22,124 @@ public interface PlaylistSongDao {
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     void addSongToPlaylist(PlaylistSong playlistSong);
 
+    /**
+     * Insere várias relações playlist-música em um único lote.
+     * @param playlistSongs Relações a serem inseridas.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<PlaylistSong> playlistSongs);
+
+    /**
+     * Obtém a maior posição usada em uma playlist.
+     * @param playlistId ID da playlist.
+     * @return Maior posição, ou 0 se a playlist estiver vazia.
+     */
+    @Query("SELECT COALESCE(MAX(position), 0) FROM playlist_songs_ref WHERE playlistId = :playlistId")
+    long getMaxPosition(int playlistId);
+
+    /**
+     * Obtém a posição de uma música em uma playlist.
+     * @param playlistId ID da playlist.
+     * @param songId ID da música.
+     * @return Posição da música, ou null se ela não estiver na playlist.
+     */
+    @Query("SELECT position FROM playlist_songs_ref WHERE playlistId = :playlistId AND songId = :songId")
+    Long getPosition(int playlistId, int songId);
+
+    /**
+     * Altera a posição de uma única música na playlist.
+     * @param playlistId ID da playlist.
+     * @param songId ID da música.
+     * @param position Nova posição.
+     */
+    @Query("UPDATE playlist_songs_ref SET position = :position WHERE playlistId = :playlistId AND songId = :songId")
+    void setPosition(int playlistId, int songId, long position);
+
+    /**
+     * Obtém os IDs das músicas de uma playlist na ordem da playlist.
+     * @param playlistId ID da playlist.
+     * @return IDs das músicas, ordenados por posição.
+     */
+    @Query("SELECT songId FROM playlist_songs_ref WHERE playlistId = :playlistId ORDER BY position ASC, songId ASC")
+    List<Integer> getOrderedSongIds(int playlistId);
+
+    /**
+     * Move uma música para entre duas vizinhas, alterando apenas a posição dela.
+     * A nova posição é o ponto médio entre as posições das vizinhas; se não houver mais espaço
+     * entre elas, a playlist é renumerada com {@link PlaylistSong#POSITION_GAP} antes.
+     * @param playlistId ID da playlist.
+     * @param songId ID da música movida.
+     * @param previousSongId ID da música que ficará antes dela, ou null se ela for a primeira.
+     * @param nextSongId ID da música que ficará depois dela, ou null se ela for a última.
+     */
+    @Transaction
+    default void moveSongBetween(int playlistId, int songId, Integer previousSongId, Integer nextSongId) {
+        Long previous = previousSongId != null ? getPosition(playlistId, previousSongId) : null;
+        Long next = nextSongId != null ? getPosition(playlistId, nextSongId) : null;
+        if (previous != null && next != null && next - previous < 2) {
+            rebalance(playlistId);
+            previous = getPosition(playlistId, previousSongId);
+            next = getPosition(playlistId, nextSongId);
+        }
+        long position;
+        if (previous != null && next != null) {
+            position = previous + (next - previous) / 2;
+        } else if (previous != null) {
+            position = previous + PlaylistSong.POSITION_GAP;
+        } else if (next != null) {
+            position = next - PlaylistSong.POSITION_GAP;
+        } else {
+            return; // Não há vizinhas: a ordem não muda
+        }
+        setPosition(playlistId, songId, position);
+    }
+
+    /**
+     * Renumera as posições de uma playlist com intervalos de {@link PlaylistSong#POSITION_GAP},
+     * mantendo a ordem. Só é necessário quando dois vizinhos ficam sem espaço entre si.
+     * @param playlistId ID da playlist.
+     */
+    @Transaction
+    default void rebalance(int playlistId) {
+        List<Integer> songIds = getOrderedSongIds(playlistId);
+        for (int i = 0; i < songIds.size(); i++) {
+            setPosition(playlistId, songIds.get(i), (i + 1) * PlaylistSong.POSITION_GAP);
+        }
+    }
+
+    /**
+     * Obtém os IDs das músicas que já estão em uma playlist.
+     * @param playlistId ID da playlist.
+     * @return IDs das músicas da playlist.
+     */
+    @Query("SELECT songId FROM playlist_songs_ref WHERE playlistId = :playlistId")
+    List<Integer> getSongIdsInPlaylist(int playlistId);
+
+    /**
+     * Adiciona várias músicas ao fim de uma playlist em uma única transação.
+     * A maior posição é lida uma vez e as músicas novas recebem posições seguidas a partir dela;
+     * músicas que já estão na playlist (ou repetidas na lista) são ignoradas.
+     * @param playlistId ID da playlist.
+     * @param songIds IDs das músicas, na ordem em que devem entrar.
+     * @return Número de músicas adicionadas.
+     */
+    @Transaction
+    default int addSongsToPlaylist(int playlistId, List<Integer> songIds) {
+        Set<Integer> present = new HashSet<>(getSongIdsInPlaylist(playlistId));
+        long position = getMaxPosition(playlistId);
+        List<PlaylistSong> rows = new ArrayList<>(songIds.size());
+        for (Integer songId : songIds) {
+            if (present.add(songId)) {
+                position += PlaylistSong.POSITION_GAP;
+                rows.add(new PlaylistSong(playlistId, songId, position));
+            }
+        }
+        if (!rows.isEmpty()) {
+            insertAll(rows);
+        }
+        return rows.size();
+    }
+
     /**
      * Remove uma música específica de uma playlist específica.
      * Usado quando o usuário deleta uma música de dentro da tela de detalhes da playlist.
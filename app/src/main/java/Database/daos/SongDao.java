@@ -1,21 +1,47 @@
 package com.mussaldynerhey.meuleitorrhey.database.daos;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Update;
 import androidx.room.Delete;
+import androidx.room.Transaction;
 
 import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
+import com.mussaldynerhey.meuleitorrhey.database.entities.SongFts;
+import com.mussaldynerhey.meuleitorrhey.database.entities.SongMetadata;
+import com.mussaldynerhey.meuleitorrhey.database.relations.PlayableSongRow;
+import com.mussaldynerhey.meuleitorrhey.database.relations.SongPathRow;
+import com.mussaldynerhey.meuleitorrhey.database.relations.SongRow;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface DAO para operações com a entidade Song no banco de dados.
  */
 @Dao
 public interface SongDao {
+    /**
+     * Colunas de {@link SongRow}: apenas o que as listas exibem.
+     */
+    String SONG_ROW_COLUMNS = "s.id, s.title, s.artist, s.duration";
+
+    /**
+     * Colunas de {@link PlayableSongRow}: as de SongRow mais o necessário para tocar a música.
+     */
+    String PLAYABLE_ROW_COLUMNS = SONG_ROW_COLUMNS + ", s.path, s.album_art_path";
+
+    /**
+     * Junção das músicas de uma playlist, na ordem da playlist.
+     */
+    String PLAYLIST_SONGS_FROM = " FROM songs s " +
+            "INNER JOIN playlist_songs_ref psr ON s.id = psr.songId " +
+            "WHERE psr.playlistId = :playlistId " +
+            "ORDER BY psr.position ASC";
 
     /**
      * Insere uma nova música no banco de dados, ignorando conflitos.
@@ -39,13 +65,195 @@ public interface SongDao {
     @Delete
     void delete(Song song);
 
+    /**
+     * Insere várias músicas de uma vez, ignorando conflitos.
+     * @param songs Músicas a serem inseridas.
+     * @return IDs das músicas inseridas (-1 para as ignoradas).
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertAll(List<Song> songs);
+
+    /**
+     * Atualiza várias músicas de uma vez.
+     * @param songs Músicas a serem atualizadas.
+     */
+    @Update
+    void updateAll(List<Song> songs);
+
+    /**
+     * Deleta várias músicas de uma vez.
+     * @param songs Músicas a serem deletadas.
+     */
+    @Delete
+    void deleteAll(List<Song> songs);
+
+    /**
+     * Aplica o resultado de uma sincronização com o dispositivo em uma única transação.
+     * @param added Músicas novas a serem inseridas.
+     * @param changed Músicas existentes a serem atualizadas.
+     * @param removed Músicas que não existem mais no dispositivo.
+     */
+    @Transaction
+    default void applySync(List<Song> added, List<Song> changed, List<Song> removed) {
+        if (!added.isEmpty()) {
+            List<Long> ids = insertAll(added);
+            List<Song> conflicting = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                Song song = added.get(i);
+                if (ids.get(i) == -1) {
+                    // O caminho já existe no banco (índice único): atualiza a linha existente
+                    Integer existingId = getSongIdByPath(song.getPath());
+                    if (existingId != null) {
+                        song.setId(existingId);
+                        conflicting.add(song);
+                    }
+                } else {
+                    song.setId(ids.get(i).intValue());
+                }
+            }
+            if (!conflicting.isEmpty()) {
+                updateAll(conflicting);
+            }
+        }
+        if (!changed.isEmpty()) {
+            updateAll(changed);
+        }
+        if (!removed.isEmpty()) {
+            deleteAll(removed);
+        }
+    }
+
+    /**
+     * Obtém o ID da música com um caminho, usando o índice único de path.
+     * @param path Caminho do arquivo.
+     * @return ID da música, ou null se não houver.
+     */
+    @Query("SELECT id FROM songs WHERE path = :path")
+    Integer getSongIdByPath(String path);
+
+    /**
+     * Obtém o ID e o caminho de todas as músicas com arquivo. As músicas internas não têm
+     * caminho; a consulta é respondida só pelo índice único de path, que já contém o ID.
+     * @return ID e caminho de cada música do dispositivo.
+     */
+    @Query("SELECT id, path FROM songs WHERE path > ''")
+    List<SongPathRow> getDeviceSongPaths();
+
+    /**
+     * Obtém as músicas com os caminhos informados, usando o índice único de path.
+     * A lista deve ficar abaixo do limite de parâmetros do SQLite (999).
+     * @param paths Caminhos dos arquivos.
+     * @return Músicas encontradas; caminhos sem música são ignorados.
+     */
+    @Query("SELECT * FROM songs WHERE path IN (:paths)")
+    List<Song> getSongsByPaths(List<String> paths);
+
+    /**
+     * Obtém um lote de músicas do dispositivo cujas tags ainda não foram lidas.
+     * Como cada lote processado é marcado, chamadas sucessivas retomam de onde a anterior parou.
+     * @param limit Tamanho máximo do lote.
+     * @return Músicas pendentes de enriquecimento, em ordem de ID.
+     */
+    @Query("SELECT * FROM songs WHERE enriched_at = 0 AND resourceId = 0 " +
+            "AND path IS NOT NULL AND path != '' ORDER BY id ASC LIMIT :limit")
+    List<Song> getSongsPendingEnrichment(int limit);
+
+    /**
+     * Grava em lote, em uma única transação, os metadados lidos das tags.
+     * Apenas as colunas presentes em SongMetadata são alteradas.
+     * @param metadata Metadados a serem gravados.
+     */
+    @Update(entity = Song.class)
+    void updateMetadata(List<SongMetadata> metadata);
+
+    /**
+     * Desmarca todas as músicas marcadas como cópia.
+     */
+    @Query("UPDATE songs SET duplicate_of = NULL WHERE duplicate_of IS NOT NULL")
+    void clearDuplicates();
+
+    /**
+     * Marca uma música como cópia idêntica de outra.
+     * @param songId ID da cópia.
+     * @param originalId ID da música mantida como original.
+     */
+    @Query("UPDATE songs SET duplicate_of = :originalId WHERE id = :songId")
+    void setDuplicateOf(int songId, int originalId);
+
+    /**
+     * Substitui, em uma única transação, todas as marcações de cópia.
+     * @param duplicateOf Mapa ID da cópia → ID da música original.
+     */
+    @Transaction
+    default void applyDuplicates(Map<Integer, Integer> duplicateOf) {
+        clearDuplicates();
+        for (Map.Entry<Integer, Integer> entry : duplicateOf.entrySet()) {
+            setDuplicateOf(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * Obtém todas as músicas ordenadas por título em ordem ascendente.
+     * O ID desempata títulos iguais, na mesma ordem usada pelas páginas abaixo.
      * @return Lista de todas as músicas.
      */
-    @Query("SELECT * FROM songs ORDER BY title ASC")
+    @Query("SELECT * FROM songs ORDER BY title ASC, id ASC")
     List<Song> getAllSongs();
 
+    /**
+     * Conta as músicas da biblioteca.
+     * @param includeDuplicates Se false, as cópias idênticas não são contadas.
+     * @return Número de músicas.
+     */
+    @Query("SELECT COUNT(*) FROM songs WHERE (:includeDuplicates OR duplicate_of IS NULL)")
+    int getSongCount(boolean includeDuplicates);
+
+    /**
+     * Obtém a biblioteca para a lista principal, que também serve de fila de reprodução,
+     * em ordem de título e ID e só com as colunas usadas para exibir e tocar as músicas.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @return Músicas da biblioteca.
+     */
+    @Query("SELECT " + PLAYABLE_ROW_COLUMNS + " FROM songs s WHERE (:includeDuplicates OR s.duplicate_of IS NULL) " +
+            "ORDER BY s.title ASC, s.id ASC")
+    List<PlayableSongRow> getLibraryRows(boolean includeDuplicates);
+
+    /**
+     * Obtém a primeira página da biblioteca, em ordem de título e ID.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @param limit Tamanho da página.
+     * @return Músicas da página.
+     */
+    @Query("SELECT " + PLAYABLE_ROW_COLUMNS + " FROM songs s WHERE (:includeDuplicates OR s.duplicate_of IS NULL) " +
+            "ORDER BY s.title ASC, s.id ASC LIMIT :limit")
+    List<PlayableSongRow> getFirstSongPage(boolean includeDuplicates, int limit);
+
+    /**
+     * Obtém a página seguinte à última música de uma página já carregada (paginação por chave).
+     * A consulta percorre o índice de title a partir da chave, sem ler as linhas anteriores.
+     * @param lastTitle Título da última música da página anterior.
+     * @param lastId ID da última música da página anterior.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @param limit Tamanho da página.
+     * @return Músicas da página.
+     */
+    @Query("SELECT " + PLAYABLE_ROW_COLUMNS + " FROM songs s WHERE s.title >= :lastTitle " +
+            "AND (s.title > :lastTitle OR s.id > :lastId) " +
+            "AND (:includeDuplicates OR s.duplicate_of IS NULL) ORDER BY s.title ASC, s.id ASC LIMIT :limit")
+    List<PlayableSongRow> getSongPageAfter(String lastTitle, int lastId, boolean includeDuplicates, int limit);
+
+    /**
+     * Obtém uma página pela posição, para saltos (rolagem rápida) até páginas cuja chave
+     * ainda não é conhecida.
+     * @param offset Posição da primeira música da página.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @param limit Tamanho da página.
+     * @return Músicas da página.
+     */
+    @Query("SELECT " + PLAYABLE_ROW_COLUMNS + " FROM songs s WHERE (:includeDuplicates OR s.duplicate_of IS NULL) " +
+            "ORDER BY s.title ASC, s.id ASC LIMIT :limit OFFSET :offset")
+    List<PlayableSongRow> getSongPageAt(int offset, boolean includeDuplicates, int limit);
+
     /**
      * Obtém uma música específica pelo seu ID.
      * @param songId ID da música.
@@ -55,28 +263,97 @@ public interface SongDao {
     Song getSongById(int songId);
 
     /**
-     * Busca músicas pelo título ou artista.
-     * @param query Texto de busca.
-     * @return Lista de músicas que correspondem à consulta.
+     * Busca músicas pelo título ou artista no índice de busca textual.
+     * Os resultados vêm ordenados por relevância: primeiro os títulos que começam com o texto
+     * digitado, depois os artistas que começam com ele, e por fim as demais ocorrências.
+     * @param match Expressão MATCH do FTS (ver {@link SongFts#toMatchQuery(String)}).
+     * @param prefix Padrão LIKE de prefixo (ver {@link SongFts#toPrefixPattern(String)}).
+     * @param limit Número máximo de resultados.
+     * @return IDs das músicas encontradas, em ordem de relevância.
+     */
+    @Query("SELECT songs.id FROM songs JOIN songs_fts ON songs.id = songs_fts.docid " +
+            "WHERE songs_fts MATCH :match " +
+            "ORDER BY CASE WHEN songs.title LIKE :prefix ESCAPE '\\' THEN 0 " +
+            "WHEN songs.artist LIKE :prefix ESCAPE '\\' THEN 1 ELSE 2 END, songs.title, songs.id " +
+            "LIMIT :limit")
+    List<Integer> searchSongIds(String match, String prefix, int limit);
+
+    /**
+     * Busca músicas pelo texto digitado, tratando cada palavra como prefixo.
+     * @param query Texto digitado na busca.
+     * @param limit Número máximo de resultados.
+     * @return IDs das músicas encontradas, em ordem de relevância; vazio se o texto não tiver palavras.
+     */
+    default List<Integer> searchSongIds(String query, int limit) {
+        String match = SongFts.toMatchQuery(query);
+        if (match == null) {
+            return new ArrayList<>();
+        }
+        return searchSongIds(match, SongFts.toPrefixPattern(query), limit);
+    }
+
+    /**
+     * Busca músicas como {@link #searchSongIds(String, String, int)}, mas já devolve as colunas
+     * para exibir e tocar. Usada pela lista paginada, que não tem a biblioteca em memória para
+     * trocar os IDs por músicas.
+     * @param match Expressão MATCH do FTS.
+     * @param prefix Padrão LIKE de prefixo.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @param limit Número máximo de resultados.
+     * @return Músicas encontradas, em ordem de relevância.
+     */
+    @Query("SELECT " + PLAYABLE_ROW_COLUMNS + " FROM songs s JOIN songs_fts ON s.id = songs_fts.docid " +
+            "WHERE songs_fts MATCH :match AND (:includeDuplicates OR s.duplicate_of IS NULL) " +
+            "ORDER BY CASE WHEN s.title LIKE :prefix ESCAPE '\\' THEN 0 " +
+            "WHEN s.artist LIKE :prefix ESCAPE '\\' THEN 1 ELSE 2 END, s.title, s.id " +
+            "LIMIT :limit")
+    List<PlayableSongRow> searchPlayableRows(String match, String prefix, boolean includeDuplicates, int limit);
+
+    /**
+     * Busca músicas pelo texto digitado, tratando cada palavra como prefixo.
+     * @param query Texto digitado na busca.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @param limit Número máximo de resultados.
+     * @return Músicas encontradas, em ordem de relevância; vazio se o texto não tiver palavras.
      */
-    @Query("SELECT * FROM songs WHERE title LIKE :query OR artist LIKE :query")
-    List<Song> searchSongs(String query);
+    default List<PlayableSongRow> searchPlayableRows(String query, boolean includeDuplicates, int limit) {
+        String match = SongFts.toMatchQuery(query);
+        if (match == null) {
+            return new ArrayList<>();
+        }
+        return searchPlayableRows(match, SongFts.toPrefixPattern(query), includeDuplicates, limit);
+    }
 
     /**
-     * Obtém todas as músicas de uma playlist específica, ordenadas por posição.
+     * Obtém as entidades completas das músicas de uma playlist, ordenadas por posição.
+     * Para exibir ou tocar a playlist, prefira as projeções abaixo.
      * @param playlistId ID da playlist.
      * @return Lista de músicas associadas à playlist.
      */
-    @Query("SELECT s.* FROM songs s " +
-            "INNER JOIN playlist_songs_ref psr ON s.id = psr.songId " +
-            "WHERE psr.playlistId = :playlistId " +
-            "ORDER BY psr.position ASC")
+    @Query("SELECT s.*" + PLAYLIST_SONGS_FROM)
     List<Song> getSongsByPlaylist(int playlistId);
 
+    /**
+     * Obtém as músicas de uma playlist para tocá-la, ordenadas por posição.
+     * @param playlistId ID da playlist.
+     * @return Músicas da playlist.
+     */
+    @Query("SELECT " + PLAYABLE_ROW_COLUMNS + PLAYLIST_SONGS_FROM)
+    List<PlayableSongRow> getPlayableRowsByPlaylist(int playlistId);
+
+    /**
+     * Observa as músicas de uma playlist, ordenadas por posição. A consulta é refeita apenas
+     * quando songs ou playlist_songs_ref mudam; escritas em lote geram uma única notificação.
+     * @param playlistId ID da playlist.
+     * @return LiveData com as linhas das músicas da playlist.
+     */
+    @Query("SELECT " + SONG_ROW_COLUMNS + PLAYLIST_SONGS_FROM)
+    LiveData<List<SongRow>> observeSongsByPlaylist(int playlistId);
+
     /**
      * Obtém todas as músicas disponíveis para seleção, ordenadas por título.
-     * @return Lista de todas as músicas para seleção.
+     * @return Linhas de todas as músicas para seleção.
      */
-    @Query("SELECT * FROM songs ORDER BY title ASC")
-    List<Song> getAllSongsForSelection();
+    @Query("SELECT " + SONG_ROW_COLUMNS + " FROM songs s ORDER BY s.title ASC")
+    List<SongRow> getAllSongsForSelection();
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.mussaldynerhey.meuleitorrhey.database.relations;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Projeção de uma música com o necessário para tocá-la: as colunas de {@link SongRow}
+ * mais o caminho do arquivo e a URI usada pelo player. Usada pelas listas que também
+ * servem de fila de reprodução.
+ */
+public class PlayableSongRow extends SongRow {
+    public String path; // Caminho do arquivo da música
+
+    @ColumnInfo(name = "album_art_path")
+    public String albumArtPath; // URI "content://" da música, gravada pelo scanner
+
+    /**
+     * Obtém o caminho do arquivo da música.
+     * @return Caminho do arquivo.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Obtém a URI gravada na coluna album_art_path.
+     * @return URI da música.
+     */
+    public String getAlbumArtPath() {
+        return albumArtPath;
+    }
+}
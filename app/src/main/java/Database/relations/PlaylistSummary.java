@@ -0,0 +1,37 @@
+package com.mussaldynerhey.meuleitorrhey.database.relations;
+
+import androidx.room.Embedded;
+
+import com.mussaldynerhey.meuleitorrhey.database.entities.Playlist;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumo de uma playlist para a tela de playlists: a playlist, o número de músicas, a duração
+ * total e os IDs das primeiras músicas (para a capa), sem carregar as músicas em si.
+ */
+public class PlaylistSummary {
+    public static final int COVER_SONG_COUNT = 4; // Músicas da capa; a consulta em PlaylistDao tem uma subconsulta para cada
+    @Embedded
+    public Playlist playlist; // Playlist incorporada
+
+    public int songCount; // Número de músicas da playlist
+    public long totalDuration; // Soma das durações em milissegundos
+    public String coverSongIds; // IDs das primeiras músicas, separados por vírgula (null se vazia)
+
+    /**
+     * Obtém os IDs das primeiras músicas da playlist, na ordem da playlist.
+     * @return Lista de IDs, vazia se a playlist não tiver músicas.
+     */
+    public List<Integer> getCoverSongIds() {
+        List<Integer> ids = new ArrayList<>();
+        if (coverSongIds == null || coverSongIds.isEmpty()) {
+            return ids;
+        }
+        for (String id : coverSongIds.split(",")) {
+            ids.add(Integer.parseInt(id));
+        }
+        return ids;
+    }
+}
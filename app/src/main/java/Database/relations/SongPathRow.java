@@ -0,0 +1,26 @@
+package com.mussaldynerhey.meuleitorrhey.database.relations;
+
+/**
+ * Projeção mínima de uma música do dispositivo: ID e caminho. Lida direto do índice único
+ * de path, sem abrir as linhas da tabela, para comparar a biblioteca com o MediaStore.
+ */
+public class SongPathRow {
+    public int id; // ID da música
+    public String path; // Caminho do arquivo da música
+
+    /**
+     * Obtém o ID da música.
+     * @return ID da música.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Obtém o caminho do arquivo da música.
+     * @return Caminho do arquivo.
+     */
+    public String getPath() {
+        return path;
+    }
+}
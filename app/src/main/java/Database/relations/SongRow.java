@@ -0,0 +1,45 @@
+package com.mussaldynerhey.meuleitorrhey.database.relations;
+
+/**
+ * Projeção leve de uma música para as listas: só as colunas exibidas em cada linha.
+ * Evita ler do cursor (e alocar) caminho, capa e tags de cada música; a entidade
+ * {@link com.mussaldynerhey.meuleitorrhey.database.entities.Song} completa é carregada sob demanda.
+ */
+public class SongRow {
+    public int id; // ID da música
+    public String title; // Título da música
+    public String artist; // Artista da música
+    public long duration; // Duração da música em milissegundos
+
+    /**
+     * Obtém o ID da música.
+     * @return ID da música.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Obtém o título da música.
+     * @return Título da música.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Obtém o artista da música.
+     * @return Artista da música.
+     */
+    public String getArtist() {
+        return artist;
+    }
+
+    /**
+     * Obtém a duração da música.
+     * @return Duração em milissegundos.
+     */
+    public long getDuration() {
+        return duration;
+    }
+}
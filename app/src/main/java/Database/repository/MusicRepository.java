@@ -1,28 +1,51 @@
 package com.mussaldynerhey.meuleitorrhey.database.repository;
 
 import android.app.Application;
-import android.os.AsyncTask;
+import android.os.SystemClock;
 
+import androidx.lifecycle.LiveData;
+
+import com.mussaldynerhey.meuleitorrhey.database.DatabaseExecutors;
 import com.mussaldynerhey.meuleitorrhey.database.MusicDatabase;
+import com.mussaldynerhey.meuleitorrhey.database.QueryStats;
 import com.mussaldynerhey.meuleitorrhey.database.daos.SongDao;
 import com.mussaldynerhey.meuleitorrhey.database.daos.PlaylistDao;
 import com.mussaldynerhey.meuleitorrhey.database.daos.PlaylistSongDao;
+import com.mussaldynerhey.meuleitorrhey.database.daos.PlayStatsDao;
 import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
+import com.mussaldynerhey.meuleitorrhey.database.entities.SongMetadata;
 import com.mussaldynerhey.meuleitorrhey.database.entities.Playlist;
-import com.mussaldynerhey.meuleitorrhey.database.entities.PlaylistSong;
+import com.mussaldynerhey.meuleitorrhey.database.entities.PlayStats;
+import com.mussaldynerhey.meuleitorrhey.database.entities.PlayStatsDelta;
+import com.mussaldynerhey.meuleitorrhey.database.relations.PlayableSongRow;
+import com.mussaldynerhey.meuleitorrhey.database.relations.PlaylistSummary;
+import com.mussaldynerhey.meuleitorrhey.database.relations.SongPathRow;
+import com.mussaldynerhey.meuleitorrhey.database.relations.SongRow;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 /**
  * Repositório para gerenciar operações com músicas e playlists no banco de dados.
+ * Consultas rodam no pool de leitura e escritas na fila única de escrita de
+ * {@link DatabaseExecutors}; como as duas filas são independentes, uma leitura que depende de
+ * uma escrita deve ser encadeada no future dela. Os futures são concluídos nessas threads; quem
+ * precisa do resultado em outra thread (por exemplo, a principal) encadeia o callback com
+ * o executor desejado, como em {@code thenAcceptAsync(callback, mainExecutor)}.
+ * O tempo e o número de linhas de cada chamada são registrados em {@link QueryStats}.
  */
 public class MusicRepository {
     private SongDao songDao; // DAO para operações com músicas
     private PlaylistDao playlistDao; // DAO para operações com playlists
     private PlaylistSongDao playlistSongDao; // DAO para operações com a relação playlist-música
-    private ExecutorService executorService; // Executor para operações em background
+    private PlayStatsDao playStatsDao; // DAO para as estatísticas de reprodução
+    private final ExecutorService readExecutor = DatabaseExecutors.read(); // Pool compartilhado de leitura
+    private final ExecutorService writeExecutor = DatabaseExecutors.write(); // Fila compartilhada de escrita
 
     /**
      * Construtor do repositório.
@@ -33,198 +56,410 @@ public class MusicRepository {
         songDao = database.songDao();
         playlistDao = database.playlistDao();
         playlistSongDao = database.playlistSongDao();
-        executorService = Executors.newSingleThreadExecutor();
+        playStatsDao = database.playStatsDao();
     }
 
     /**
      * Insere uma nova música no banco de dados.
      * @param song Música a ser inserida.
+     * @return Future com o ID da música inserida, ou -1 se o caminho já existir.
      */
-    public void insertSong(Song song) {
-        executorService.execute(() -> songDao.insert(song));
+    public CompletableFuture<Long> insertSong(Song song) {
+        return write("SongDao.insert", () -> songDao.insert(song));
+    }
+
+    /**
+     * Insere várias músicas em uma única transação.
+     * @param songs Músicas a serem inseridas.
+     * @return Future com os IDs das músicas, na mesma ordem (-1 para caminhos que já existiam).
+     */
+    public CompletableFuture<List<Long>> insertSongs(List<Song> songs) {
+        return write("SongDao.insertAll", () -> songDao.insertAll(songs));
     }
 
     /**
      * Atualiza uma música existente no banco de dados.
      * @param song Música a ser atualizada.
+     * @return Future concluído quando a música for gravada.
      */
-    public void updateSong(Song song) {
-        executorService.execute(() -> songDao.update(song));
+    public CompletableFuture<Void> updateSong(Song song) {
+        return execute("SongDao.update", () -> songDao.update(song));
     }
 
     /**
      * Deleta uma música do banco de dados.
      * @param song Música a ser deletada.
+     * @return Future concluído quando a música for removida.
+     */
+    public CompletableFuture<Void> deleteSong(Song song) {
+        return execute("SongDao.delete", () -> songDao.delete(song));
+    }
+
+    /**
+     * Aplica em lote, em uma única transação, o resultado de uma sincronização com o dispositivo.
+     * @param added Músicas novas a serem inseridas.
+     * @param changed Músicas existentes a serem atualizadas.
+     * @param removed Músicas a serem removidas.
+     * @return Future concluído quando a transação terminar.
+     */
+    public CompletableFuture<Void> applySongSync(List<Song> added, List<Song> changed, List<Song> removed) {
+        return execute("SongDao.applySync", () -> songDao.applySync(added, changed, removed));
+    }
+
+    /**
+     * Obtém um lote de músicas cujas tags ainda não foram lidas.
+     * @param limit Tamanho máximo do lote.
+     * @return Future com as músicas pendentes de enriquecimento.
+     */
+    public CompletableFuture<List<Song>> getSongsPendingEnrichment(int limit) {
+        return read("SongDao.getSongsPendingEnrichment", () -> songDao.getSongsPendingEnrichment(limit));
+    }
+
+    /**
+     * Grava em lote os metadados lidos das tags.
+     * @param metadata Metadados a serem gravados.
+     * @return Future concluído quando a transação terminar.
+     */
+    public CompletableFuture<Void> updateSongMetadata(List<SongMetadata> metadata) {
+        return execute("SongDao.updateMetadata", () -> songDao.updateMetadata(metadata));
+    }
+
+    /**
+     * Substitui em lote as marcações de cópia das músicas.
+     * @param duplicateOf Mapa ID da cópia → ID da música original.
+     * @return Future concluído quando a transação terminar.
      */
-    public void deleteSong(Song song) {
-        executorService.execute(() -> songDao.delete(song));
+    public CompletableFuture<Void> applyDuplicates(Map<Integer, Integer> duplicateOf) {
+        return execute("SongDao.applyDuplicates", () -> songDao.applyDuplicates(duplicateOf));
+    }
+
+    /**
+     * Obtém as entidades completas de todas as músicas do banco de dados.
+     * Para exibir a biblioteca, prefira {@link #getLibraryRows(boolean)}.
+     * @return Future com a lista de todas as músicas.
+     */
+    public CompletableFuture<List<Song>> getAllSongs() {
+        return read("SongDao.getAllSongs", songDao::getAllSongs);
+    }
+
+    /**
+     * Obtém a biblioteca com apenas as colunas usadas para exibir e tocar as músicas.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @return Future com as músicas, em ordem de título e ID.
+     */
+    public CompletableFuture<List<PlayableSongRow>> getLibraryRows(boolean includeDuplicates) {
+        return read("SongDao.getLibraryRows", () -> songDao.getLibraryRows(includeDuplicates));
+    }
+
+    /**
+     * Obtém a entidade completa de uma música, para quando os detalhes forem necessários.
+     * @param songId ID da música.
+     * @return Future com a música, ou null se ela não existir.
+     */
+    public CompletableFuture<Song> getSongById(int songId) {
+        return read("SongDao.getSongById", () -> songDao.getSongById(songId));
+    }
+
+    /**
+     * Obtém o ID e o caminho de todas as músicas do dispositivo, para encontrar as que
+     * saíram do MediaStore sem carregar as entidades.
+     * @return Future com o ID e o caminho de cada música com arquivo.
+     */
+    public CompletableFuture<List<SongPathRow>> getDeviceSongPaths() {
+        return read("SongDao.getDeviceSongPaths", songDao::getDeviceSongPaths);
+    }
+
+    /**
+     * Obtém as músicas com os caminhos informados, para comparar um bloco do scan com o banco.
+     * @param paths Caminhos dos arquivos (no máximo um bloco do scan).
+     * @return Future com as músicas encontradas.
+     */
+    public CompletableFuture<List<Song>> getSongsByPaths(List<String> paths) {
+        return read("SongDao.getSongsByPaths", () -> songDao.getSongsByPaths(paths));
+    }
+
+    /**
+     * Obtém todas as músicas para seleção, ordenadas por título.
+     * @return Future com as linhas das músicas.
+     */
+    public CompletableFuture<List<SongRow>> getAllSongsForSelection() {
+        return read("SongDao.getAllSongsForSelection", songDao::getAllSongsForSelection);
+    }
+
+    /**
+     * Conta as músicas da biblioteca.
+     * @param includeDuplicates Se false, as cópias idênticas não são contadas.
+     * @return Future com o número de músicas.
+     */
+    public CompletableFuture<Integer> getSongCount(boolean includeDuplicates) {
+        return read("SongDao.getSongCount", () -> songDao.getSongCount(includeDuplicates));
+    }
+
+    /**
+     * Obtém uma página da biblioteca, em ordem de título e ID.
+     * @param lastTitle Título da última música da página anterior, ou null para usar a posição.
+     * @param lastId ID da última música da página anterior.
+     * @param offset Posição da primeira música, usada quando a chave da página anterior não é conhecida.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @param limit Tamanho da página.
+     * @return Future com as músicas da página.
+     */
+    public CompletableFuture<List<PlayableSongRow>> getSongPage(String lastTitle, int lastId, int offset,
+                                                                boolean includeDuplicates, int limit) {
+        return read("SongDao.getSongPage", () -> {
+            if (lastTitle != null) {
+                return songDao.getSongPageAfter(lastTitle, lastId, includeDuplicates, limit);
+            }
+            return offset == 0
+                    ? songDao.getFirstSongPage(includeDuplicates, limit)
+                    : songDao.getSongPageAt(offset, includeDuplicates, limit);
+        });
     }
 
     /**
-     * Obtém todas as músicas do banco de dados.
-     * @return Lista de todas as músicas.
+     * Busca músicas pelo título ou artista, tratando cada palavra digitada como prefixo.
+     * @param query Texto digitado na busca.
+     * @param limit Número máximo de resultados.
+     * @return Future com os IDs das músicas encontradas, em ordem de relevância.
      */
-    public List<Song> getAllSongs() {
-        try {
-            return new GetAllSongsAsync(songDao).execute().get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+    public CompletableFuture<List<Integer>> searchSongIds(String query, int limit) {
+        return read("SongDao.searchSongIds", () -> songDao.searchSongIds(query, limit));
     }
 
     /**
-     * Obtém todas as músicas de uma playlist específica.
+     * Busca músicas pelo título ou artista e devolve as linhas para exibir e tocar.
+     * @param query Texto digitado na busca.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @param limit Número máximo de resultados.
+     * @return Future com as músicas encontradas, em ordem de relevância.
+     */
+    public CompletableFuture<List<PlayableSongRow>> searchPlayableRows(String query, boolean includeDuplicates, int limit) {
+        return read("SongDao.searchPlayableRows", () -> songDao.searchPlayableRows(query, includeDuplicates, limit));
+    }
+
+    /**
+     * Obtém as entidades completas das músicas de uma playlist específica.
+     * @param playlistId ID da playlist.
+     * @return Future com a lista de músicas da playlist.
+     */
+    public CompletableFuture<List<Song>> getSongsByPlaylist(int playlistId) {
+        return read("SongDao.getSongsByPlaylist", () -> songDao.getSongsByPlaylist(playlistId));
+    }
+
+    /**
+     * Obtém as músicas de uma playlist com apenas as colunas usadas para exibir e tocá-las.
+     * @param playlistId ID da playlist.
+     * @return Future com as músicas da playlist, na ordem da playlist.
+     */
+    public CompletableFuture<List<PlayableSongRow>> getPlayableRowsByPlaylist(int playlistId) {
+        return read("SongDao.getPlayableRowsByPlaylist", () -> songDao.getPlayableRowsByPlaylist(playlistId));
+    }
+
+    /**
+     * Observa as músicas de uma playlist. A consulta roda no pool de leitura sempre que
+     * songs ou playlist_songs_ref mudam, enquanto houver um observador ativo.
      * @param playlistId ID da playlist.
-     * @return Lista de músicas da playlist.
+     * @return LiveData com as linhas das músicas da playlist, na ordem da playlist.
      */
-    public List<Song> getSongsByPlaylist(int playlistId) {
-        try {
-            return new GetSongsByPlaylistAsync(songDao).execute(playlistId).get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+    public LiveData<List<SongRow>> observeSongsByPlaylist(int playlistId) {
+        return songDao.observeSongsByPlaylist(playlistId);
     }
 
     /**
      * Insere uma nova playlist no banco de dados.
      * @param playlist Playlist a ser inserida.
-     * @return ID da playlist inserida.
+     * @return Future com o ID da playlist inserida.
      */
-    public long insertPlaylist(Playlist playlist) {
-        try {
-            return new InsertPlaylistAsync(playlistDao).execute(playlist).get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return -1;
-        }
+    public CompletableFuture<Long> insertPlaylist(Playlist playlist) {
+        return write("PlaylistDao.insert", () -> playlistDao.insert(playlist));
+    }
+
+    /**
+     * Cria uma playlist, se ainda não houver outra com o mesmo nome.
+     * A verificação e a inserção rodam juntas na fila de escrita, então dois pedidos
+     * simultâneos com o mesmo nome não criam duas playlists.
+     * @param name Nome da playlist.
+     * @return Future com o ID da playlist criada, ou -1 se o nome já existir.
+     */
+    public CompletableFuture<Long> createPlaylist(String name) {
+        return write("PlaylistDao.createPlaylist", () -> {
+            if (playlistDao.countPlaylistsWithName(name) > 0) {
+                return -1L;
+            }
+            return playlistDao.insert(new Playlist(name));
+        });
     }
 
     /**
      * Atualiza uma playlist existente no banco de dados.
      * @param playlist Playlist a ser atualizada.
+     * @return Future concluído quando a playlist for gravada.
      */
-    public void updatePlaylist(Playlist playlist) {
-        executorService.execute(() -> playlistDao.update(playlist));
+    public CompletableFuture<Void> updatePlaylist(Playlist playlist) {
+        return execute("PlaylistDao.update", () -> playlistDao.update(playlist));
     }
 
     /**
      * Deleta uma playlist do banco de dados.
      * @param playlist Playlist a ser deletada.
+     * @return Future concluído quando a playlist for removida.
      */
-    public void deletePlaylist(Playlist playlist) {
-        executorService.execute(() -> playlistDao.delete(playlist));
+    public CompletableFuture<Void> deletePlaylist(Playlist playlist) {
+        return execute("PlaylistDao.delete", () -> playlistDao.delete(playlist));
     }
 
     /**
      * Obtém todas as playlists do banco de dados.
-     * @return Lista de todas as playlists.
+     * @return Future com a lista de todas as playlists.
+     */
+    public CompletableFuture<List<Playlist>> getAllPlaylists() {
+        return read("PlaylistDao.getAllPlaylists", playlistDao::getAllPlaylists);
+    }
+
+    /**
+     * Obtém o resumo de todas as playlists (número de músicas, duração e capas).
+     * @return Future com os resumos das playlists.
+     */
+    public CompletableFuture<List<PlaylistSummary>> getPlaylistSummaries() {
+        return read("PlaylistDao.getPlaylistSummaries", playlistDao::getPlaylistSummaries);
+    }
+
+    /**
+     * Observa o resumo de todas as playlists, refeito sempre que playlists ou suas músicas mudam.
+     * @return LiveData com os resumos das playlists.
      */
-    public List<Playlist> getAllPlaylists() {
-        try {
-            return new GetAllPlaylistsAsync(playlistDao).execute().get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+    public LiveData<List<PlaylistSummary>> observePlaylistSummaries() {
+        return playlistDao.observePlaylistSummaries();
     }
 
     /**
      * Adiciona uma música a uma playlist.
      * @param playlistId ID da playlist.
      * @param songId ID da música.
+     * @return Future com o número de músicas adicionadas (0 se ela já estava na playlist).
      */
-    public void addSongToPlaylist(int playlistId, int songId) {
-        executorService.execute(() -> {
-            int position = playlistSongDao.getSongCountInPlaylist(playlistId);
-            PlaylistSong playlistSong = new PlaylistSong(playlistId, songId, position);
-            playlistSongDao.addSongToPlaylist(playlistSong);
-        });
+    public CompletableFuture<Integer> addSongToPlaylist(int playlistId, int songId) {
+        return addSongsToPlaylist(playlistId, Collections.singletonList(songId));
+    }
+
+    /**
+     * Adiciona várias músicas ao fim de uma playlist em uma única transação.
+     * @param playlistId ID da playlist.
+     * @param songIds IDs das músicas, na ordem em que devem entrar.
+     * @return Future com o número de músicas adicionadas (as que já estavam na playlist são ignoradas).
+     */
+    public CompletableFuture<Integer> addSongsToPlaylist(int playlistId, List<Integer> songIds) {
+        return write("PlaylistSongDao.addSongsToPlaylist",
+                () -> playlistSongDao.addSongsToPlaylist(playlistId, songIds));
     }
 
     /**
      * Remove uma música de uma playlist.
      * @param playlistId ID da playlist.
      * @param songId ID da música.
+     * @return Future concluído quando a música for removida da playlist.
      */
-    public void removeSongFromPlaylist(int playlistId, int songId) {
-        executorService.execute(() -> {
-            playlistSongDao.removeSongFromPlaylist(playlistId, songId);
-        });
+    public CompletableFuture<Void> removeSongFromPlaylist(int playlistId, int songId) {
+        return execute("PlaylistSongDao.removeSongFromPlaylist",
+                () -> playlistSongDao.removeSongFromPlaylist(playlistId, songId));
     }
 
     /**
-     * Remove todas as músicas de uma playlist.
+     * Move uma música da playlist para entre duas vizinhas.
      * @param playlistId ID da playlist.
+     * @param songId ID da música movida.
+     * @param previousSongId ID da música que fica antes dela, ou null se ela passar a ser a primeira.
+     * @param nextSongId ID da música que fica depois dela, ou null se ela passar a ser a última.
+     * @return Future concluído quando a nova posição for gravada.
      */
-    public void clearPlaylist(int playlistId) {
-        executorService.execute(() -> {
-            playlistSongDao.deleteAllSongsFromPlaylist(playlistId);
-        });
+    public CompletableFuture<Void> moveSongInPlaylist(int playlistId, int songId, Integer previousSongId, Integer nextSongId) {
+        return execute("PlaylistSongDao.moveSongBetween",
+                () -> playlistSongDao.moveSongBetween(playlistId, songId, previousSongId, nextSongId));
     }
 
     /**
-     * AsyncTask para obter todas as músicas do banco de dados.
+     * Remove todas as músicas de uma playlist.
+     * @param playlistId ID da playlist.
+     * @return Future concluído quando a playlist for esvaziada.
      */
-    private static class GetAllSongsAsync extends AsyncTask<Void, Void, List<Song>> {
-        private SongDao songDao;
-
-        GetAllSongsAsync(SongDao songDao) {
-            this.songDao = songDao;
-        }
-
-        @Override
-        protected List<Song> doInBackground(Void... voids) {
-            return songDao.getAllSongs();
-        }
+    public CompletableFuture<Void> clearPlaylist(int playlistId) {
+        return execute("PlaylistSongDao.deleteAllSongsFromPlaylist",
+                () -> playlistSongDao.deleteAllSongsFromPlaylist(playlistId));
     }
 
     /**
-     * AsyncTask para obter todas as músicas de uma playlist específica.
+     * Soma às estatísticas de reprodução os incrementos de um lote do diário, em uma única transação.
+     * @param deltas Incrementos por música.
+     * @return Future concluído quando a transação terminar.
      */
-    private static class GetSongsByPlaylistAsync extends AsyncTask<Integer, Void, List<Song>> {
-        private SongDao songDao;
-
-        GetSongsByPlaylistAsync(SongDao songDao) {
-            this.songDao = songDao;
-        }
-
-        @Override
-        protected List<Song> doInBackground(Integer... playlistIds) {
-            return songDao.getSongsByPlaylist(playlistIds[0]);
-        }
+    public CompletableFuture<Void> applyPlayStats(Collection<PlayStatsDelta> deltas) {
+        return execute("PlayStatsDao.applyDeltas", () -> playStatsDao.applyDeltas(deltas));
     }
 
     /**
-     * AsyncTask para obter todas as playlists do banco de dados.
+     * Obtém as estatísticas de todas as músicas que já foram tocadas ou puladas.
+     * @return Future com a lista de estatísticas.
      */
-    private static class GetAllPlaylistsAsync extends AsyncTask<Void, Void, List<Playlist>> {
-        private PlaylistDao playlistDao;
+    public CompletableFuture<List<PlayStats>> getAllPlayStats() {
+        return read("PlayStatsDao.getAllStats", playStatsDao::getAllStats);
+    }
 
-        GetAllPlaylistsAsync(PlaylistDao playlistDao) {
-            this.playlistDao = playlistDao;
-        }
+    /**
+     * Obtém as músicas mais tocadas até o fim.
+     * @param limit Número máximo de músicas.
+     * @return Future com os IDs das músicas, da mais para a menos tocada.
+     */
+    public CompletableFuture<List<Integer>> getMostPlayedSongIds(int limit) {
+        return read("PlayStatsDao.getMostPlayedSongIds", () -> playStatsDao.getMostPlayedSongIds(limit));
+    }
 
-        @Override
-        protected List<Playlist> doInBackground(Void... voids) {
-            return playlistDao.getAllPlaylists();
-        }
+    /**
+     * Obtém as músicas tocadas mais recentemente.
+     * @param limit Número máximo de músicas.
+     * @return Future com os IDs das músicas, da mais para a menos recente.
+     */
+    public CompletableFuture<List<Integer>> getRecentlyPlayedSongIds(int limit) {
+        return read("PlayStatsDao.getRecentlyPlayedSongIds", () -> playStatsDao.getRecentlyPlayedSongIds(limit));
     }
 
     /**
-     * AsyncTask para inserir uma nova playlist no banco de dados.
+     * Executa uma consulta no pool de leitura, medindo seu tempo em {@link QueryStats}.
+     * A thread que pediu e o momento do pedido são capturados aqui, antes de enfileirar,
+     * para que a espera na fila e os pedidos da thread principal apareçam no dump.
+     * @param name Nome da consulta no dump.
+     * @param query Consulta a ser executada.
+     * @return Future com o resultado da consulta.
      */
-    private static class InsertPlaylistAsync extends AsyncTask<Playlist, Void, Long> {
-        private PlaylistDao playlistDao;
+    private <T> CompletableFuture<T> read(String name, Supplier<T> query) {
+        boolean fromMainThread = QueryStats.isMainThread();
+        long enqueuedAt = SystemClock.elapsedRealtimeNanos();
+        return CompletableFuture.supplyAsync(
+                () -> QueryStats.time(name, fromMainThread, enqueuedAt, query), readExecutor);
+    }
 
-        InsertPlaylistAsync(PlaylistDao playlistDao) {
-            this.playlistDao = playlistDao;
-        }
+    /**
+     * Executa uma escrita com resultado na fila de escrita, medindo seu tempo em {@link QueryStats}.
+     * @param name Nome da escrita no dump.
+     * @param update Escrita a ser executada.
+     * @return Future com o resultado da escrita.
+     */
+    private <T> CompletableFuture<T> write(String name, Supplier<T> update) {
+        boolean fromMainThread = QueryStats.isMainThread();
+        long enqueuedAt = SystemClock.elapsedRealtimeNanos();
+        return CompletableFuture.supplyAsync(
+                () -> QueryStats.time(name, fromMainThread, enqueuedAt, update), writeExecutor);
+    }
 
-        @Override
-        protected Long doInBackground(Playlist... playlists) {
-            return playlistDao.insert(playlists[0]);
-        }
+    /**
+     * Executa uma escrita sem resultado na fila de escrita, medindo seu tempo em {@link QueryStats}.
+     * @param name Nome da escrita no dump.
+     * @param update Escrita a ser executada.
+     * @return Future concluído quando a escrita terminar.
+     */
+    private CompletableFuture<Void> execute(String name, Runnable update) {
+        boolean fromMainThread = QueryStats.isMainThread();
+        long enqueuedAt = SystemClock.elapsedRealtimeNanos();
+        return CompletableFuture.runAsync(
+                () -> QueryStats.time(name, fromMainThread, enqueuedAt, update), writeExecutor);
     }
-}
\ No newline at end of file
+}
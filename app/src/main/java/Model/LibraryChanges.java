@@ -0,0 +1,125 @@
+package Model;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conjunto de mudanças na biblioteca de músicas produzido por uma sincronização incremental.
+ * As músicas são identificadas pelo caminho do arquivo.
+ */
+public class LibraryChanges {
+    private final List<Musica> added; // Músicas novas
+    private final List<Musica> changed; // Músicas com metadados alterados
+    private final List<Musica> removed; // Músicas que não existem mais
+
+    /**
+     * Interface para receber as posições afetadas ao aplicar as mudanças em uma lista.
+     */
+    public interface Callback {
+        void onChanged(int position);
+
+        void onRemoved(int position);
+
+        void onInserted(int position, int count);
+    }
+
+    /**
+     * Construtor das mudanças.
+     * @param added Músicas novas.
+     * @param changed Músicas com metadados alterados.
+     * @param removed Músicas que não existem mais.
+     */
+    public LibraryChanges(List<Musica> added, List<Musica> changed, List<Musica> removed) {
+        this.added = added;
+        this.changed = changed;
+        this.removed = removed;
+    }
+
+    /**
+     * Obtém as músicas novas.
+     * @return Lista de músicas novas.
+     */
+    public List<Musica> getAdded() {
+        return added;
+    }
+
+    /**
+     * Obtém as músicas alteradas.
+     * @return Lista de músicas alteradas.
+     */
+    public List<Musica> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Obtém as músicas removidas.
+     * @return Lista de músicas removidas.
+     */
+    public List<Musica> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Aplica as mudanças em uma lista, no lugar: alteradas são substituídas na mesma posição,
+     * removidas saem da lista e, se solicitado, as novas são adicionadas ao final.
+     * @param list Lista a ser alterada.
+     * @param appendAdded Indica se as músicas novas devem ser adicionadas (false para playlists).
+     * @param callback Callback notificado com cada posição afetada, ou null.
+     */
+    public void applyTo(List<Musica> list, boolean appendAdded, Callback callback) {
+        Map<String, Musica> changedByPath = new HashMap<>();
+        for (Musica musica : changed) {
+            changedByPath.put(musica.getFilePath(), musica);
+        }
+        Set<String> removedPaths = new HashSet<>();
+        for (Musica musica : removed) {
+            removedPaths.add(musica.getFilePath());
+        }
+
+        if (!changedByPath.isEmpty() || !removedPaths.isEmpty()) {
+            // Percorre de trás para frente, para que cada posição notificada valha no momento da
+            // notificação; as removidas são retiradas de uma vez no fim, em O(n)
+            boolean[] removedAt = null;
+            for (int i = list.size() - 1; i >= 0; i--) {
+                String path = list.get(i).getFilePath();
+                if (path == null) {
+                    continue;
+                }
+                if (removedPaths.contains(path)) {
+                    if (removedAt == null) removedAt = new boolean[list.size()];
+                    removedAt[i] = true;
+                    if (callback != null) callback.onRemoved(i);
+                } else if (changedByPath.containsKey(path)) {
+                    list.set(i, changedByPath.get(path));
+                    if (callback != null) callback.onChanged(i);
+                }
+            }
+            if (removedAt != null) {
+                int kept = 0;
+                for (int i = 0; i < removedAt.length; i++) {
+                    if (!removedAt[i]) {
+                        list.set(kept++, list.get(i));
+                    }
+                }
+                list.subList(kept, removedAt.length).clear();
+            }
+        }
+
+        if (appendAdded && !added.isEmpty()) {
+            int start = list.size();
+            list.addAll(added);
+            if (callback != null) callback.onInserted(start, added.size());
+        }
+    }
+
+    /**
+     * Verifica se não há mudanças.
+     * @return True se as três listas estiverem vazias.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+}
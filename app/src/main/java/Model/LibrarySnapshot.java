@@ -0,0 +1,271 @@
+package Model;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+ * Cópia binária e compacta da biblioteca exibida, usada para mostrar a lista ao abrir o app
+ * antes mesmo de o Room ser aberto. O arquivo é lido com {@link FileChannel#map} e tem:
+ * um cabeçalho com versão, contagens e CRC32 do conteúdo; um registro de largura fixa por música
+ * (ID, duração e índices dos textos); e uma tabela de textos sem repetições (artistas e caminhos
+ * se repetem muito). Se o arquivo faltar, for de outra versão, estiver corrompido ou tiver sido
+ * gravado com outro modo de cópias, a leitura devolve null e a lista vem do banco.
+ */
+public class LibrarySnapshot {
+    private static final String TAG = "LibrarySnapshot";
+    private static final String FILE_NAME = "library.snapshot"; // Arquivo da cópia da biblioteca
+    private static final String TEMP_FILE_NAME = "library.snapshot.tmp"; // Arquivo gravado antes de substituir a cópia
+    private static final int MAGIC = 0x4D4C4942; // "MLIB"
+    private static final int VERSION = 1; // Versão do formato; outras versões são ignoradas
+    private static final int FLAG_HIDE_DUPLICATES = 1; // A cópia foi gravada com as cópias idênticas ocultas
+    private static final int HEADER_SIZE = 32; // Magic, versão, flags, músicas, textos, bytes dos textos, CRC e reservado
+    private static final int RECORD_SIZE = 4 + 8 + 4 * 4; // ID, duração e índices de título, artista, caminho e URI
+    private static final int NO_STRING = -1; // Índice de texto nulo
+    private static final int CRC_CHUNK = 64 * 1024; // Bytes copiados por vez ao calcular o CRC
+    private static final long SAVE_DELAY_MS = 2000; // Espera antes de gravar, para juntar alterações seguidas
+
+    private static final ScheduledExecutorService saveExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, TAG)); // Thread das gravações
+    private static final AtomicReference<PendingSave> pendingSave = new AtomicReference<>(); // Gravação ainda não feita
+
+    /**
+     * Lista aguardando para ser gravada.
+     */
+    private static class PendingSave {
+        final File directory; // Pasta onde a cópia é gravada
+        final List<Musica> songs; // Músicas a gravar
+        final boolean hideDuplicates; // Modo de cópias da lista
+
+        PendingSave(File directory, List<Musica> songs, boolean hideDuplicates) {
+            this.directory = directory;
+            this.songs = songs;
+            this.hideDuplicates = hideDuplicates;
+        }
+    }
+
+    private LibrarySnapshot() {
+    }
+
+    /**
+     * Lê a cópia da biblioteca. O arquivo é mapeado em memória e cada texto repetido é
+     * decodificado uma única vez, mas o CRC cobre o arquivo inteiro e todas as músicas são
+     * montadas: deve ser chamado fora da thread principal.
+     * @param context Contexto da aplicação.
+     * @param hideDuplicates Modo de cópias atual; uma cópia gravada em outro modo é ignorada.
+     * @return Músicas da cópia, ou null se ela não existir ou não for válida.
+     */
+    public static List<Musica> read(Context context, boolean hideDuplicates) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (!file.exists()) {
+            return null;
+        }
+        long start = SystemClock.elapsedRealtime();
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                Log.d(TAG, "Cópia de outra versão - ignorada");
+                return null;
+            }
+            boolean snapshotHidesDuplicates = (buffer.getInt(8) & FLAG_HIDE_DUPLICATES) != 0;
+            if (snapshotHidesDuplicates != hideDuplicates) {
+                return null;
+            }
+            int songCount = buffer.getInt(12);
+            int stringCount = buffer.getInt(16);
+            int blobLength = buffer.getInt(20);
+            int crc = buffer.getInt(24);
+            long recordsOffset = HEADER_SIZE;
+            long offsetsOffset = recordsOffset + (long) songCount * RECORD_SIZE;
+            long blobOffset = offsetsOffset + (stringCount + 1L) * 4;
+            if (songCount < 0 || stringCount < 0 || blobLength < 0 || blobOffset + blobLength != size) {
+                Log.w(TAG, "Cópia com tamanho inválido - ignorada");
+                return null;
+            }
+            if (crc32(buffer, HEADER_SIZE, (int) size) != crc) {
+                Log.w(TAG, "Cópia corrompida - ignorada");
+                return null;
+            }
+
+            byte[] blob = new byte[blobLength];
+            buffer.position((int) blobOffset);
+            buffer.get(blob);
+            String[] strings = new String[stringCount]; // Decodificados sob demanda
+            List<Musica> songs = new ArrayList<>(songCount);
+            for (int i = 0; i < songCount; i++) {
+                int record = (int) recordsOffset + i * RECORD_SIZE;
+                Musica musica = new Musica(
+                        string(buffer, (int) offsetsOffset, blob, strings, buffer.getInt(record + 12)),
+                        string(buffer, (int) offsetsOffset, blob, strings, buffer.getInt(record + 16)),
+                        string(buffer, (int) offsetsOffset, blob, strings, buffer.getInt(record + 20)),
+                        buffer.getLong(record + 4),
+                        string(buffer, (int) offsetsOffset, blob, strings, buffer.getInt(record + 24))
+                );
+                musica.setSongId(buffer.getInt(record));
+                songs.add(musica);
+            }
+            Log.d(TAG, "Cópia lida - Músicas: " + songCount + ", Textos: " + stringCount +
+                    ", Tempo: " + (SystemClock.elapsedRealtime() - start) + " ms");
+            return songs;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Não foi possível ler a cópia da biblioteca: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Agenda a gravação da lista como nova cópia da biblioteca. Gravações pedidas em sequência
+     * (como a cada bloco de um scan) são reunidas e só a última lista é gravada.
+     * Listas com músicas que não vieram do banco não são gravadas.
+     * @param context Contexto da aplicação.
+     * @param songs Músicas da biblioteca; uma cópia da lista é guardada.
+     * @param hideDuplicates Modo de cópias em que a lista foi carregada.
+     */
+    public static void save(Context context, List<Musica> songs, boolean hideDuplicates) {
+        for (Musica musica : songs) {
+            if (musica.getSongId() <= 0) {
+                return;
+            }
+        }
+        PendingSave save = new PendingSave(context.getFilesDir(), new ArrayList<>(songs), hideDuplicates);
+        if (pendingSave.getAndSet(save) == null) {
+            saveExecutor.schedule(() -> write(pendingSave.getAndSet(null)), SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Grava a cópia em um arquivo temporário e o renomeia sobre a cópia anterior,
+     * para que uma gravação interrompida nunca deixe um arquivo pela metade.
+     * @param save Lista a ser gravada.
+     */
+    private static void write(PendingSave save) {
+        if (save == null) {
+            return;
+        }
+        Map<String, Integer> indexes = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] refs = new int[save.songs.size() * 4];
+        int blobLength = 0;
+        for (int i = 0; i < save.songs.size(); i++) {
+            Musica musica = save.songs.get(i);
+            String[] values = {musica.getTitulo(), musica.getArtista(), musica.getFilePath(), musica.getContentUri()};
+            for (int j = 0; j < values.length; j++) {
+                if (values[j] == null) {
+                    refs[i * 4 + j] = NO_STRING;
+                    continue;
+                }
+                Integer index = indexes.get(values[j]);
+                if (index == null) {
+                    index = strings.size();
+                    indexes.put(values[j], index);
+                    byte[] bytes = values[j].getBytes(StandardCharsets.UTF_8);
+                    strings.add(bytes);
+                    blobLength += bytes.length;
+                }
+                refs[i * 4 + j] = index;
+            }
+        }
+
+        int size = HEADER_SIZE + save.songs.size() * RECORD_SIZE + (strings.size() + 1) * 4 + blobLength;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.position(HEADER_SIZE);
+        for (int i = 0; i < save.songs.size(); i++) {
+            Musica musica = save.songs.get(i);
+            buffer.putInt(musica.getSongId());
+            buffer.putLong(musica.getDuracao());
+            for (int j = 0; j < 4; j++) {
+                buffer.putInt(refs[i * 4 + j]);
+            }
+        }
+        int offset = 0;
+        for (byte[] bytes : strings) {
+            buffer.putInt(offset);
+            offset += bytes.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] bytes : strings) {
+            buffer.put(bytes);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, size - HEADER_SIZE);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, save.hideDuplicates ? FLAG_HIDE_DUPLICATES : 0);
+        buffer.putInt(12, save.songs.size());
+        buffer.putInt(16, strings.size());
+        buffer.putInt(20, blobLength);
+        buffer.putInt(24, (int) crc.getValue());
+
+        File temp = new File(save.directory, TEMP_FILE_NAME);
+        try (FileOutputStream output = new FileOutputStream(temp)) {
+            output.write(buffer.array());
+            output.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Erro ao gravar a cópia da biblioteca", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(new File(save.directory, FILE_NAME))) {
+            Log.e(TAG, "Não foi possível substituir a cópia da biblioteca");
+            temp.delete();
+            return;
+        }
+        Log.d(TAG, "Cópia gravada - Músicas: " + save.songs.size() + ", Textos: " + strings.size() +
+                ", Bytes: " + size);
+    }
+
+    /**
+     * Obtém um texto da tabela, decodificando-o na primeira vez em que é usado.
+     */
+    private static String string(ByteBuffer buffer, int offsetsOffset, byte[] blob, String[] strings, int index) {
+        if (index == NO_STRING) {
+            return null;
+        }
+        String value = strings[index];
+        if (value == null) {
+            int start = buffer.getInt(offsetsOffset + index * 4);
+            int end = buffer.getInt(offsetsOffset + (index + 1) * 4);
+            value = new String(blob, start, end - start, StandardCharsets.UTF_8);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Calcula o CRC32 de um trecho do arquivo mapeado, copiando-o em blocos.
+     */
+    private static int crc32(ByteBuffer buffer, int from, int to) {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[Math.min(CRC_CHUNK, Math.max(0, to - from))];
+        buffer.position(from);
+        while (buffer.position() < to) {
+            int length = Math.min(chunk.length, to - buffer.position());
+            buffer.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+        return (int) crc.getValue();
+    }
+}
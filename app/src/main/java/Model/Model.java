@@ -2,32 +2,55 @@ package Model;
 
 import android.app.Application;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
 
+import androidx.core.content.ContextCompat;
+
+import com.mussaldynerhey.meuleitorrhey.database.DatabaseExecutors;
+import com.mussaldynerhey.meuleitorrhey.database.entities.Playlist;
 import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
+import com.mussaldynerhey.meuleitorrhey.database.relations.PlayableSongRow;
 import com.mussaldynerhey.meuleitorrhey.database.repository.MusicRepository;
+import com.mussaldynerhey.meuleitorrhey.utils.DuplicateDetector;
+import com.mussaldynerhey.meuleitorrhey.utils.MediaStoreObserver;
+import com.mussaldynerhey.meuleitorrhey.utils.MetadataEnricher;
 import com.mussaldynerhey.meuleitorrhey.utils.MusicScanner;
+import com.mussaldynerhey.meuleitorrhey.utils.ScanSession;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Classe que gerencia a lógica de negócios para músicas e playlists.
  */
 public class Model {
-    private List<Musica> listaMusica; // Lista de músicas atual
-    private List<Musica> listaOriginal; // Lista original de músicas (para restauração após shuffle)
+    private PlaybackQueue listaMusica; // Fila de reprodução atual, imutável e compartilhada sem cópia
+    private PlaybackQueue listaOriginal; // Fila original (para restauração após shuffle)
     private int indiceActual = 0; // Índice da música atual
     private boolean isShuffleOn = false; // Estado do modo shuffle
+    private boolean isSmartShuffleOn = false; // Indica se o shuffle é ponderado pelas estatísticas de reprodução
     private boolean isRepeatOn = false; // Estado do modo repeat
-    private Random random = new Random(); // Gerador de números aleatórios
     private Musica musicaAtual; // Música atualmente selecionada
     private Musica musicaAtualShuffle; // Música atual no modo shuffle
     private MusicRepository musicRepository; // Repositório para acesso ao banco de dados
     private Context context; // Contexto da aplicação
     private int currentPlaylistId = -1; // ID da playlist atual
+    private MediaStoreObserver libraryObserver; // Observer que mantém a biblioteca atualizada
+    private SharedPreferences preferences; // Preferências de exibição da biblioteca
+    private Executor mainExecutor; // Executor da thread principal, onde o estado do Model é alterado
     private static final String TAG = "Model";
+    private static final String PREFS_NAME = "library"; // Arquivo de preferências da biblioteca
+    private static final String KEY_HIDE_DUPLICATES = "hide_duplicates"; // Modo que oculta cópias idênticas
+
+    /**
+     * Interface para receber as mudanças da biblioteca detectadas pelo observer do MediaStore.
+     */
+    public interface OnLibraryChangedListener {
+        void onLibraryChanged(LibraryChanges changes);
+    }
 
     /**
      * Construtor do Model.
@@ -35,11 +58,13 @@ public class Model {
      * @param context Contexto da aplicação.
      */
     public Model(List<Musica> listaMusica, Context context) {
-        this.listaMusica = new ArrayList<>(listaMusica);
-        this.listaOriginal = new ArrayList<>(listaMusica);
+        this.listaMusica = PlaybackQueue.of(listaMusica);
+        this.listaOriginal = this.listaMusica;
         this.context = context;
         if (context != null) {
             musicRepository = new MusicRepository((Application) context.getApplicationContext());
+            preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            mainExecutor = ContextCompat.getMainExecutor(context);
             initializeDatabase();
         }
         Log.d(TAG, "Model inicializado com " + listaMusica.size() + " músicas");
@@ -47,103 +72,350 @@ public class Model {
 
     /**
      * Inicializa o banco de dados com músicas iniciais, se necessário.
+     * Tudo roda nas threads do repositório, sem bloquear quem criou o Model. A playlist inicial
+     * usa os IDs devolvidos pela inserção, já que uma leitura no pool de leitura não esperaria
+     * a escrita terminar.
      */
     private void initializeDatabase() {
-        new Thread(() -> {
-            List<Song> existingSongs = musicRepository.getAllSongs();
-            if (existingSongs == null || existingSongs.isEmpty()) {
-                for (Musica musica : listaMusica) {
-                    Song song = new Song(
-                            musica.getTitulo(),
-                            musica.getArtista(),
-                            "", // Path inicial vazio
-                            musica.getNumeroFaixa(), // resourceId
-                            musica.getDuracao(),
-                            null // Caminho da capa do álbum (null para músicas internas)
-                    );
-                    musicRepository.insertSong(song);
-                }
-
-                long playlistId = musicRepository.insertPlaylist(
-                        new com.mussaldynerhey.meuleitorrhey.database.entities.Playlist("Minha Playlist")
-                );
-                currentPlaylistId = (int) playlistId;
-
-                List<Song> songs = musicRepository.getAllSongs();
-                for (Song song : songs) {
-                    musicRepository.addSongToPlaylist(currentPlaylistId, song.getId());
-                }
+        musicRepository.getSongCount(true).thenCompose(existingCount -> {
+            if (existingCount > 0) {
+                return CompletableFuture.<Integer>completedFuture(null);
+            }
+            List<Song> songs = new ArrayList<>(listaMusica.size());
+            for (Musica musica : listaMusica) {
+                songs.add(new Song(
+                        musica.getTitulo(),
+                        musica.getArtista(),
+                        null, // Sem caminho: músicas internas não entram no índice único de path
+                        musica.getNumeroFaixa(), // resourceId
+                        musica.getDuracao(),
+                        null // Caminho da capa do álbum (null para músicas internas)
+                ));
             }
-        }).start();
+            return musicRepository.insertSongs(songs).thenCompose(ids ->
+                    musicRepository.insertPlaylist(new Playlist("Minha Playlist")).thenCompose(playlistId -> {
+                        currentPlaylistId = playlistId.intValue();
+                        List<Integer> songIds = new ArrayList<>(ids.size());
+                        for (Long id : ids) {
+                            if (id > 0) {
+                                songIds.add(id.intValue());
+                            }
+                        }
+                        return musicRepository.addSongsToPlaylist(currentPlaylistId, songIds);
+                    }));
+        }).exceptionally(e -> {
+            Log.e(TAG, "Erro ao inicializar o banco de dados", e);
+            return null;
+        });
     }
 
     /**
      * Escaneia e sincroniza músicas do dispositivo com o banco de dados.
+     * Apenas as músicas adicionadas ou alteradas desde o último scan são lidas do MediaStore.
+     * Se já houver um scan em andamento, a sessão existente é retornada.
+     * @return Sessão do scan, ou null se o Repository ou o Context não estiverem disponíveis.
      */
-    public void scanAndSyncDeviceMusic() {
+    public ScanSession scanAndSyncDeviceMusic() {
         if (musicRepository != null && context != null) {
-            Log.d(TAG, "📱 Iniciando scan de músicas do dispositivo...");
+            Log.d(TAG, "📱 Iniciando scan incremental de músicas do dispositivo...");
             MusicScanner musicScanner = new MusicScanner(context, musicRepository);
-            musicScanner.syncDeviceMusicWithDatabase();
-            musicScanner.debugMusicScan();
+            ScanSession session = musicScanner.syncDeviceMusicWithDatabase();
+            // As tags são lidas depois do scan, para não atrasar a exibição das músicas
+            session.getCompletion().thenRun(() -> MetadataEnricher.getInstance(context).start());
+            return session;
         } else {
             Log.e(TAG, "❌ Não é possível fazer scan - Repository ou Context null");
+            return null;
         }
     }
 
     /**
-     * Carrega todas as músicas do banco de dados e atualiza as listas internas.
-     * @return Lista de músicas carregada.
+     * Procura em segundo plano músicas com conteúdo idêntico em caminhos diferentes.
+     * @return Future concluído com true se as marcações de cópia mudaram.
      */
-    public List<Musica> loadAllSongsFromDatabase() {
-        if (this.listaMusica == null) {
-            this.listaMusica = new ArrayList<>();
-        } else {
-            this.listaMusica.clear();
+    public CompletableFuture<Boolean> detectDuplicates() {
+        if (context == null) {
+            return CompletableFuture.completedFuture(false);
         }
-        if (this.listaOriginal == null) {
-            this.listaOriginal = new ArrayList<>();
-        } else {
-            this.listaOriginal.clear();
-        }
-
-        if (musicRepository != null) {
-            List<Song> databaseSongs = musicRepository.getAllSongs();
-            if (databaseSongs != null) {
-                for (Song dbSong : databaseSongs) {
-                    Musica musica;
-                    if (dbSong.getResourceId() == 0) {
-                        musica = new Musica(
-                                dbSong.getTitle(),
-                                dbSong.getArtist(),
-                                dbSong.getPath(),
-                                dbSong.getDuration(),
-                                dbSong.getAlbumArtPath()
-                        );
-                    } else {
-                        musica = new Musica(
-                                dbSong.getTitle(),
-                                dbSong.getArtist(),
-                                dbSong.getPath(),
-                                dbSong.getDuration(),
-                                dbSong.getAlbumArtPath()
-                        );
-                    }
-                    this.listaMusica.add(musica);
-                    this.listaOriginal.add(musica);
+        return DuplicateDetector.getInstance(context).start();
+    }
+
+    /**
+     * Verifica se a detecção de cópias já rodou desde que o app foi aberto.
+     * @return True se já rodou.
+     */
+    public boolean hasDetectedDuplicates() {
+        return context != null && DuplicateDetector.getInstance(context).hasRun();
+    }
+
+    /**
+     * Verifica se a lista oculta as cópias idênticas.
+     * @return True se as cópias estiverem ocultas.
+     */
+    public boolean isHideDuplicates() {
+        return preferences != null && preferences.getBoolean(KEY_HIDE_DUPLICATES, false);
+    }
+
+    /**
+     * Verifica se a lista oculta as cópias idênticas, sem criar um Model (que carrega a biblioteca).
+     * @param context Contexto da aplicação.
+     * @return True se as cópias estiverem ocultas.
+     */
+    public static boolean isHideDuplicates(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getBoolean(KEY_HIDE_DUPLICATES, false);
+    }
+
+    /**
+     * Define se a lista deve ocultar as cópias idênticas. Vale a partir do próximo carregamento.
+     * @param hide True para ocultar as cópias.
+     */
+    public void setHideDuplicates(boolean hide) {
+        if (preferences != null) {
+            preferences.edit().putBoolean(KEY_HIDE_DUPLICATES, hide).apply();
+        }
+    }
+
+    /**
+     * Passa a observar o MediaStore: cada rajada de mudanças gera um único scan incremental,
+     * e apenas as músicas afetadas são repassadas ao listener, na thread principal.
+     * @param listener Listener que recebe as mudanças da biblioteca.
+     */
+    public void startObservingLibrary(OnLibraryChangedListener listener) {
+        if (musicRepository == null || context == null || libraryObserver != null) {
+            return;
+        }
+        MusicScanner musicScanner = new MusicScanner(context, musicRepository);
+        libraryObserver = new MediaStoreObserver(context.getContentResolver(), musicScanner, result -> {
+            MetadataEnricher.getInstance(context).start();
+            listener.onLibraryChanged(toLibraryChanges(result));
+        });
+        libraryObserver.register();
+    }
+
+    /**
+     * Para de observar o MediaStore.
+     */
+    public void stopObservingLibrary() {
+        if (libraryObserver != null) {
+            libraryObserver.unregister();
+            libraryObserver = null;
+        }
+    }
+
+    /**
+     * Aplica mudanças da biblioteca às listas internas, mantendo a música atual selecionada.
+     * A ordem aleatória acompanha as mudanças: o que já tocou no ciclo não é sorteado de novo.
+     * Músicas apenas novas são acrescentadas à fila em O(k log n), sem copiá-la.
+     * @param changes Mudanças a serem aplicadas.
+     * @param appendAdded Indica se as músicas novas entram na lista (false quando a lista é uma playlist).
+     */
+    public void applyLibraryChanges(LibraryChanges changes, boolean appendAdded) {
+        if (changes.getChanged().isEmpty() && changes.getRemoved().isEmpty()) {
+            appendLibrarySongs(changes.getAdded(), appendAdded);
+            return;
+        }
+        final int[] indice = {indiceActual};
+        final int[] tamanho = {listaMusica.size()}; // Tamanho da fila a cada passo, como a ordem aleatória espera
+        ShuffleOrder ordem = ShuffleOrder.shared();
+        List<Musica> editada = new ArrayList<>(listaMusica);
+        changes.applyTo(editada, appendAdded, new LibraryChanges.Callback() {
+            @Override
+            public void onChanged(int position) { }
+
+            @Override
+            public void onRemoved(int position) {
+                ordem.onRemoved(tamanho[0]--, position);
+                if (position < indice[0]) {
+                    indice[0]--;
                 }
             }
+
+            @Override
+            public void onInserted(int position, int count) {
+                ordem.onInserted(tamanho[0], position, count, false); // Entram entre as não sorteadas
+                tamanho[0] += count;
+            }
+        });
+        boolean mesmaFila = listaOriginal == listaMusica;
+        listaMusica = PlaybackQueue.of(editada);
+        if (mesmaFila) {
+            listaOriginal = listaMusica;
+        } else {
+            List<Musica> original = new ArrayList<>(listaOriginal);
+            changes.applyTo(original, appendAdded, null);
+            listaOriginal = PlaybackQueue.of(original);
         }
+        indiceActual = listaMusica.isEmpty() ? 0 : Math.min(indice[0], listaMusica.size() - 1);
+        if (isShuffleOn && !listaMusica.isEmpty()) {
+            ordem.moveTo(listaMusica.size(), indiceActual); // Se a música atual saiu, registra a que ficou no lugar
+        }
+        Log.d(TAG, "Mudanças da biblioteca aplicadas. Total: " + listaMusica.size());
+    }
 
-        Log.d(TAG, "Listas internas atualizadas do banco. Total: " + this.listaMusica.size());
-        return this.listaMusica;
+    /**
+     * Acrescenta músicas novas ao fim da fila e da fila original, sem copiá-las.
+     * @param added Músicas novas.
+     * @param appendAdded Indica se as músicas novas entram na lista (false quando a lista é uma playlist).
+     */
+    private void appendLibrarySongs(List<Musica> added, boolean appendAdded) {
+        if (!appendAdded || added.isEmpty()) {
+            return;
+        }
+        ShuffleOrder.shared().onInserted(listaMusica.size(), listaMusica.size(), added.size(), false);
+        boolean mesmaFila = listaOriginal == listaMusica;
+        listaMusica = listaMusica.withInsertedAll(listaMusica.size(), added);
+        listaOriginal = mesmaFila ? listaMusica : listaOriginal.withInsertedAll(listaOriginal.size(), added);
+        Log.d(TAG, "Músicas novas acrescentadas à fila: " + added.size() + ". Total: " + listaMusica.size());
+    }
+
+    /**
+     * Converte o resultado de uma sincronização em mudanças da biblioteca.
+     * @param result Resultado (ou bloco) da sincronização.
+     * @return Mudanças com as músicas convertidas em objetos Musica.
+     */
+    public static LibraryChanges toLibraryChanges(MusicScanner.SyncResult result) {
+        return new LibraryChanges(toMusicaList(result.added), toMusicaList(result.changed), toMusicaList(result.removed));
+    }
+
+    /**
+     * Converte músicas do banco de dados em objetos Musica.
+     * @param songs Músicas do banco de dados.
+     * @return Lista de objetos Musica.
+     */
+    static List<Musica> toMusicaList(List<Song> songs) {
+        List<Musica> musicas = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            Musica musica = new Musica(
+                    song.getTitle(),
+                    song.getArtist(),
+                    song.getPath(),
+                    song.getDuration(),
+                    song.getAlbumArtPath()
+            );
+            musica.setSongId(song.getId());
+            musicas.add(musica);
+        }
+        return musicas;
+    }
+
+    /**
+     * Converte as linhas da biblioteca ou de uma playlist em objetos Musica.
+     * @param rows Linhas lidas do banco de dados.
+     * @return Lista de objetos Musica.
+     */
+    static List<Musica> rowsToMusicaList(List<PlayableSongRow> rows) {
+        List<Musica> musicas = new ArrayList<>(rows.size());
+        for (PlayableSongRow row : rows) {
+            Musica musica = new Musica(
+                    row.getTitle(),
+                    row.getArtist(),
+                    row.getPath(),
+                    row.getDuration(),
+                    row.getAlbumArtPath()
+            );
+            musica.setSongId(row.getId());
+            musicas.add(musica);
+        }
+        return musicas;
+    }
+
+    /**
+     * Carrega todas as músicas do banco de dados e atualiza as listas internas.
+     * A consulta roda em segundo plano; as listas são atualizadas, e o future concluído,
+     * na thread principal.
+     * @return Future com a lista de músicas carregada.
+     */
+    public CompletableFuture<List<Musica>> loadAllSongsFromDatabase() {
+        if (musicRepository == null) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        // As cópias idênticas são omitidas já na consulta, que lê só as colunas usadas pela lista
+        return musicRepository.getLibraryRows(!isHideDuplicates())
+                .thenApply(Model::rowsToMusicaList)
+                .thenApplyAsync(musicas -> {
+                    this.listaMusica = PlaybackQueue.of(musicas);
+                    this.listaOriginal = this.listaMusica;
+                    ShuffleOrder.shared().invalidate();
+                    Log.d(TAG, "Listas internas atualizadas do banco. Total: " + this.listaMusica.size());
+                    return this.listaMusica;
+                }, mainExecutor);
     }
 
     /**
-     * Obtém a lista de músicas atual.
-     * @return Lista de músicas.
+     * Lê a cópia da biblioteca gravada em disco, sem abrir o banco de dados. A verificação e a
+     * decodificação rodam no pool de leitura, onde o future é concluído. As listas internas não
+     * são alteradas: quem exibe a cópia a entrega com {@link #updateListaMusica}.
+     * @return Future com as músicas da cópia, ou null se ela não existir ou não for válida (carregar do banco).
      */
-    public List<Musica> getListaMusica() {
+    public CompletableFuture<List<Musica>> loadLibrarySnapshot() {
+        if (context == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean hideDuplicates = isHideDuplicates();
+        return CompletableFuture.<List<Musica>>supplyAsync(() -> {
+            List<Musica> musicas = LibrarySnapshot.read(context, hideDuplicates);
+            return musicas != null && !musicas.isEmpty() ? PlaybackQueue.of(musicas) : null;
+        }, DatabaseExecutors.read());
+    }
+
+    /**
+     * Agenda a gravação da biblioteca exibida como cópia para a próxima abertura do app.
+     * @param musicas Músicas da biblioteca, na ordem em que são exibidas.
+     */
+    public void saveLibrarySnapshot(List<Musica> musicas) {
+        if (context != null && !musicas.isEmpty()) {
+            LibrarySnapshot.save(context, musicas, isHideDuplicates());
+        }
+    }
+
+    /**
+     * Obtém todas as playlists do banco de dados.
+     * @return Future com a lista de playlists.
+     */
+    public CompletableFuture<List<Playlist>> getAllPlaylists() {
+        if (musicRepository == null) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return musicRepository.getAllPlaylists();
+    }
+
+    /**
+     * Adiciona várias músicas ao fim de uma playlist em uma única transação.
+     * @param playlistId ID da playlist.
+     * @param musicas Músicas a serem adicionadas; as que não vêm do banco são ignoradas.
+     * @return Future com o número de músicas adicionadas.
+     */
+    public CompletableFuture<Integer> addSongsToPlaylist(int playlistId, List<Musica> musicas) {
+        List<Integer> songIds = new ArrayList<>(musicas.size());
+        for (Musica musica : musicas) {
+            if (musica.getSongId() != 0) {
+                songIds.add(musica.getSongId());
+            }
+        }
+        if (musicRepository == null || songIds.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return musicRepository.addSongsToPlaylist(playlistId, songIds);
+    }
+
+    /**
+     * Busca músicas pelo título ou artista no índice de busca textual do banco.
+     * @param query Texto digitado na busca.
+     * @param limit Número máximo de resultados.
+     * @return Future com os IDs das músicas encontradas, em ordem de relevância.
+     */
+    public CompletableFuture<List<Integer>> searchSongIds(String query, int limit) {
+        if (musicRepository == null) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return musicRepository.searchSongIds(query, limit);
+    }
+
+    /**
+     * Obtém a fila de reprodução atual. A fila é imutável e pode ser guardada sem cópia.
+     * @return Fila de músicas.
+     */
+    public PlaybackQueue getListaMusica() {
         return listaMusica;
     }
 
@@ -162,6 +434,9 @@ public class Model {
     public void setIndiceActual(int indice) {
         if (indice >= 0 && indice < (listaMusica != null ? listaMusica.size() : 0)) {
             this.indiceActual = indice;
+            if (isShuffleOn) {
+                ShuffleOrder.shared().moveTo(listaMusica.size(), indice);
+            }
             Log.d(TAG, "Índice definido para: " + indice);
         } else {
             Log.e(TAG, "Índice inválido: " + indice);
@@ -175,30 +450,26 @@ public class Model {
         if (!isShuffleOn) {
             isShuffleOn = true;
             isRepeatOn = false;
+            ShuffleOrder.shared().reset(listaMusica.size(), indiceActual);
             Log.d(TAG, "Shuffle ATIVADO - Repeat DESATIVADO");
         } else {
             isShuffleOn = false;
+            isSmartShuffleOn = false;
             Musica musicaTocandoAgora = getMusicaAtual();
             Log.d(TAG, "🔀 Desativando shuffle - Música tocando: " +
                     (musicaTocandoAgora != null ? musicaTocandoAgora.getTitulo() : "null"));
 
             if (musicaTocandoAgora != null) {
-                int posicaoOriginal = -1;
-                for (int i = 0; i < listaOriginal.size(); i++) {
-                    Musica m = listaOriginal.get(i);
-                    if (m.getTitulo().equals(musicaTocandoAgora.getTitulo()) &&
-                            m.getArtista().equals(musicaTocandoAgora.getArtista())) {
-                        posicaoOriginal = i;
-                        break;
-                    }
-                }
+                // Localizada pelo ID: O(1), e faixas com o mesmo título e artista não se confundem
+                int posicaoOriginal = listaOriginal.positionOf(musicaTocandoAgora,
+                        listaOriginal == listaMusica ? indiceActual : -1);
 
                 if (posicaoOriginal != -1) {
                     indiceActual = posicaoOriginal;
-                    listaMusica = new ArrayList<>(listaOriginal);
+                    listaMusica = listaOriginal;
                     Log.d(TAG, "✅ Shuffle desativado - Posição original: " + posicaoOriginal);
                 } else {
-                    listaMusica = new ArrayList<>(listaOriginal);
+                    listaMusica = listaOriginal;
                     indiceActual = 0;
                     Log.w(TAG, "⚠️ Música não encontrada na lista original - usando índice 0");
                 }
@@ -213,6 +484,7 @@ public class Model {
         if (!isRepeatOn) {
             isRepeatOn = true;
             isShuffleOn = false;
+            isSmartShuffleOn = false;
             Log.d(TAG, "Repeat ATIVADO - Shuffle DESATIVADO");
         } else {
             isRepeatOn = false;
@@ -220,6 +492,35 @@ public class Model {
         }
     }
 
+    /**
+     * Alterna o shuffle inteligente, que sorteia as músicas com peso maior para as mais ouvidas
+     * até o fim e menor para as puladas e as tocadas há pouco. Ativá-lo também ativa o shuffle;
+     * desativá-lo volta ao shuffle uniforme.
+     */
+    public void toggleSmartShuffle() {
+        if (!isSmartShuffleOn) {
+            if (!isShuffleOn) {
+                toggleShuffle();
+            }
+            isSmartShuffleOn = true;
+            if (context != null) {
+                SmartShuffle.getInstance(context).prepare(listaMusica); // A tabela fica pronta antes do próximo sorteio
+            }
+            Log.d(TAG, "Shuffle inteligente ATIVADO");
+        } else {
+            isSmartShuffleOn = false;
+            Log.d(TAG, "Shuffle inteligente DESATIVADO - shuffle uniforme");
+        }
+    }
+
+    /**
+     * Verifica se o shuffle inteligente está ativado.
+     * @return True se o shuffle inteligente está ativado.
+     */
+    public boolean isSmartShuffleOn() {
+        return isSmartShuffleOn;
+    }
+
     /**
      * Verifica se o modo shuffle está ativado.
      * @return True se o shuffle está ativado.
@@ -251,15 +552,10 @@ public class Model {
             Log.d(TAG, "Repeat ativado - mantendo música atual");
             return;
         } else if (isShuffleOn) {
-            int newIndex;
-            if (listaMusica.size() > 1) {
-                do {
-                    newIndex = random.nextInt(listaMusica.size());
-                } while (newIndex == indiceActual);
-            } else {
-                newIndex = 0;
-            }
-            indiceActual = newIndex;
+            int sorteada = isSmartShuffleOn && context != null
+                    ? SmartShuffle.getInstance(context).next(listaMusica, indiceActual) : -1;
+            // Sem a tabela do shuffle inteligente pronta, segue a ordem uniforme
+            indiceActual = sorteada >= 0 ? sorteada : ShuffleOrder.shared().next(listaMusica.size(), indiceActual);
             Log.d(TAG, "🎲 Shuffle - Novo índice: " + indiceActual);
         } else {
             indiceActual = (indiceActual + 1) % listaMusica.size();
@@ -284,15 +580,9 @@ public class Model {
             Log.d(TAG, "Repeat ativado - mantendo música atual");
             return;
         } else if (isShuffleOn) {
-            int newIndex;
-            if (listaMusica.size() > 1) {
-                do {
-                    newIndex = random.nextInt(listaMusica.size());
-                } while (newIndex == indiceActual);
-            } else {
-                newIndex = 0;
-            }
-            indiceActual = newIndex;
+            int anterior = isSmartShuffleOn && context != null
+                    ? SmartShuffle.getInstance(context).previous(listaMusica, indiceActual) : -1;
+            indiceActual = anterior >= 0 ? anterior : ShuffleOrder.shared().previous(listaMusica.size(), indiceActual);
             musicaAtualShuffle = getMusicaAtual();
             Log.d(TAG, "🎲 Shuffle - Música anterior: " +
                     (musicaAtualShuffle != null ? musicaAtualShuffle.getTitulo() : "null") +
@@ -319,9 +609,7 @@ public class Model {
         }
 
         Musica musica = listaMusica.get(indiceActual);
-        if (musicaAtual == null ||
-                !musica.getTitulo().equals(musicaAtual.getTitulo()) ||
-                !musica.getArtista().equals(musicaAtual.getArtista())) {
+        if (!musica.isSameTrack(musicaAtual)) {
             musicaAtual = musica;
             Log.d(TAG, "🔄 Música atual atualizada: " + musicaAtual.getTitulo());
         }
@@ -339,11 +627,13 @@ public class Model {
 
     /**
      * Atualiza a lista de músicas e reinicia o índice.
+     * Se a nova lista já for uma {@link PlaybackQueue}, ela é usada sem cópia.
      * @param novasMusicas Nova lista de músicas.
      */
     public void updateListaMusica(List<Musica> novasMusicas) {
-        this.listaMusica = new ArrayList<>(novasMusicas);
-        this.listaOriginal = new ArrayList<>(novasMusicas);
+        this.listaMusica = PlaybackQueue.of(novasMusicas);
+        this.listaOriginal = this.listaMusica;
+        ShuffleOrder.shared().invalidate();
         if (indiceActual >= listaMusica.size()) {
             indiceActual = 0;
         }
@@ -374,36 +664,38 @@ public class Model {
      * @param playlistId ID da playlist.
      */
     private void loadPlaylistSongs(int playlistId) {
-        new Thread(() -> {
-            List<Song> databaseSongs = musicRepository.getSongsByPlaylist(playlistId);
-            if (databaseSongs != null) {
-                listaMusica.clear();
-                for (Song dbSong : databaseSongs) {
-                    Musica musica;
-                    if (dbSong.getResourceId() == 0) {
-                        musica = new Musica(
-                                dbSong.getTitle(),
-                                dbSong.getArtist(),
-                                dbSong.getPath(),
-                                dbSong.getDuration(),
-                                dbSong.getAlbumArtPath()
-                        );
-                    } else {
-                        musica = new Musica(
-                                dbSong.getTitle(),
-                                dbSong.getArtist(),
-                                dbSong.getPath(),
-                                dbSong.getDuration(),
-                                dbSong.getAlbumArtPath()
-                        );
-                    }
-                    listaMusica.add(musica);
-                }
-                listaOriginal = new ArrayList<>(listaMusica);
-                indiceActual = 0;
-                Log.d(TAG, "Playlist carregada: " + listaMusica.size() + " músicas");
-            }
-        }).start();
+        musicRepository.getPlayableRowsByPlaylist(playlistId)
+                .thenApply(Model::rowsToMusicaList)
+                .thenAcceptAsync(musicas -> {
+                    listaMusica = PlaybackQueue.of(musicas);
+                    listaOriginal = listaMusica;
+                    indiceActual = 0;
+                    ShuffleOrder.shared().invalidate();
+                    Log.d(TAG, "Playlist carregada: " + listaMusica.size() + " músicas");
+                }, mainExecutor);
+    }
+
+    /**
+     * Carrega as músicas de uma playlist, na ordem dela, apenas com o necessário para tocar.
+     * Não altera a fila atual.
+     * @param playlistId ID da playlist.
+     * @return Future com as músicas da playlist.
+     */
+    public CompletableFuture<List<Musica>> loadPlaylistQueue(int playlistId) {
+        return musicRepository.getPlayableRowsByPlaylist(playlistId).thenApply(Model::rowsToMusicaList);
+    }
+
+    /**
+     * Carrega a entidade completa de uma música, com caminho e tags, para exibir seus detalhes.
+     * As listas guardam apenas o necessário para exibir e tocar as músicas.
+     * @param songId ID da música no banco de dados.
+     * @return Future com a música, ou null se ela não existir ou não veio do banco.
+     */
+    public CompletableFuture<Song> getSongDetails(int songId) {
+        if (musicRepository == null || songId <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return musicRepository.getSongById(songId);
     }
 
     /**
@@ -422,7 +714,7 @@ public class Model {
         return "Model Debug:\n" +
                 "Total músicas: " + listaMusica.size() + "\n" +
                 "Índice atual: " + indiceActual + "\n" +
-                "Shuffle: " + (isShuffleOn ? "ON" : "OFF") + "\n" +
+                "Shuffle: " + (isShuffleOn ? (isSmartShuffleOn ? "ON (inteligente)" : "ON") : "OFF") + "\n" +
                 "Repeat: " + (isRepeatOn ? "ON" : "OFF") + "\n" +
                 "Música atual: " + (getMusicaAtual() != null ?
                 getMusicaAtual().getTitulo() + " - " + getMusicaAtual().getArtista() : "Nenhuma");
@@ -447,12 +739,80 @@ public class Model {
      * @param newList Nova lista de músicas.
      */
     public void setMusicList(List<Musica> newList) {
-        if (this.listaMusica != null) {
-            this.listaMusica.clear();
-            this.listaMusica.addAll(newList);
-            this.listaOriginal.clear();
-            this.listaOriginal.addAll(newList);
-            Log.d(TAG, "Nova lista de músicas definida. Total: " + this.listaMusica.size());
+        this.listaMusica = PlaybackQueue.of(newList);
+        this.listaOriginal = this.listaMusica;
+        ShuffleOrder.shared().invalidate();
+        Log.d(TAG, "Nova lista de músicas definida. Total: " + this.listaMusica.size());
+    }
+
+    /**
+     * Insere uma música logo depois da música atual.
+     * @param musica Música a ser tocada em seguida.
+     */
+    public void playNext(Musica musica) {
+        int posicao = listaMusica.isEmpty() ? 0 : indiceActual + 1;
+        ShuffleOrder.shared().onInserted(listaMusica.size(), posicao, true); // Também é a próxima no modo aleatório
+        listaMusica = listaMusica.withInserted(posicao, musica);
+        listaOriginal = listaMusica;
+        Log.d(TAG, "Música inserida na fila na posição " + posicao + ": " + musica.getTitulo());
+    }
+
+    /**
+     * Adiciona uma música ao fim da fila.
+     * @param musica Música a ser adicionada.
+     */
+    public void enqueue(Musica musica) {
+        ShuffleOrder.shared().onInserted(listaMusica.size(), listaMusica.size(), false);
+        listaMusica = listaMusica.withInserted(listaMusica.size(), musica);
+        listaOriginal = listaMusica;
+        Log.d(TAG, "Música adicionada ao fim da fila: " + musica.getTitulo());
+    }
+
+    /**
+     * Remove uma música da fila, mantendo a música atual selecionada. A música que está tocando
+     * não pode ser removida.
+     * @param position Posição da música na fila.
+     * @return True se a música foi removida.
+     */
+    public boolean removeFromQueue(int position) {
+        if (position < 0 || position >= listaMusica.size()) {
+            Log.e(TAG, "Posição inválida para remover da fila: " + position);
+            return false;
+        }
+        if (position == indiceActual) {
+            Log.w(TAG, "A música atual não pode ser removida da fila");
+            return false;
+        }
+        ShuffleOrder.shared().onRemoved(listaMusica.size(), position); // O que já tocou continua fora do ciclo
+        Musica removida = listaMusica.get(position);
+        listaMusica = listaMusica.withRemoved(position);
+        listaOriginal = listaMusica;
+        if (position < indiceActual) {
+            indiceActual--;
+        }
+        Log.d(TAG, "Música removida da fila na posição " + position + ": " + removida.getTitulo());
+        return true;
+    }
+
+    /**
+     * Move uma música da fila, mantendo a música atual selecionada.
+     * @param from Posição atual da música.
+     * @param to Nova posição da música.
+     */
+    public void moveInQueue(int from, int to) {
+        if (from < 0 || from >= listaMusica.size() || to < 0 || to >= listaMusica.size()) {
+            Log.e(TAG, "Posições inválidas para mover na fila: " + from + " -> " + to);
+            return;
+        }
+        listaMusica = listaMusica.withMoved(from, to);
+        listaOriginal = listaMusica;
+        ShuffleOrder.shared().onMoved(listaMusica.size(), from, to);
+        if (from == indiceActual) {
+            indiceActual = to;
+        } else if (from < indiceActual && to >= indiceActual) {
+            indiceActual--;
+        } else if (from > indiceActual && to <= indiceActual) {
+            indiceActual++;
         }
     }
 }
\ No newline at end of file
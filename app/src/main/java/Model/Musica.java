@@ -13,6 +13,7 @@ public class Musica implements Serializable {
     private boolean isDeviceMusic; // Indica se a música é do dispositivo
     private long duracao; // Duração da música em milissegundos
     private String contentUri; // URI no formato "content://" para músicas externas
+    private int songId; // ID da música no banco de dados (0 se não veio do banco)
 
     /**
      * Construtor para músicas internas (armazenadas no diretório 'raw').
@@ -104,4 +105,43 @@ public class Musica implements Serializable {
     public String getContentUri() {
         return contentUri;
     }
+
+    /**
+     * Obtém o ID da música no banco de dados.
+     * @return ID da música, ou 0 se ela não veio do banco.
+     */
+    public int getSongId() {
+        return songId;
+    }
+
+    /**
+     * Define o ID da música no banco de dados.
+     * @param songId ID da música.
+     */
+    public void setSongId(int songId) {
+        this.songId = songId;
+    }
+
+    /**
+     * Verifica se duas músicas são a mesma faixa. Músicas do banco são comparadas pelo ID, então
+     * faixas diferentes com o mesmo título e artista não se confundem; as demais são comparadas
+     * pelo caminho do arquivo ou, nas músicas internas, pelo número da faixa.
+     * @param outra Música a comparar.
+     * @return True se as duas representam a mesma faixa.
+     */
+    public boolean isSameTrack(Musica outra) {
+        if (outra == this) {
+            return true;
+        }
+        if (outra == null) {
+            return false;
+        }
+        if (songId > 0 || outra.songId > 0) {
+            return songId == outra.songId;
+        }
+        if (filePath != null || outra.filePath != null) {
+            return filePath != null && filePath.equals(outra.filePath);
+        }
+        return numeroFaixa == outra.numeroFaixa;
+    }
 }
\ No newline at end of file
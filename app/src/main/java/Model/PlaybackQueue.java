@@ -0,0 +1,374 @@
+package Model;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fila de reprodução imutável, guardada em uma árvore balanceada indexada pela posição
+ * (treap implícita). Cada edição devolve uma nova fila em O(log n) e reaproveita todos os nós
+ * que não mudaram, então a fila antiga continua válida e nada é copiado: a mesma instância pode
+ * ser entregue ao Presenter, ao Model e ao MusicService ao mesmo tempo. Como lista, é somente
+ * leitura; {@link #get(int)} custa O(log n) e percorrer a fila com o iterador custa O(n).
+ * Cada fila tem um índice do ID da música para a posição, montado em O(n) na primeira busca
+ * e consultado em O(1) daí em diante, para localizar músicas sem comparar títulos.
+ */
+public final class PlaybackQueue extends AbstractList<Musica> {
+    private static final PlaybackQueue EMPTY = new PlaybackQueue(null); // Fila vazia compartilhada
+    private static volatile PlaybackQueue shared = EMPTY; // Última fila entregue ao MusicService
+
+    private final Node root; // Raiz da árvore, ou null se a fila estiver vazia
+    private volatile int[] positionIndex; // Tabela hash ID -> posição (pares chave/valor), montada na primeira busca
+
+    /**
+     * Nó imutável da árvore. A posição de uma música é dada pelo tamanho das subárvores à esquerda.
+     */
+    private static final class Node {
+        final Musica value; // Música deste nó
+        final int priority; // Prioridade aleatória; nenhum filho tem prioridade maior que o pai
+        final Node left; // Músicas anteriores
+        final Node right; // Músicas seguintes
+        final int size; // Número de músicas nesta subárvore
+
+        Node(Musica value, int priority, Node left, Node right) {
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        Node with(Node newLeft, Node newRight) {
+            return newLeft == left && newRight == right ? this : new Node(value, priority, newLeft, newRight);
+        }
+    }
+
+    private PlaybackQueue(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Obtém a fila vazia.
+     * @return Fila sem músicas.
+     */
+    public static PlaybackQueue empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Cria uma fila com as músicas da lista, em O(n). Se a lista já for uma fila, ela mesma é devolvida.
+     * @param musicas Músicas da fila, na ordem de reprodução.
+     * @return Fila com as músicas.
+     */
+    public static PlaybackQueue of(List<Musica> musicas) {
+        if (musicas instanceof PlaybackQueue) {
+            return (PlaybackQueue) musicas;
+        }
+        if (musicas == null || musicas.isEmpty()) {
+            return EMPTY;
+        }
+        return new PlaybackQueue(build(musicas.toArray(new Musica[0]), 0, musicas.size()));
+    }
+
+    /**
+     * Publica a fila que o MusicService deve tocar. Serviço e telas rodam no mesmo processo,
+     * então a fila é entregue por referência em vez de ir serializada no Intent.
+     * @param queue Fila a ser tocada.
+     */
+    public static void publish(PlaybackQueue queue) {
+        shared = queue != null ? queue : EMPTY;
+    }
+
+    /**
+     * Obtém a última fila publicada.
+     * @return Fila publicada, ou a fila vazia.
+     */
+    public static PlaybackQueue published() {
+        return shared;
+    }
+
+    @Override
+    public Musica get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Índice " + index + ", tamanho " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public Iterator<Musica> iterator() {
+        return new Iterator<Musica>() {
+            private final Deque<Node> path = new ArrayDeque<>(); // Nós cujo valor ainda não foi visitado
+            private Node next = root; // Próxima subárvore a descer pela esquerda
+
+            @Override
+            public boolean hasNext() {
+                return next != null || !path.isEmpty();
+            }
+
+            @Override
+            public Musica next() {
+                while (next != null) {
+                    path.push(next);
+                    next = next.left;
+                }
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node node = path.pop();
+                next = node.right;
+                return node.value;
+            }
+        };
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int index = 0;
+        for (Musica musica : this) {
+            if (musica == null ? o == null : musica.equals(o)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Localiza uma música da fila pelo ID do banco, em O(1) depois da primeira busca nesta fila.
+     * Se o ID aparece mais de uma vez (a mesma música adicionada duas vezes), a posição sugerida
+     * é preferida quando a música está nela; senão, vale a primeira ocorrência.
+     * @param songId ID da música no banco de dados.
+     * @param hint Posição provável da música, ou -1.
+     * @return Posição da música, ou -1 se ela não está na fila.
+     */
+    public int positionOfSongId(int songId, int hint) {
+        if (songId <= 0) {
+            return -1;
+        }
+        if (hint >= 0 && hint < size() && get(hint).getSongId() == songId) {
+            return hint;
+        }
+        int[] table = positionIndex;
+        if (table == null) {
+            table = buildPositionIndex();
+            positionIndex = table;
+        }
+        int mask = (table.length >> 1) - 1;
+        for (int slot = mix(songId) & mask; ; slot = (slot + 1) & mask) {
+            int key = table[slot << 1];
+            if (key == 0) {
+                return -1;
+            }
+            if (key == songId) {
+                return table[(slot << 1) + 1];
+            }
+        }
+    }
+
+    /**
+     * Localiza uma música da fila. Músicas do banco são localizadas pelo ID, em O(1), e músicas
+     * com título e artista iguais continuam distintas; as demais são procuradas pelo caminho.
+     * @param musica Música a ser localizada.
+     * @param hint Posição provável da música, ou -1.
+     * @return Posição da música, ou -1 se ela não está na fila.
+     */
+    public int positionOf(Musica musica, int hint) {
+        if (musica == null) {
+            return -1;
+        }
+        if (musica.getSongId() > 0) {
+            return positionOfSongId(musica.getSongId(), hint);
+        }
+        if (hint >= 0 && hint < size() && musica.isSameTrack(get(hint))) {
+            return hint;
+        }
+        int index = 0;
+        for (Musica candidata : this) {
+            if (musica.isSameTrack(candidata)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Monta a tabela hash ID -> posição com endereçamento aberto, em O(n). Guarda a primeira
+     * ocorrência de cada ID; músicas que não vieram do banco (ID 0) ficam de fora.
+     */
+    private int[] buildPositionIndex() {
+        int capacity = Integer.highestOneBit(Math.max(2, size()) * 2 - 1) << 1; // Potência de 2, ocupação <= 1/2
+        int[] table = new int[capacity * 2];
+        int mask = capacity - 1;
+        int index = 0;
+        for (Musica musica : this) {
+            int songId = musica.getSongId();
+            if (songId > 0) {
+                int slot = mix(songId) & mask;
+                while (table[slot << 1] != 0 && table[slot << 1] != songId) {
+                    slot = (slot + 1) & mask;
+                }
+                if (table[slot << 1] == 0) {
+                    table[slot << 1] = songId;
+                    table[(slot << 1) + 1] = index;
+                }
+            }
+            index++;
+        }
+        return table;
+    }
+
+    /**
+     * Espalha os bits do ID, já que IDs sequenciais ocupariam posições vizinhas da tabela.
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Insere uma música.
+     * @param index Posição da música na nova fila (de 0 a size()).
+     * @param musica Música a ser inserida.
+     * @return Nova fila com a música.
+     */
+    public PlaybackQueue withInserted(int index, Musica musica) {
+        return withInsertedAll(index, Collections.singletonList(musica));
+    }
+
+    /**
+     * Insere várias músicas em sequência.
+     * @param index Posição da primeira música na nova fila (de 0 a size()).
+     * @param musicas Músicas a serem inseridas.
+     * @return Nova fila com as músicas.
+     */
+    public PlaybackQueue withInsertedAll(int index, List<Musica> musicas) {
+        checkPosition(index, size());
+        if (musicas.isEmpty()) {
+            return this;
+        }
+        Node inserted = musicas instanceof PlaybackQueue
+                ? ((PlaybackQueue) musicas).root
+                : build(musicas.toArray(new Musica[0]), 0, musicas.size());
+        Node[] parts = split(root, index);
+        return new PlaybackQueue(merge(merge(parts[0], inserted), parts[1]));
+    }
+
+    /**
+     * Remove uma música.
+     * @param index Posição da música.
+     * @return Nova fila sem a música.
+     */
+    public PlaybackQueue withRemoved(int index) {
+        checkPosition(index, size() - 1);
+        Node[] before = split(root, index);
+        Node[] after = split(before[1], 1);
+        return new PlaybackQueue(merge(before[0], after[1]));
+    }
+
+    /**
+     * Move uma música para outra posição.
+     * @param from Posição atual da música.
+     * @param to Posição da música na nova fila.
+     * @return Nova fila com a música na nova posição.
+     */
+    public PlaybackQueue withMoved(int from, int to) {
+        checkPosition(from, size() - 1);
+        checkPosition(to, size() - 1);
+        if (from == to) {
+            return this;
+        }
+        Node[] before = split(root, from);
+        Node[] after = split(before[1], 1);
+        Node[] target = split(merge(before[0], after[1]), to);
+        return new PlaybackQueue(merge(merge(target[0], after[0]), target[1]));
+    }
+
+    private static void checkPosition(int index, int max) {
+        if (index < 0 || index > max) {
+            throw new IndexOutOfBoundsException("Posição " + index + ", máximo " + max);
+        }
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    /**
+     * Monta uma árvore balanceada a partir de um trecho do array. Cada nó recebe a maior
+     * prioridade entre a sua e a dos filhos, para manter a ordem de prioridades da treap.
+     */
+    private static Node build(Musica[] musicas, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node left = build(musicas, from, middle);
+        Node right = build(musicas, middle + 1, to);
+        int priority = ThreadLocalRandom.current().nextInt();
+        if (left != null) {
+            priority = Math.max(priority, left.priority);
+        }
+        if (right != null) {
+            priority = Math.max(priority, right.priority);
+        }
+        return new Node(musicas[middle], priority, left, right);
+    }
+
+    /**
+     * Divide a árvore nas primeiras {@code count} músicas e no restante, copiando apenas
+     * os nós do caminho percorrido.
+     */
+    private static Node[] split(Node node, int count) {
+        if (node == null) {
+            return new Node[2];
+        }
+        int leftSize = size(node.left);
+        if (count <= leftSize) {
+            Node[] parts = split(node.left, count);
+            parts[1] = node.with(parts[1], node.right);
+            return parts;
+        }
+        Node[] parts = split(node.right, count - leftSize - 1);
+        parts[0] = node.with(node.left, parts[0]);
+        return parts;
+    }
+
+    /**
+     * Junta duas árvores, com todas as músicas de {@code first} antes das de {@code second}.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority >= second.priority) {
+            return first.with(first.left, merge(first.right, second));
+        }
+        return second.with(merge(first, second.left), second.right);
+    }
+}
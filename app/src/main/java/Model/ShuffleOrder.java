@@ -0,0 +1,301 @@
+package Model;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Ordem aleatória da fila de reprodução, sorteada aos poucos (Fisher–Yates preguiçoso): cada
+ * avanço sorteia uma das músicas ainda não tocadas no ciclo, então todas tocam uma vez antes de
+ * alguma se repetir. As músicas já sorteadas formam o histórico do ciclo, e "anterior" apenas
+ * volta nele, assim como "próxima" avança nele antes de sortear de novo; os dois custam O(1).
+ * Há uma única ordem no processo, compartilhada pelo Model e pelo MusicService, para que a
+ * tela e o serviço concordem sobre a próxima música. Adicionar músicas à fila as inclui entre as
+ * não tocadas, sem sortear de novo o que já tocou.
+ */
+public final class ShuffleOrder {
+    private static final String TAG = "ShuffleOrder";
+    private static final ShuffleOrder shared = new ShuffleOrder(); // Ordem usada pelo Model e pelo MusicService
+
+    private int[] order = new int[0]; // [0, drawn): ordem já sorteada; [drawn, size): músicas ainda não sorteadas
+    private int[] positionOf = new int[0]; // Posição em order de cada índice da fila
+    private int size = 0; // Tamanho da fila a que a ordem corresponde
+    private int drawn = 0; // Quantas músicas já foram sorteadas no ciclo
+    private int cursor = -1; // Posição em order da música atual, ou -1 se a ordem não é válida
+    private long seed; // Semente do ciclo atual
+    private Random random = new Random(); // Sorteios do ciclo atual
+
+    private ShuffleOrder() {
+    }
+
+    /**
+     * Obtém a ordem aleatória compartilhada.
+     * @return Ordem aleatória do processo.
+     */
+    public static ShuffleOrder shared() {
+        return shared;
+    }
+
+    /**
+     * Começa uma nova ordem a partir da música atual, que passa a ser a primeira do ciclo.
+     * Alocar a ordem custa O(n), mas nenhuma música é sorteada antes de ser pedida.
+     * @param queueSize Tamanho da fila.
+     * @param currentIndex Índice da música atual na fila.
+     */
+    public synchronized void reset(int queueSize, int currentIndex) {
+        size = queueSize;
+        if (order.length < size) {
+            order = new int[size];
+            positionOf = new int[size];
+        }
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            positionOf[i] = i;
+        }
+        startCycle(currentIndex);
+        Log.d(TAG, "Nova ordem - Músicas: " + size + ", Semente: " + seed);
+    }
+
+    /**
+     * Descarta a ordem; ela é refeita no próximo uso. Usado quando a fila é substituída.
+     */
+    public synchronized void invalidate() {
+        cursor = -1;
+    }
+
+    /**
+     * Avança para a próxima música da ordem, sorteando-a se ela ainda não foi sorteada.
+     * Ao fim do ciclo, um novo ciclo começa sem repetir a música atual logo em seguida.
+     * @param queueSize Tamanho da fila; se a ordem não for dela, é refeita.
+     * @param currentIndex Índice da música atual na fila.
+     * @return Índice da próxima música na fila.
+     */
+    public synchronized int next(int queueSize, int currentIndex) {
+        ensureValid(queueSize, currentIndex);
+        if (size <= 1) {
+            return currentIndex;
+        }
+        if (cursor + 1 < drawn) {
+            cursor++; // Avança no histórico depois de ter voltado
+        } else if (drawn < size) {
+            swap(drawn, drawn + random.nextInt(size - drawn));
+            drawn++;
+            cursor++;
+        } else {
+            // Ciclo completo: a música atual vai para o fim, para não ser sorteada logo de novo
+            int current = order[cursor];
+            swap(positionOf[current], size - 1);
+            seed = System.nanoTime();
+            random = new Random(seed);
+            swap(0, random.nextInt(size - 1));
+            drawn = 1;
+            cursor = 0;
+        }
+        return order[cursor];
+    }
+
+    /**
+     * Volta para a música anterior no histórico do ciclo. Na primeira música do ciclo, fica nela.
+     * @param queueSize Tamanho da fila; se a ordem não for dela, é refeita.
+     * @param currentIndex Índice da música atual na fila.
+     * @return Índice da música anterior na fila.
+     */
+    public synchronized int previous(int queueSize, int currentIndex) {
+        ensureValid(queueSize, currentIndex);
+        if (cursor > 0) {
+            cursor--;
+        }
+        return order[cursor];
+    }
+
+    /**
+     * Registra que uma música foi escolhida diretamente (por exemplo, tocada na lista).
+     * Se ela ainda não tinha tocado no ciclo, entra no histórico logo depois do que já tocou.
+     * @param queueSize Tamanho da fila; se a ordem não for dela, é refeita.
+     * @param index Índice da música escolhida.
+     */
+    public synchronized void moveTo(int queueSize, int index) {
+        if (cursor < 0 || size != queueSize) {
+            reset(queueSize, index);
+            return;
+        }
+        if (index < 0 || index >= size) {
+            return;
+        }
+        int position = positionOf[index];
+        if (position >= drawn) {
+            swap(position, drawn);
+            position = drawn;
+            drawn++;
+        }
+        cursor = position;
+    }
+
+    /**
+     * Ajusta a ordem a uma música inserida na fila, sem sortear de novo o que já tocou.
+     * @param queueSize Tamanho da fila antes da inserção.
+     * @param index Posição em que a música foi inserida.
+     * @param playNext Se true, a música é a próxima da ordem; se false, entra entre as não sorteadas.
+     */
+    public synchronized void onInserted(int queueSize, int index, boolean playNext) {
+        onInserted(queueSize, index, 1, playNext);
+    }
+
+    /**
+     * Ajusta a ordem a músicas inseridas em sequência na fila, sem sortear de novo o que já
+     * tocou. Músicas adicionadas ao fim da fila custam O(count); no meio, O(n).
+     * @param queueSize Tamanho da fila antes da inserção.
+     * @param index Posição em que a primeira música foi inserida.
+     * @param count Número de músicas inseridas.
+     * @param playNext Se true, as músicas são as próximas da ordem; se false, entram entre as não sorteadas.
+     */
+    public synchronized void onInserted(int queueSize, int index, int count, boolean playNext) {
+        if (cursor < 0 || size != queueSize || count <= 0) {
+            return;
+        }
+        int newSize = size + count;
+        if (order.length < newSize) {
+            int capacity = Math.max(newSize, order.length * 3 / 2 + 1);
+            order = Arrays.copyOf(order, capacity);
+            positionOf = Arrays.copyOf(positionOf, capacity);
+        }
+        boolean appended = index >= size;
+        if (!appended) {
+            // Índices a partir da posição inserida andam count casas
+            for (int i = 0; i < size; i++) {
+                if (order[i] >= index) {
+                    order[i] += count;
+                }
+            }
+        }
+        int target = playNext ? cursor + 1 : size;
+        System.arraycopy(order, target, order, target + count, size - target);
+        for (int i = 0; i < count; i++) {
+            order[target + i] = index + i;
+        }
+        size = newSize;
+        if (playNext) {
+            drawn += count; // Ficam marcadas como as próximas do histórico
+        }
+        rebuildPositions(appended ? target : 0);
+    }
+
+    /**
+     * Ajusta a ordem a uma música removida da fila, sem sortear de novo o que já tocou. Se a
+     * música removida era a atual, a música que fica na mesma posição da fila passa a ser a
+     * atual, no mesmo ponto do histórico.
+     * @param queueSize Tamanho da fila antes da remoção.
+     * @param index Posição da música removida.
+     */
+    public synchronized void onRemoved(int queueSize, int index) {
+        if (cursor < 0 || size != queueSize || index < 0 || index >= size) {
+            return;
+        }
+        int position = positionOf[index];
+        boolean removedCurrent = position == cursor;
+        move(position, size - 1);
+        size--;
+        if (size == 0) {
+            cursor = -1;
+            return;
+        }
+        if (position < drawn) {
+            drawn--;
+        }
+        if (position < cursor) {
+            cursor--;
+        }
+        // Índices depois da posição removida voltam uma casa
+        for (int i = 0; i < size; i++) {
+            if (order[i] > index) {
+                order[i]--;
+            }
+        }
+        rebuildPositions(0);
+        if (removedCurrent) {
+            int from = positionOf[Math.min(index, size - 1)];
+            if (from >= drawn) {
+                drawn++; // Ainda não tinha tocado: entra no histórico
+                cursor = position;
+            } else {
+                cursor = from < position ? position - 1 : position;
+            }
+            move(from, cursor);
+            rebuildPositions(0);
+        }
+    }
+
+    /**
+     * Ajusta a ordem a uma música movida na fila; a ordem de reprodução não muda.
+     * @param queueSize Tamanho da fila.
+     * @param from Posição anterior da música.
+     * @param to Nova posição da música.
+     */
+    public synchronized void onMoved(int queueSize, int from, int to) {
+        if (cursor < 0 || size != queueSize) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            int value = order[i];
+            if (value == from) {
+                order[i] = to;
+            } else if (from < to && value > from && value <= to) {
+                order[i] = value - 1;
+            } else if (from > to && value >= to && value < from) {
+                order[i] = value + 1;
+            }
+        }
+        rebuildPositions(0);
+    }
+
+    private void ensureValid(int queueSize, int currentIndex) {
+        if (cursor < 0 || size != queueSize || order[cursor] != currentIndex) {
+            reset(queueSize, currentIndex);
+        }
+    }
+
+    private void startCycle(int first) {
+        seed = System.nanoTime();
+        random = new Random(seed);
+        drawn = 0;
+        cursor = -1;
+        if (first >= 0 && first < size) {
+            swap(positionOf[first], 0);
+            drawn = 1;
+            cursor = 0;
+        } else if (size > 0) {
+            swap(0, random.nextInt(size));
+            drawn = 1;
+            cursor = 0;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int valueA = order[a];
+        int valueB = order[b];
+        order[a] = valueB;
+        order[b] = valueA;
+        positionOf[valueB] = a;
+        positionOf[valueA] = b;
+    }
+
+    /**
+     * Leva a entrada de uma posição da ordem para outra, deslocando as que estão entre elas.
+     */
+    private void move(int from, int to) {
+        int value = order[from];
+        if (from < to) {
+            System.arraycopy(order, from + 1, order, from, to - from);
+        } else {
+            System.arraycopy(order, to, order, to + 1, from - to);
+        }
+        order[to] = value;
+    }
+
+    private void rebuildPositions(int from) {
+        for (int i = from; i < size; i++) {
+            positionOf[order[i]] = i;
+        }
+    }
+}
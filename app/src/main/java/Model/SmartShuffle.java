@@ -0,0 +1,358 @@
+package Model;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.mussaldynerhey.meuleitorrhey.database.entities.PlayStats;
+import com.mussaldynerhey.meuleitorrhey.database.repository.MusicRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Shuffle inteligente: sorteia a próxima música com chance proporcional a um peso calculado
+ * das estatísticas de reprodução (músicas tocadas até o fim sobem, músicas puladas descem e
+ * músicas tocadas há pouco ficam mais raras). O sorteio usa uma tabela de alias (método de
+ * Vose): montar a tabela custa O(n) e é feito em uma thread própria; cada sorteio custa O(1),
+ * qualquer que seja o tamanho da fila. As últimas músicas sorteadas formam uma janela que não
+ * é sorteada de novo. Enquanto a tabela da fila atual não fica pronta, quem chama usa a ordem
+ * uniforme de {@link ShuffleOrder}.
+ */
+public final class SmartShuffle {
+    private static final String TAG = "SmartShuffle";
+    private static final int MAX_WINDOW = 50; // Músicas recentes que não são sorteadas de novo
+    private static final int HISTORY_SIZE = 256; // Sorteios guardados para voltar com "anterior"
+    private static final int MAX_ATTEMPTS = 16; // Sorteios antes de procurar a próxima música fora da janela
+    private static final long STATS_MAX_AGE_MS = 10 * 60 * 1000; // Idade da tabela que dispara uma nova montagem
+    private static final double MIN_WEIGHT = 0.05; // Peso mínimo, para que nenhuma música fique impossível
+    private static final double RECENCY_DECAY_MS = 24 * 60 * 60 * 1000.0; // Tempo para a penalidade de recência cair a 1/e
+
+    private static SmartShuffle instance; // Instância única, compartilhada pelo Model e pelo MusicService
+
+    private final Supplier<CompletableFuture<List<PlayStats>>> statsLoader; // Lê as estatísticas de reprodução
+    private final LongSupplier clock; // Relógio monotônico, em ms, para a idade da tabela
+    private final Executor buildExecutor; // Thread das montagens da tabela
+    private final Random random; // Sorteios
+    private volatile Table table; // Tabela da última fila montada
+    private List<Musica> building; // Fila cuja tabela está sendo montada, ou null
+    private final int[] historyIndexes = new int[HISTORY_SIZE]; // Buffer circular com os índices sorteados
+    private final int[] historySongIds = new int[HISTORY_SIZE]; // IDs das músicas sorteadas
+    private final long[] historySeqs = new long[HISTORY_SIZE]; // Número de cada sorteio
+    private int historyStart = 0; // Posição do sorteio mais antigo no buffer
+    private int historyCount = 0; // Sorteios no buffer
+    private long seq = 0; // Número do último sorteio
+
+    /**
+     * Tabela de alias de uma fila. Imutável, exceto pelos sorteios recentes.
+     */
+    private static final class Table {
+        final List<Musica> queue; // Fila a que a tabela corresponde (comparada por identidade)
+        final float[] prob; // Chance de ficar com a própria coluna
+        final int[] alias; // Coluna usada quando a própria não é escolhida
+        final int[] songIds; // ID de cada música da fila
+        final long[] pickedAt; // Número do sorteio mais recente de cada música (0 se não sorteada)
+        final long builtAt; // Momento da montagem
+
+        Table(List<Musica> queue, float[] prob, int[] alias, int[] songIds, long builtAt) {
+            this.queue = queue;
+            this.prob = prob;
+            this.alias = alias;
+            this.songIds = songIds;
+            this.pickedAt = new long[songIds.length];
+            this.builtAt = builtAt;
+        }
+    }
+
+    private SmartShuffle(MusicRepository musicRepository) {
+        this(musicRepository::getAllPlayStats, SystemClock::elapsedRealtime,
+                Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, TAG)), new Random());
+    }
+
+    /**
+     * Construtor com as dependências explícitas, para os testes na JVM.
+     * @param statsLoader Lê as estatísticas de reprodução.
+     * @param clock Relógio monotônico em milissegundos.
+     * @param buildExecutor Executor das montagens da tabela.
+     * @param random Gerador dos sorteios.
+     */
+    SmartShuffle(Supplier<CompletableFuture<List<PlayStats>>> statsLoader, LongSupplier clock,
+                 Executor buildExecutor, Random random) {
+        this.statsLoader = statsLoader;
+        this.clock = clock;
+        this.buildExecutor = buildExecutor;
+        this.random = random;
+    }
+
+    /**
+     * Obtém a instância única do shuffle inteligente.
+     * @param context Contexto da aplicação.
+     * @return Instância do shuffle inteligente.
+     */
+    public static synchronized SmartShuffle getInstance(Context context) {
+        if (instance == null) {
+            instance = new SmartShuffle(new MusicRepository((Application) context.getApplicationContext()));
+        }
+        return instance;
+    }
+
+    /**
+     * Monta a tabela da fila em segundo plano, se ela ainda não existir ou estiver velha.
+     * @param queue Fila a ser sorteada.
+     */
+    public synchronized void prepare(List<Musica> queue) {
+        Table current = table;
+        boolean fresh = current != null && current.queue == queue
+                && clock.getAsLong() - current.builtAt < STATS_MAX_AGE_MS;
+        if (queue == null || queue.isEmpty() || fresh || building == queue) {
+            return;
+        }
+        building = queue;
+        statsLoader.get()
+                .thenAcceptAsync(stats -> build(queue, stats), buildExecutor)
+                .exceptionally(e -> {
+                    Log.e(TAG, "Erro ao montar a tabela do shuffle inteligente", e);
+                    synchronized (this) {
+                        if (building == queue) {
+                            building = null;
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Sorteia a próxima música. Nunca repete a música atual nem as da janela de recentes.
+     * @param queue Fila em reprodução.
+     * @param currentIndex Índice da música atual.
+     * @return Índice da próxima música, ou -1 se a tabela desta fila ainda não está pronta.
+     */
+    public synchronized int next(List<Musica> queue, int currentIndex) {
+        Table current = table;
+        if (current == null || current.queue != queue) {
+            prepare(queue);
+            return -1;
+        }
+        prepare(queue); // Renova a tabela se as estatísticas estiverem velhas
+        int size = current.prob.length;
+        if (size <= 1) {
+            return currentIndex;
+        }
+        remember(current, currentIndex);
+        int window = Math.min(MAX_WINDOW, size / 2);
+        int pick = sample(current);
+        for (int attempt = 1; attempt < MAX_ATTEMPTS && isRecent(current, pick, window); attempt++) {
+            pick = sample(current);
+        }
+        // A janela tem no máximo metade da fila: procurar adiante termina em até window + 1 passos
+        while (isRecent(current, pick, window)) {
+            pick = (pick + 1) % size;
+        }
+        remember(current, pick);
+        return pick;
+    }
+
+    /**
+     * Volta para a música sorteada antes da atual.
+     * @param queue Fila em reprodução.
+     * @param currentIndex Índice da música atual.
+     * @return Índice da música anterior, ou -1 se não há histórico nesta fila.
+     */
+    public synchronized int previous(List<Musica> queue, int currentIndex) {
+        Table current = table;
+        if (current == null || current.queue != queue || historyCount < 2) {
+            return -1;
+        }
+        int last = (historyStart + historyCount - 1) % HISTORY_SIZE;
+        if (historyIndexes[last] != currentIndex) {
+            return -1;
+        }
+        historyCount--;
+        return historyIndexes[(historyStart + historyCount - 1) % HISTORY_SIZE];
+    }
+
+    /**
+     * Registra um sorteio no histórico, se ele ainda não for o último.
+     */
+    private void remember(Table current, int index) {
+        if (index < 0 || index >= current.songIds.length) {
+            return;
+        }
+        if (historyCount > 0 && historyIndexes[(historyStart + historyCount - 1) % HISTORY_SIZE] == index) {
+            return;
+        }
+        if (historyCount == HISTORY_SIZE) {
+            historyStart = (historyStart + 1) % HISTORY_SIZE;
+            historyCount--;
+        }
+        int slot = (historyStart + historyCount) % HISTORY_SIZE;
+        seq++;
+        historyIndexes[slot] = index;
+        historySongIds[slot] = current.songIds[index];
+        historySeqs[slot] = seq;
+        historyCount++;
+        current.pickedAt[index] = seq;
+    }
+
+    private boolean isRecent(Table current, int index, int window) {
+        long pickedAt = current.pickedAt[index];
+        return pickedAt > 0 && seq - pickedAt < window;
+    }
+
+    /**
+     * Sorteia uma coluna da tabela de alias: O(1).
+     */
+    private int sample(Table current) {
+        int column = random.nextInt(current.prob.length);
+        return random.nextFloat() < current.prob[column] ? column : current.alias[column];
+    }
+
+    /**
+     * Monta a tabela de alias da fila (método de Vose), em O(n), e a instala no lugar da anterior.
+     * Os sorteios recentes continuam valendo na nova tabela, localizados pelo ID da música.
+     */
+    private void build(List<Musica> queue, List<PlayStats> stats) {
+        long start = clock.getAsLong();
+        Map<Integer, PlayStats> statsById = new HashMap<>(stats.size() * 2);
+        for (PlayStats playStats : stats) {
+            statsById.put(playStats.getSongId(), playStats);
+        }
+        int size = queue.size();
+        int[] songIds = new int[size];
+        double[] weights = new double[size];
+        double total = 0;
+        long now = System.currentTimeMillis();
+        int i = 0;
+        for (Musica musica : queue) { // Iterador da fila: O(n), sem uma busca por índice a cada música
+            songIds[i] = musica.getSongId();
+            weights[i] = weight(statsById.get(songIds[i]), now);
+            total += weights[i];
+            i++;
+        }
+
+        float[] prob = new float[size];
+        int[] alias = new int[size];
+        int[] small = new int[size]; // Colunas abaixo da média
+        int[] large = new int[size]; // Colunas na média ou acima
+        int smallCount = 0;
+        int largeCount = 0;
+        double[] scaled = weights; // Os pesos são reescalados no próprio array para ter média 1
+        for (i = 0; i < size; i++) {
+            scaled[i] = scaled[i] * size / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            prob[less] = (float) scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // O que sobra está na média, a menos de erros de arredondamento
+        while (largeCount > 0) {
+            prob[large[--largeCount]] = 1f;
+        }
+        while (smallCount > 0) {
+            prob[small[--smallCount]] = 1f;
+        }
+        long end = clock.getAsLong();
+        install(new Table(queue, prob, alias, songIds, end));
+        Log.d(TAG, "Tabela montada - Músicas: " + size + ", Estatísticas: " + stats.size() +
+                ", Tempo: " + (end - start) + " ms");
+    }
+
+    /**
+     * Instala a nova tabela e leva o histórico para ela. Se a fila não mudou, os índices são os
+     * mesmos; senão, cada música do histórico é procurada pelo ID, e as que saíram da fila são
+     * descartadas.
+     */
+    private void install(Table next) {
+        Map<Integer, Integer> newIndexes = null;
+        synchronized (this) {
+            Table previous = table;
+            if (previous == null || previous.queue != next.queue) {
+                newIndexes = new HashMap<>();
+                for (int h = 0; h < historyCount; h++) {
+                    int songId = historySongIds[(historyStart + h) % HISTORY_SIZE];
+                    if (songId > 0) { // Músicas que não vieram do banco não podem ser localizadas
+                        newIndexes.put(songId, -1);
+                    }
+                }
+            }
+        }
+        if (newIndexes != null && !newIndexes.isEmpty()) {
+            for (int i = 0; i < next.songIds.length; i++) {
+                Integer index = newIndexes.get(next.songIds[i]);
+                if (index != null && index < 0) {
+                    newIndexes.put(next.songIds[i], i);
+                }
+            }
+        }
+        synchronized (this) {
+            int kept = 0;
+            for (int h = 0; h < historyCount; h++) {
+                int slot = (historyStart + h) % HISTORY_SIZE;
+                int index = historyIndexes[slot];
+                if (newIndexes != null) {
+                    Integer found = newIndexes.get(historySongIds[slot]);
+                    index = found != null ? found : -1;
+                }
+                if (index < 0) {
+                    continue; // Saiu da fila
+                }
+                int target = (historyStart + kept) % HISTORY_SIZE;
+                historyIndexes[target] = index;
+                historySongIds[target] = historySongIds[slot];
+                historySeqs[target] = historySeqs[slot];
+                next.pickedAt[index] = historySeqs[slot];
+                kept++;
+            }
+            historyCount = kept;
+            table = next;
+            if (building == next.queue) {
+                building = null;
+            }
+        }
+    }
+
+    /**
+     * Calcula o peso de uma música. Músicas nunca tocadas ficam com peso 0,5; a taxa de
+     * reproduções até o fim (suavizada) multiplica o peso, as reproduções o aumentam devagar
+     * e uma reprodução recente o reduz em até 90%, decaindo ao longo de um dia.
+     * @param stats Estatísticas da música, ou null se ela nunca foi tocada.
+     * @param now Momento atual em milissegundos.
+     * @return Peso positivo.
+     */
+    static double weight(PlayStats stats, long now) {
+        if (stats == null) {
+            return 0.5;
+        }
+        int plays = stats.getPlayCount();
+        int skips = stats.getSkipCount();
+        double completion = (plays + 1.0) / (plays + skips + 2.0);
+        double popularity = 1.0 + 0.5 * Math.log1p(plays);
+        double recency = 1.0;
+        if (stats.getLastPlayedAt() > 0) {
+            double age = Math.max(0, now - stats.getLastPlayedAt());
+            recency = 1.0 - 0.9 * Math.exp(-age / RECENCY_DECAY_MS);
+        }
+        return Math.max(MIN_WEIGHT, completion * popularity * recency);
+    }
+}
@@ -0,0 +1,155 @@
+package Model;
+
+import android.app.Application;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.mussaldynerhey.meuleitorrhey.database.relations.PlayableSongRow;
+import com.mussaldynerhey.meuleitorrhey.database.repository.MusicRepository;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Carrega a biblioteca em páginas, sob demanda, em ordem de título e ID.
+ * Só as páginas mais recentemente exibidas ficam em memória; ao chegar perto do fim (ou do
+ * início) de uma página, a vizinha é carregada antes de aparecer. Cada página é buscada a
+ * partir da última música da página anterior (paginação por chave), então o custo de abrir
+ * a lista não depende do tamanho da biblioteca. Deve ser usado apenas na thread principal.
+ */
+public class SongPager {
+    private static final String TAG = "SongPager";
+    public static final int PAGE_SIZE = 100; // Músicas por página
+    private static final int MAX_PAGES = 6; // Páginas mantidas em memória: a janela visível e as vizinhas
+
+    private final MusicRepository musicRepository; // Repositório para acesso ao banco de dados
+    private final Executor mainExecutor; // Executor da thread principal, onde as páginas são entregues
+    private final Listener listener; // Recebe a contagem e as páginas carregadas
+    private final boolean includeDuplicates; // Se false, as cópias idênticas são omitidas
+    private final LinkedHashMap<Integer, List<Musica>> pages =
+            new LinkedHashMap<Integer, List<Musica>>(MAX_PAGES + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<Musica>> eldest) {
+                    return size() > MAX_PAGES;
+                }
+            }; // Páginas em memória, da menos para a mais recentemente usada
+    private final Map<Integer, PlayableSongRow> pageKeys = new HashMap<>(); // Página → última música da página anterior
+    private final Set<Integer> loading = new HashSet<>(); // Páginas sendo carregadas
+    private int count = 0; // Número total de músicas
+    private int generation = 0; // Incrementado a cada invalidação, para descartar carregamentos antigos
+
+    /**
+     * Interface para ser avisado, na thread principal, quando os dados mudarem.
+     */
+    public interface Listener {
+        void onCountChanged(int count);
+        void onPageLoaded(int start, int size);
+    }
+
+    /**
+     * Construtor do paginador. A contagem é carregada em seguida, junto com a primeira página.
+     * @param context Contexto da aplicação.
+     * @param includeDuplicates Se false, as cópias idênticas são omitidas.
+     * @param listener Listener dos dados carregados.
+     */
+    public SongPager(Context context, boolean includeDuplicates, Listener listener) {
+        this.musicRepository = new MusicRepository((Application) context.getApplicationContext());
+        this.mainExecutor = ContextCompat.getMainExecutor(context);
+        this.includeDuplicates = includeDuplicates;
+        this.listener = listener;
+        invalidate();
+    }
+
+    /**
+     * Obtém o número total de músicas.
+     * @return Número de músicas, ou 0 enquanto a contagem não chegou.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Obtém a música de uma posição, carregando sua página se necessário.
+     * @param position Posição da música.
+     * @return Música, ou null se a página ainda estiver sendo carregada.
+     */
+    public Musica get(int position) {
+        int page = position / PAGE_SIZE;
+        int offset = position % PAGE_SIZE;
+        List<Musica> rows = pages.get(page);
+        if (rows == null) {
+            load(page);
+        }
+        // Pré-carrega a página vizinha antes que ela apareça na tela
+        if (offset >= PAGE_SIZE * 3 / 4) {
+            load(page + 1);
+        } else if (offset < PAGE_SIZE / 4 && page > 0) {
+            load(page - 1);
+        }
+        return rows != null && offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    /**
+     * Descarta as páginas carregadas e recarrega a contagem e a primeira página,
+     * por exemplo depois que um scan alterou a biblioteca.
+     */
+    public void invalidate() {
+        int current = ++generation;
+        pages.clear();
+        pageKeys.clear();
+        loading.clear();
+        musicRepository.getSongCount(includeDuplicates).thenAcceptAsync(total -> {
+            if (current != generation) {
+                return;
+            }
+            count = total;
+            listener.onCountChanged(total);
+            load(0);
+        }, mainExecutor);
+    }
+
+    /**
+     * Busca músicas da biblioteca pelo título ou artista no índice de busca textual, com o mesmo
+     * filtro de cópias das páginas. Só as músicas encontradas são lidas do banco.
+     * @param query Texto digitado na busca.
+     * @param limit Número máximo de resultados.
+     * @return Future concluído na thread principal com as músicas encontradas, em ordem de relevância.
+     */
+    public CompletableFuture<List<Musica>> search(String query, int limit) {
+        return musicRepository.searchPlayableRows(query, includeDuplicates, limit)
+                .thenApplyAsync(Model::rowsToMusicaList, mainExecutor);
+    }
+
+    private void load(int page) {
+        if (page * PAGE_SIZE >= count || pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+        int current = generation;
+        // Sem a chave da página anterior (salto por rolagem rápida), a página é buscada pela posição
+        PlayableSongRow after = pageKeys.get(page);
+        musicRepository.getSongPage(after != null ? after.getTitle() : null, after != null ? after.getId() : 0,
+                page * PAGE_SIZE, includeDuplicates, PAGE_SIZE).whenCompleteAsync((songs, throwable) -> {
+            if (current != generation) {
+                return;
+            }
+            loading.remove(page);
+            if (throwable != null) {
+                Log.e(TAG, "Erro ao carregar a página " + page, throwable);
+                return;
+            }
+            if (!songs.isEmpty() && songs.get(songs.size() - 1).getTitle() != null) {
+                pageKeys.put(page + 1, songs.get(songs.size() - 1));
+            }
+            pages.put(page, Model.rowsToMusicaList(songs));
+            listener.onPageLoaded(page * PAGE_SIZE, songs.size());
+        }, mainExecutor);
+    }
+}
@@ -0,0 +1,213 @@
+package com.mussaldynerhey.meuleitorrhey.utils;
+
+import android.app.Application;
+import android.content.Context;
+import android.util.Log;
+
+import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
+import com.mussaldynerhey.meuleitorrhey.database.repository.MusicRepository;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Detecta músicas com conteúdo idêntico em caminhos diferentes, em etapas:
+ * primeiro agrupa os arquivos por tamanho, depois calcula o hash apenas do início e do fim
+ * dos arquivos de mesmo tamanho (lidos com {@link FileChannel#map}) e só calcula o hash
+ * completo dos que ainda coincidirem. Em cada grupo de cópias, a música de menor ID é mantida
+ * como original e as demais são marcadas na coluna duplicate_of.
+ */
+public class DuplicateDetector {
+    private static final String TAG = "DuplicateDetector";
+    private static final int WINDOW_SIZE = 64 * 1024; // Bytes do início e do fim usados no hash parcial
+    private static final long REGION_SIZE = 16L * 1024 * 1024; // Bytes mapeados por vez no hash completo
+
+    private static DuplicateDetector instance; // Instância única, compartilhada pelo app
+
+    private final MusicRepository musicRepository; // Repositório para acesso ao banco de dados
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(); // Thread da detecção
+    private volatile boolean hasRun = false; // Indica se a detecção já rodou neste processo
+
+    private DuplicateDetector(Context context) {
+        this.musicRepository = new MusicRepository((Application) context.getApplicationContext());
+    }
+
+    /**
+     * Obtém a instância única do detector.
+     * @param context Contexto da aplicação.
+     * @return Instância do detector.
+     */
+    public static synchronized DuplicateDetector getInstance(Context context) {
+        if (instance == null) {
+            instance = new DuplicateDetector(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Verifica se a detecção já rodou desde que o app foi aberto.
+     * @return True se já rodou ao menos uma vez.
+     */
+    public boolean hasRun() {
+        return hasRun;
+    }
+
+    /**
+     * Executa a detecção em segundo plano.
+     * @return Future concluído com true se as marcações de cópia mudaram.
+     */
+    public CompletableFuture<Boolean> start() {
+        return CompletableFuture.supplyAsync(this::detect, executor);
+    }
+
+    private boolean detect() {
+        List<Song> songs = musicRepository.getAllSongs().join();
+        if (songs == null) {
+            return false;
+        }
+
+        // Etapa 1: agrupar por tamanho; só arquivos com o mesmo tamanho podem ser iguais
+        Map<Long, List<Song>> bySize = new HashMap<>();
+        Map<Integer, Integer> previous = new HashMap<>();
+        for (Song song : songs) {
+            if (song.getDuplicateOf() != null) {
+                previous.put(song.getId(), song.getDuplicateOf());
+            }
+            if (song.getResourceId() != 0 || song.getPath() == null || song.getPath().isEmpty()) {
+                continue;
+            }
+            File file = new File(song.getPath());
+            long size = file.length();
+            if (size > 0) {
+                bySize.computeIfAbsent(size, key -> new ArrayList<>()).add(song);
+            }
+        }
+
+        Map<Integer, Integer> duplicateOf = new HashMap<>();
+        int partialHashes = 0;
+        int fullHashes = 0;
+        for (Map.Entry<Long, List<Song>> sizeGroup : bySize.entrySet()) {
+            if (sizeGroup.getValue().size() < 2) {
+                continue;
+            }
+            long size = sizeGroup.getKey();
+
+            // Etapa 2: hash do início e do fim dos arquivos de mesmo tamanho
+            Map<String, List<Song>> byPartial = new HashMap<>();
+            for (Song song : sizeGroup.getValue()) {
+                String hash = hash(song.getPath(), size, true);
+                partialHashes++;
+                if (hash != null) {
+                    byPartial.computeIfAbsent(hash, key -> new ArrayList<>()).add(song);
+                }
+            }
+
+            for (List<Song> partialGroup : byPartial.values()) {
+                if (partialGroup.size() < 2) {
+                    continue;
+                }
+                if (size <= 2L * WINDOW_SIZE) {
+                    // O hash parcial já cobriu o arquivo inteiro
+                    markDuplicates(partialGroup, duplicateOf);
+                    continue;
+                }
+
+                // Etapa 3: hash completo apenas do que ainda coincide
+                Map<String, List<Song>> byFull = new HashMap<>();
+                for (Song song : partialGroup) {
+                    String hash = hash(song.getPath(), size, false);
+                    fullHashes++;
+                    if (hash != null) {
+                        byFull.computeIfAbsent(hash, key -> new ArrayList<>()).add(song);
+                    }
+                }
+                for (List<Song> fullGroup : byFull.values()) {
+                    if (fullGroup.size() > 1) {
+                        markDuplicates(fullGroup, duplicateOf);
+                    }
+                }
+            }
+        }
+
+        hasRun = true;
+        Log.d(TAG, "Detecção concluída - Arquivos: " + songs.size() + ", Hashes parciais: " + partialHashes +
+                ", Hashes completos: " + fullHashes + ", Cópias: " + duplicateOf.size());
+        if (Objects.equals(previous, duplicateOf)) {
+            return false;
+        }
+        try {
+            musicRepository.applyDuplicates(duplicateOf).get();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Erro ao gravar as cópias detectadas", e);
+            return false;
+        }
+    }
+
+    /**
+     * Marca todas as músicas do grupo, exceto a de menor ID, como cópias dela.
+     * @param group Músicas com conteúdo idêntico.
+     * @param duplicateOf Mapa ID da cópia → ID da música original.
+     */
+    private static void markDuplicates(Collection<Song> group, Map<Integer, Integer> duplicateOf) {
+        List<Song> sorted = new ArrayList<>(group);
+        sorted.sort(Comparator.comparingInt(Song::getId));
+        int originalId = sorted.get(0).getId();
+        for (int i = 1; i < sorted.size(); i++) {
+            duplicateOf.put(sorted.get(i).getId(), originalId);
+        }
+    }
+
+    /**
+     * Calcula o hash SHA-1 de um arquivo mapeado em memória.
+     * @param path Caminho do arquivo.
+     * @param size Tamanho do arquivo em bytes.
+     * @param partial Se true, usa apenas as janelas do início e do fim; se false, o arquivo inteiro.
+     * @return Hash em hexadecimal, ou null se o arquivo não puder ser lido.
+     */
+    private static String hash(String path, long size, boolean partial) {
+        try (FileInputStream input = new FileInputStream(path);
+             FileChannel channel = input.getChannel()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            if (partial) {
+                long head = Math.min(WINDOW_SIZE, size);
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, head));
+                if (size > WINDOW_SIZE) {
+                    long tailStart = Math.max(head, size - WINDOW_SIZE);
+                    digest.update(channel.map(FileChannel.MapMode.READ_ONLY, tailStart, size - tailStart));
+                }
+            } else {
+                for (long position = 0; position < size; position += REGION_SIZE) {
+                    long length = Math.min(REGION_SIZE, size - position);
+                    digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                }
+            }
+            return toHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            Log.w(TAG, "Não foi possível calcular o hash de " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,206 @@
+package com.mussaldynerhey.meuleitorrhey.utils;
+
+import androidx.annotation.RequiresApi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Percorre pastas do sistema de arquivos em busca de arquivos de áudio, inclusive os que o
+ * MediaStore não indexa (pastas com .nomedia, arquivos recém-copiados, downloads privados).
+ * Cada diretório é listado com {@link Files#walkFileTree} em profundidade 1 e os subdiretórios
+ * são percorridos em paralelo em um {@link ForkJoinPool}. Não depende de classes do Android,
+ * então pode ser usado em uma JVM comum.
+ */
+@RequiresApi(26)
+public class FileSystemScanner {
+    private static final Set<String> AUDIO_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "mp3", "m4a", "m4b", "aac", "flac", "ogg", "oga", "opus", "wav", "wma", "amr", "mka")); // Extensões aceitas
+    private static final int HEADER_SIZE = 12; // Bytes lidos para identificar o formato de arquivos sem extensão
+
+    private final int parallelism; // Número de threads usadas na varredura
+
+    /**
+     * Representa um arquivo de áudio encontrado na varredura.
+     */
+    public static class AudioFile {
+        public final String path; // Caminho absoluto do arquivo
+        public final long size; // Tamanho do arquivo em bytes
+        public final long lastModified; // Data de modificação em milissegundos
+
+        AudioFile(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Construtor do scanner.
+     * @param parallelism Número de threads usadas na varredura.
+     */
+    public FileSystemScanner(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Percorre as pastas informadas e retorna os arquivos de áudio encontrados.
+     * Links simbólicos e pastas ocultas não são seguidos.
+     * @param roots Pastas raiz da varredura.
+     * @param cancelled Consultado durante a varredura; se retornar true, ela é interrompida.
+     * @return Arquivos de áudio encontrados, sem ordem definida.
+     */
+    public List<AudioFile> scan(Collection<Path> roots, BooleanSupplier cancelled) {
+        Queue<AudioFile> found = new ConcurrentLinkedQueue<>();
+        List<DirectoryTask> tasks = new ArrayList<>();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                tasks.add(new DirectoryTask(root, found, cancelled));
+            }
+        }
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Verifica se um arquivo é de áudio: pela extensão ou, se não tiver extensão, pelos primeiros bytes.
+     * @param file Arquivo a ser verificado.
+     * @return True se o arquivo for de áudio.
+     */
+    public static boolean isAudioFile(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0 && dot < name.length() - 1) {
+            return AUDIO_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+        }
+        return hasAudioHeader(file);
+    }
+
+    /**
+     * Identifica formatos de áudio comuns pelos primeiros bytes do arquivo.
+     * @param file Arquivo a ser verificado.
+     * @return True se o cabeçalho for de um formato de áudio conhecido.
+     */
+    static boolean hasAudioHeader(Path file) {
+        byte[] header = new byte[HEADER_SIZE];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.read(header);
+        } catch (IOException e) {
+            return false;
+        }
+        if (read < 4) {
+            return false;
+        }
+        if (startsWith(header, 0, "ID3") || startsWith(header, 0, "fLaC") || startsWith(header, 0, "OggS")
+                || startsWith(header, 0, "#!AMR")) {
+            return true;
+        }
+        if ((header[0] & 0xFF) == 0xFF && (header[1] & 0xE0) == 0xE0) {
+            return true; // Sincronismo de quadro MPEG (MP3/AAC sem tag ID3)
+        }
+        if (read >= 12 && startsWith(header, 0, "RIFF") && startsWith(header, 8, "WAVE")) {
+            return true;
+        }
+        if (read >= 12 && startsWith(header, 4, "ftyp")
+                && (startsWith(header, 8, "M4A") || startsWith(header, 8, "M4B"))) {
+            return true;
+        }
+        return (header[0] & 0xFF) == 0x30 && (header[1] & 0xFF) == 0x26
+                && (header[2] & 0xFF) == 0xB2 && (header[3] & 0xFF) == 0x75; // ASF (WMA)
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String prefix) {
+        if (offset + prefix.length() > data.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[offset + i] != (byte) prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tarefa que lista um diretório e percorre seus subdiretórios em paralelo.
+     */
+    private static class DirectoryTask extends RecursiveAction {
+        private final Path directory; // Diretório listado por esta tarefa
+        private final Queue<AudioFile> found; // Fila compartilhada com os arquivos encontrados
+        private final BooleanSupplier cancelled; // Indica se a varredura foi cancelada
+
+        DirectoryTask(Path directory, Queue<AudioFile> found, BooleanSupplier cancelled) {
+            this.directory = directory;
+            this.found = found;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try {
+                // Profundidade 1: os subdiretórios chegam em visitFile, sem serem abertos aqui
+                Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isSymbolicLink() || file.getFileName().toString().startsWith(".")) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                        if (attrs.isDirectory()) {
+                            subdirectories.add(new DirectoryTask(file, found, cancelled));
+                        } else if (attrs.isRegularFile() && attrs.size() > 0 && isAudioFile(file)) {
+                            found.add(new AudioFile(file.toAbsolutePath().toString(), attrs.size(),
+                                    attrs.lastModifiedTime().toMillis()));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        return FileVisitResult.CONTINUE; // Arquivos sem permissão de leitura são ignorados
+                    }
+                });
+            } catch (IOException e) {
+                return;
+            }
+            invokeAll(subdirectories);
+        }
+    }
+}
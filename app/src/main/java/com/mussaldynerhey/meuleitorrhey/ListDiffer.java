@@ -0,0 +1,115 @@
+package com.mussaldynerhey.meuleitorrhey;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Mantém a lista exibida por um adaptador e aplica novas versões dela apenas com as diferenças.
+ * A comparação com {@link DiffUtil} roda em segundo plano e o resultado é entregue na thread
+ * principal como inserções, remoções, movimentos e alterações de itens, de modo que só as
+ * linhas que mudaram são vinculadas de novo. Diferente do AsyncListDiffer, a lista continua
+ * mutável na thread principal (para arrastar itens, por exemplo); alterá-la descarta as
+ * comparações pendentes, que estariam calculadas sobre uma lista antiga.
+ * @param <T> Tipo dos itens da lista.
+ */
+class ListDiffer<T> {
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newSingleThreadExecutor(); // Thread das comparações
+
+    private final RecyclerView.Adapter<?> adapter; // Adaptador notificado das diferenças
+    private final DiffUtil.ItemCallback<T> itemCallback; // Define identidade e conteúdo dos itens
+    private final List<T> items; // Lista exibida, alterada apenas na thread principal
+    private final Handler mainHandler = new Handler(Looper.getMainLooper()); // Aplica os resultados na thread principal
+    private int generation = 0; // Incrementado a cada envio ou alteração local, para descartar resultados antigos
+
+    /**
+     * Construtor do comparador.
+     * @param adapter Adaptador que exibe a lista.
+     * @param items Lista exibida pelo adaptador; passa a ser alterada por este comparador.
+     * @param itemCallback Define quando dois itens são o mesmo e quando seu conteúdo é igual.
+     */
+    ListDiffer(RecyclerView.Adapter<?> adapter, List<T> items, DiffUtil.ItemCallback<T> itemCallback) {
+        this.adapter = adapter;
+        this.items = items;
+        this.itemCallback = itemCallback;
+    }
+
+    /**
+     * Obtém a lista exibida.
+     * @return Lista atual do adaptador.
+     */
+    List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Envia uma nova versão da lista. Deve ser chamado na thread principal.
+     * @param newItems Nova lista; não deve ser alterada depois de enviada.
+     */
+    void submit(List<T> newItems) {
+        int submitted = ++generation;
+        if (items.isEmpty() || newItems.isEmpty()) {
+            // Sem o que comparar: uma única inserção ou remoção em bloco
+            int oldSize = items.size();
+            items.clear();
+            items.addAll(newItems);
+            if (oldSize > 0) {
+                adapter.notifyItemRangeRemoved(0, oldSize);
+            }
+            if (!newItems.isEmpty()) {
+                adapter.notifyItemRangeInserted(0, newItems.size());
+            }
+            return;
+        }
+        List<T> oldItems = new ArrayList<>(items);
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                @Override
+                public int getOldListSize() {
+                    return oldItems.size();
+                }
+
+                @Override
+                public int getNewListSize() {
+                    return newItems.size();
+                }
+
+                @Override
+                public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                    return itemCallback.areItemsTheSame(oldItems.get(oldPosition), newItems.get(newPosition));
+                }
+
+                @Override
+                public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                    return itemCallback.areContentsTheSame(oldItems.get(oldPosition), newItems.get(newPosition));
+                }
+            });
+            mainHandler.post(() -> {
+                if (submitted != generation) {
+                    return; // Uma versão mais nova já foi enviada, ou a lista mudou localmente
+                }
+                items.clear();
+                items.addAll(newItems);
+                result.dispatchUpdatesTo(adapter);
+            });
+        });
+    }
+
+    /**
+     * Move um item localmente, sem esperar o banco. Descarta comparações pendentes.
+     * @param from Posição atual do item.
+     * @param to Nova posição do item.
+     */
+    void move(int from, int to) {
+        generation++;
+        items.add(to, items.remove(from));
+        adapter.notifyItemMoved(from, to);
+    }
+}
@@ -43,7 +43,9 @@ import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
 import java.util.List;
 
+import Model.LibraryChanges;
 import Model.Musica;
+import Model.PlaybackQueue;
 import presenter.Presenter;
 import view.Contrato;
 
@@ -114,7 +116,44 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
     public void showFilteredSongs(List<Musica> musicas) { // Método showFilteredSongs atualiza a lista de músicas filtradas.
         if (songAdapter != null) {
             songAdapter.updateSongs(musicas);
+            songAdapter.notifyDataSetChanged();
+            updateSearchResultsText(musicas.size());
+        }
+    }
+
+    @Override
+    public void onLibraryChanged(LibraryChanges changes, boolean appendAdded) { // Método onLibraryChanged atualiza só as linhas afetadas.
+        if (todasMusicas == null) {
+            return;
+        }
+        // Só notifica o adaptador quando ele exibe a lista completa (durante uma busca, a lista exibida é outra)
+        boolean adapterShowsList = songAdapter != null && songAdapter.getSongs() == todasMusicas;
+        changes.applyTo(todasMusicas, appendAdded, !adapterShowsList ? null : new LibraryChanges.Callback() {
+            @Override
+            public void onChanged(int position) {
+                songAdapter.notifyItemChanged(position);
+            }
+
+            @Override
+            public void onRemoved(int position) {
+                songAdapter.notifyItemRemoved(position);
+            }
+
+            @Override
+            public void onInserted(int position, int count) {
+                songAdapter.notifyItemRangeInserted(position, count);
+            }
+        });
+        if (musicaAtual != null) {
+            // A música atual pode ter sido substituída por uma versão com metadados novos
+            for (Musica musica : changes.getChanged()) {
+                if (musicaAtual.isSameTrack(musica)) {
+                    musicaAtual = musica;
+                    break;
+                }
+            }
         }
+        Log.d(TAG, "Biblioteca atualizada - Total: " + todasMusicas.size());
     }
 
     @SuppressLint("UnspecifiedRegisterReceiverFlag")
@@ -187,27 +226,12 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
                 result -> {
                     if (result.getResultCode() == RESULT_OK && result.getData() != null) {
                         Intent data = result.getData();
-                        ArrayList<com.mussaldynerhey.meuleitorrhey.database.entities.Song> playlistSongs =
-                                (ArrayList<com.mussaldynerhey.meuleitorrhey.database.entities.Song>) data.getSerializableExtra("SONG_LIST_RESULT");
-                        int songIndex = data.getIntExtra("SONG_INDEX_RESULT", -1);
-
-                        if (playlistSongs != null && !playlistSongs.isEmpty() && songIndex != -1) {
-                            Log.d(TAG, "Recebido da playlist: " + playlistSongs.size() + " músicas, tocando a de índice " + songIndex);
-
-                            List<Musica> musicasParaTocar = new ArrayList<>();
-                            for (com.mussaldynerhey.meuleitorrhey.database.entities.Song song : playlistSongs) {
-                                musicasParaTocar.add(new Musica(
-                                        song.getTitle(),
-                                        song.getArtist(),
-                                        song.getPath(),
-                                        song.getDuration(),
-                                        song.getAlbumArtPath()
-                                ));
-                            }
-
-                            if (presenter != null) {
-                                presenter.playNewList(musicasParaTocar, songIndex);
-                            }
+                        int playlistId = data.getIntExtra(PlaylistDetailsActivity.RESULT_PLAYLIST_ID, -1);
+                        int songId = data.getIntExtra(PlaylistDetailsActivity.RESULT_SONG_ID, -1);
+
+                        if (playlistId != -1 && songId != -1 && presenter != null) {
+                            Log.d(TAG, "Recebido da playlist " + playlistId + ": tocando a partir da música " + songId);
+                            presenter.playPlaylistFrom(playlistId, songId); // A fila é carregada do banco pelo Presenter
                         }
                     }
                 }
@@ -238,6 +262,12 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
         });
 
         shuffleBtn.setOnClickListener(v -> presenter.toggleShuffle()); // Botão shuffleBtn alterna o modo aleatório.
+        shuffleBtn.setOnLongClickListener(v -> { // Toque longo no shuffleBtn alterna o shuffle inteligente.
+            boolean inteligente = presenter.toggleSmartShuffle();
+            Toast.makeText(this, inteligente ? "Shuffle inteligente ativado" : "Shuffle inteligente desativado",
+                    Toast.LENGTH_SHORT).show();
+            return true;
+        });
         repeatBtn.setOnClickListener(v -> presenter.toggleRepeat()); // Botão repeatBtn alterna o modo repetição.
 
         seekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() { // Configura a barra de progresso.
@@ -380,10 +410,10 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
                 boolean isActuallyPlaying = serviceIsPlaying || extraIsPlaying;
                 MainActivity.this.isPlaying = isActuallyPlaying;
                 int currentSongIndex = intent.getIntExtra("current_song_index", -1);
-                if (currentSongIndex != -1 && todasMusicas != null && currentSongIndex < todasMusicas.size()) {
-                    musicaAtual = todasMusicas.get(currentSongIndex);
-                    Log.d(TAG, "Música atual atualizada: " +
-                            (musicaAtual != null ? musicaAtual.getTitulo() : "NULL"));
+                Musica tocando = locateCurrentSong(currentSongIndex, intent.getIntExtra(MusicService.EXTRA_SONG_ID, 0));
+                if (tocando != null) {
+                    musicaAtual = tocando;
+                    Log.d(TAG, "Música atual atualizada: " + musicaAtual.getTitulo());
                 }
                 runOnUiThread(() -> {
                     if (isActuallyPlaying) {
@@ -413,6 +443,10 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
     @Override
     public boolean onCreateOptionsMenu(Menu menu) { // Método onCreateOptionsMenu cria o menu da toolbar.
         getMenuInflater().inflate(R.menu.main_menu, menu);
+        MenuItem hideDuplicatesItem = menu.findItem(R.id.menu_hide_duplicates);
+        if (hideDuplicatesItem != null) {
+            hideDuplicatesItem.setChecked(presenter != null && presenter.isHideDuplicates());
+        }
         return true;
     }
 
@@ -429,10 +463,46 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
             Intent playlistIntent = new Intent(this, PlaylistActivity.class);
             playlistActivityLauncher.launch(playlistIntent);
             return true;
+        } else if (id == R.id.menu_hide_duplicates) {
+            if (presenter != null) {
+                item.setChecked(!item.isChecked());
+                presenter.setHideDuplicates(item.isChecked());
+            }
+            return true;
+        } else if (id == R.id.menu_add_results_to_playlist) {
+            showAddSearchResultsToPlaylistDialog();
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    private void showAddSearchResultsToPlaylistDialog() { // Método showAddSearchResultsToPlaylistDialog adiciona os resultados da busca a uma playlist escolhida.
+        if (presenter == null || !isSearchVisible || !presenter.hasSearchResults()) {
+            Toast.makeText(this, "Faça uma busca para adicionar os resultados a uma playlist", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        presenter.getPlaylists().thenAccept(playlists -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            if (playlists.isEmpty()) {
+                Toast.makeText(this, "Crie uma playlist primeiro", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            String[] names = new String[playlists.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = playlists.get(i).getName();
+            }
+            new androidx.appcompat.app.AlertDialog.Builder(this)
+                    .setTitle("Adicionar Resultados à Playlist")
+                    .setItems(names, (dialog, which) -> presenter.addSearchResultsToPlaylist(playlists.get(which).getId())
+                            .thenAccept(added -> Toast.makeText(this, added == 1 ? "1 música adicionada"
+                                    : added + " músicas adicionadas", Toast.LENGTH_SHORT).show()))
+                    .setNegativeButton("CANCELAR", null)
+                    .show();
+        });
+    }
+
     private void showMusicRecognitionDialog() { // Método showMusicRecognitionDialog exibe o diálogo de reconhecimento.
         androidx.appcompat.app.AlertDialog.Builder builder = new androidx.appcompat.app.AlertDialog.Builder(this);
         builder.setTitle("Reconhecimento de Música");
@@ -834,6 +904,10 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
         } else if (requestCode == MUSIC_LIST_REQUEST_CODE) {
             if (resultCode == RESULT_OK && data != null) {
                 int selectedSongIndex = data.getIntExtra("selected_song_index", -1);
+                int selectedSongId = data.getIntExtra("selected_song_id", -1);
+                if (selectedSongId > 0 && presenter != null) {
+                    selectedSongIndex = presenter.indexOfSongId(selectedSongId, selectedSongIndex); // Resultado de busca
+                }
                 if (selectedSongIndex != -1 && presenter != null) {
                     Log.d(TAG, "Música selecionada da lista: " + selectedSongIndex);
                     presenter.playSpecificSong(selectedSongIndex);
@@ -878,6 +952,7 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
             presenter = new Presenter(this, this);
         }
         presenter.forceReloadSongs();
+        presenter.startObservingLibrary();
         Toast.makeText(this, "Aplicativo pronto para uso!", Toast.LENGTH_SHORT).show();
     }
 
@@ -917,6 +992,9 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
         Log.d(TAG, "MainActivity sendo DESTRUÍDA - Limpando todos os recursos");
         try {
             stopMusicIdentification();
+            if (presenter != null) {
+                presenter.release();
+            }
             identificationTimeoutHandler.removeCallbacksAndMessages(null);
             if (uiHandler != null) {
                 uiHandler.removeCallbacksAndMessages(null);
@@ -1018,33 +1096,8 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
 
     private void filterSongs(String query) { // Método filterSongs filtra músicas com base na query.
         Log.d(TAG, "Filtrando músicas com query: " + query);
-        if (todasMusicas == null || todasMusicas.isEmpty()) {
-            Log.d(TAG, "Lista de músicas vazia");
-            return;
-        }
-        List<Musica> filteredSongs = new ArrayList<>();
-        if (query == null || query.trim().isEmpty()) {
-            filteredSongs.addAll(todasMusicas);
-            Log.d(TAG, "Query vazia - mostrando todas as " + todasMusicas.size() + " músicas");
-        } else {
-            String lowerCaseQuery = query.toLowerCase().trim();
-            Log.d(TAG, "Buscando por: " + lowerCaseQuery);
-            for (Musica musica : todasMusicas) {
-                String titulo = musica.getTitulo() != null ? musica.getTitulo().toLowerCase() : "";
-                String artista = musica.getArtista() != null ? musica.getArtista().toLowerCase() : "";
-                if (titulo.contains(lowerCaseQuery) || artista.contains(lowerCaseQuery)) {
-                    filteredSongs.add(musica);
-                    Log.d(TAG, "Música encontrada: " + musica.getTitulo() + " - " + musica.getArtista());
-                }
-            }
-            Log.d(TAG, "Encontradas " + filteredSongs.size() + " músicas");
-        }
-        if (songAdapter != null) {
-            songAdapter.updateSongs(filteredSongs);
-            songAdapter.notifyDataSetChanged();
-            updateSearchResultsText(filteredSongs.size());
-        } else {
-            Log.e(TAG, "SongAdapter é null!");
+        if (presenter != null) {
+            presenter.filterSongs(query); // O resultado chega em showFilteredSongs
         }
     }
 
@@ -1101,6 +1154,15 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
             } else {
                 pathTextView.setText("Resource ID: " + musicaAtual.getNumeroFaixa());
             }
+            if (presenter != null && musicaAtual.getSongId() > 0) {
+                // As listas guardam só o necessário para tocar; as tags são lidas do banco agora
+                presenter.getSongDetails(musicaAtual).thenAccept(song -> {
+                    String tags = describeTags(song);
+                    if (!tags.isEmpty()) {
+                        typeTextView.setText(typeTextView.getText() + "\n" + tags);
+                    }
+                });
+            }
             if (seekBar.getMax() > 0) {
                 int duration = seekBar.getMax();
                 durationTextView.setText(formatTime(duration) + " (" + duration + " ms)");
@@ -1140,6 +1202,26 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
         Log.d(TAG, "Diálogo de detalhes da música exibido");
     }
 
+    private static String describeTags(com.mussaldynerhey.meuleitorrhey.database.entities.Song song) { // Método describeTags junta álbum, ano, gênero e taxa de bits da música.
+        if (song == null) {
+            return "";
+        }
+        List<String> parts = new ArrayList<>();
+        if (song.getAlbum() != null) {
+            parts.add(song.getAlbum());
+        }
+        if (song.getYear() > 0) {
+            parts.add(String.valueOf(song.getYear()));
+        }
+        if (song.getGenre() != null) {
+            parts.add(song.getGenre());
+        }
+        if (song.getBitrate() > 0) {
+            parts.add(song.getBitrate() / 1000 + " kbps");
+        }
+        return String.join(" • ", parts);
+    }
+
     private void setupRotationAnimation() { // Método setupRotationAnimation configura a animação de rotação do álbum.
         rotateAnimation = new RotateAnimation(
                 0f, 360f,
@@ -1180,7 +1262,12 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
     private void openMusicListActivity() { // Método openMusicListActivity abre a atividade da lista de músicas.
         if (songAdapter != null && songAdapter.getSongs() != null) {
             Intent intent = new Intent(this, MusicListActivity.class);
-            intent.putExtra("all_musicas", new ArrayList<>(songAdapter.getSongs()));
+            if (presenter != null && presenter.isShowingLibrary() && songAdapter.getSongs() == todasMusicas) {
+                // A biblioteca inteira é lida em páginas direto do banco, sem copiar a lista para o Intent
+                intent.putExtra("paged_library", true);
+            } else {
+                intent.putExtra("all_musicas", new ArrayList<>(songAdapter.getSongs()));
+            }
             startActivityForResult(intent, MUSIC_LIST_REQUEST_CODE);
             overridePendingTransition(R.anim.slide_in_right, R.anim.slide_out_left);
         } else {
@@ -1195,6 +1282,29 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
         return String.format("%d:%02d", minutes, seconds);
     }
 
+    private void showQueueOptionsDialog(int position, Musica song) { // Método showQueueOptionsDialog oferece tocar a música a seguir, adicioná-la à fila ou removê-la da fila.
+        String[] options = {"Tocar a seguir", "Adicionar à fila", "Remover da fila"};
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle(song.getTitulo())
+                .setItems(options, (dialog, which) -> {
+                    if (presenter == null) {
+                        return;
+                    }
+                    if (which == 0) {
+                        presenter.playNext(song);
+                        Toast.makeText(this, "Tocará a seguir: " + song.getTitulo(), Toast.LENGTH_SHORT).show();
+                    } else if (which == 1) {
+                        presenter.enqueue(song);
+                        Toast.makeText(this, "Adicionada à fila: " + song.getTitulo(), Toast.LENGTH_SHORT).show();
+                    } else if (presenter.removeFromQueue(song, position)) {
+                        Toast.makeText(this, "Removida da fila: " + song.getTitulo(), Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "A música está tocando ou não está na fila", Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .show();
+    }
+
     @Override
     public void setSongList(List<Musica> songs) { // Método setSongList define a lista de músicas.
         if (songs != null) {
@@ -1207,16 +1317,17 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
         } else {
             this.todasMusicas = new ArrayList<>();
         }
-        songAdapter = new MusicListAdapter(songs, position -> {
+        songAdapter = new MusicListAdapter(todasMusicas, position -> {
             if (presenter != null) {
                 debugSongInfo(position);
                 presenter.playSpecificSong(position);
-                if (songs != null && position >= 0 && position < songs.size()) {
-                    musicaAtual = songs.get(position);
+                if (position >= 0 && position < todasMusicas.size()) {
+                    musicaAtual = todasMusicas.get(position);
                     Log.d(TAG, "Música atual atualizada no clique: " + musicaAtual.getTitulo());
                 }
             }
         });
+        songAdapter.setOnSongLongClickListener(this::showQueueOptionsDialog);
         songListRecyclerView.setAdapter(songAdapter);
         if (songs != null) {
             int deviceSongs = 0;
@@ -1374,6 +1485,20 @@ public class MainActivity extends AppCompatActivity implements Contrato.View {
         void onSongClick(int position);
     }
 
+    private Musica locateCurrentSong(int songIndex, int songId) { // Método locateCurrentSong localiza a música tocada pelo serviço.
+        // O índice é da fila do serviço, que pode ter sido editada; o ID localiza a música em O(1)
+        PlaybackQueue fila = PlaybackQueue.published();
+        int posicao = songId > 0 ? fila.positionOfSongId(songId, songIndex) : -1;
+        if (posicao >= 0) {
+            return fila.get(posicao);
+        }
+        if (songIndex >= 0 && todasMusicas != null && songIndex < todasMusicas.size()) {
+            Musica musica = todasMusicas.get(songIndex); // Fila que não foi publicada: confere o ID no índice
+            return songId <= 0 || musica.getSongId() == songId ? musica : null;
+        }
+        return null;
+    }
+
     private void handleProgressUpdate(Intent intent) { // Método handleProgressUpdate atualiza a barra de progresso com base em intenções.
         Log.d(TAG, "handleProgressUpdate() CHAMADO");
         int progress = intent.getIntExtra(MusicService.EXTRA_PROGRESS, -1);
@@ -0,0 +1,116 @@
+package com.mussaldynerhey.meuleitorrhey.utils;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Observa mudanças na coleção de áudio do MediaStore e dispara uma sincronização incremental.
+ * Rajadas de notificações (por exemplo, ao copiar um álbum inteiro) são agrupadas em uma janela
+ * de debounce, resultando em um único scan.
+ */
+public class MediaStoreObserver extends ContentObserver {
+    private static final String TAG = "MediaStoreObserver";
+    private static final long DEBOUNCE_MS = 1000; // Tempo de silêncio esperado antes de sincronizar
+    private static final long MAX_DELAY_MS = 10000; // Atraso máximo desde a primeira notificação da rajada
+
+    private final ContentResolver contentResolver; // Resolver onde o observer é registrado
+    private final MusicScanner musicScanner; // Scanner usado na sincronização incremental
+    private final OnSyncListener listener; // Listener notificado na thread principal
+    private final Handler mainHandler; // Handler da thread principal para o debounce
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor(); // Thread do scan
+    private long firstChangeTime = 0; // Momento da primeira notificação ainda não sincronizada
+    private boolean registered = false; // Indica se o observer está registrado
+
+    /**
+     * Interface para receber o resultado de cada sincronização disparada pelo observer.
+     */
+    public interface OnSyncListener {
+        void onLibrarySynced(MusicScanner.SyncResult result);
+    }
+
+    /**
+     * Construtor do observer.
+     * @param contentResolver Resolver onde o observer será registrado.
+     * @param musicScanner Scanner usado na sincronização incremental.
+     * @param listener Listener notificado na thread principal quando algo mudar no banco.
+     */
+    public MediaStoreObserver(ContentResolver contentResolver, MusicScanner musicScanner, OnSyncListener listener) {
+        super(new Handler(Looper.getMainLooper()));
+        this.contentResolver = contentResolver;
+        this.musicScanner = musicScanner;
+        this.listener = listener;
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    private final Runnable syncRunnable = () -> {
+        firstChangeTime = 0;
+        syncExecutor.execute(() -> {
+            MusicScanner.SyncResult result;
+            try {
+                result = musicScanner.syncNow();
+            } catch (Exception e) {
+                // Uma leitura que falha (banco cheio ou fechado) não pode derrubar o processo;
+                // a próxima notificação tenta de novo
+                Log.e(TAG, "Erro durante a sincronização do observer", e);
+                return;
+            }
+            if (!result.isEmpty()) {
+                mainHandler.post(() -> {
+                    if (registered) {
+                        listener.onLibrarySynced(result);
+                    }
+                });
+            }
+        });
+    };
+
+    /**
+     * Registra o observer na coleção de áudio externa.
+     */
+    public void register() {
+        if (!registered) {
+            contentResolver.registerContentObserver(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, true, this);
+            registered = true;
+            Log.d(TAG, "Observer do MediaStore registrado");
+        }
+    }
+
+    /**
+     * Remove o registro do observer e descarta sincronizações pendentes.
+     */
+    public void unregister() {
+        if (registered) {
+            contentResolver.unregisterContentObserver(this);
+            mainHandler.removeCallbacks(syncRunnable);
+            syncExecutor.shutdown();
+            registered = false;
+            Log.d(TAG, "Observer do MediaStore removido");
+        }
+    }
+
+    /**
+     * Recebe cada notificação do MediaStore e reagenda a sincronização.
+     * @param selfChange Indica se a mudança foi causada pelo próprio app.
+     * @param uri URI alterada.
+     */
+    @Override
+    public void onChange(boolean selfChange, Uri uri) {
+        long now = SystemClock.uptimeMillis();
+        if (firstChangeTime == 0) {
+            firstChangeTime = now;
+        }
+        mainHandler.removeCallbacks(syncRunnable);
+        // Reagenda a cada notificação, mas sem ultrapassar o atraso máximo da rajada
+        long delay = Math.min(DEBOUNCE_MS, Math.max(0, firstChangeTime + MAX_DELAY_MS - now));
+        mainHandler.postDelayed(syncRunnable, delay);
+    }
+}
@@ -0,0 +1,210 @@
+package com.mussaldynerhey.meuleitorrhey.utils;
+
+import android.app.Application;
+import android.content.Context;
+import android.media.MediaMetadataRetriever;
+import android.os.Process;
+import android.util.Log;
+
+import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
+import com.mussaldynerhey.meuleitorrhey.database.entities.SongMetadata;
+import com.mussaldynerhey.meuleitorrhey.database.repository.MusicRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lê em segundo plano as tags dos arquivos de música (álbum, faixa, ano, gênero, taxa de bits,
+ * capa embutida) e completa título, artista e duração quando o MediaStore não os fornece.
+ * As músicas são processadas em lotes por um pool de threads do tamanho do número de núcleos,
+ * e cada lote é gravado em uma única transação. Como as músicas processadas ficam marcadas no
+ * banco, um enriquecimento interrompido continua de onde parou. Enquanto o MusicService está
+ * tocando, o trabalho é reduzido a uma thread, com pausas entre os lotes.
+ */
+public class MetadataEnricher {
+    private static final String TAG = "MetadataEnricher";
+    private static final int BATCH_SIZE = 64; // Músicas lidas e gravadas por lote
+    private static final int POOL_SIZE = Math.max(1, Runtime.getRuntime().availableProcessors()); // Threads de leitura
+    private static final long THROTTLE_PAUSE_MS = 500; // Pausa entre lotes enquanto há música tocando
+
+    private static MetadataEnricher instance; // Instância única, compartilhada pelo app
+    private static volatile boolean playbackActive = false; // Indica se o MusicService está tocando
+
+    private final MusicRepository musicRepository; // Repositório para acesso ao banco de dados
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(); // Busca e grava os lotes
+    private final ExecutorService workers; // Lê as tags dos arquivos de cada lote
+    private final AtomicBoolean queued = new AtomicBoolean(false); // Indica se já há uma execução agendada
+    private final ThreadLocal<MediaMetadataRetriever> retrievers =
+            ThreadLocal.withInitial(MediaMetadataRetriever::new); // Um retriever reaproveitado por thread
+
+    private MetadataEnricher(Context context) {
+        this.musicRepository = new MusicRepository((Application) context.getApplicationContext());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(POOL_SIZE, runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "MetadataEnricher-" + threadCount.incrementAndGet()));
+    }
+
+    /**
+     * Obtém a instância única do enriquecedor.
+     * @param context Contexto da aplicação.
+     * @return Instância do enriquecedor.
+     */
+    public static synchronized MetadataEnricher getInstance(Context context) {
+        if (instance == null) {
+            instance = new MetadataEnricher(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Informa se há música tocando, para que o enriquecimento reduza o uso de CPU e disco.
+     * @param active True enquanto o MusicService estiver tocando.
+     */
+    public static void setPlaybackActive(boolean active) {
+        playbackActive = active;
+    }
+
+    /**
+     * Processa todas as músicas cujas tags ainda não foram lidas.
+     * Se já houver uma execução em andamento, uma nova é agendada para depois dela.
+     */
+    public void start() {
+        if (queued.compareAndSet(false, true)) {
+            coordinator.execute(() -> {
+                queued.set(false);
+                enrichPending();
+            });
+        }
+    }
+
+    private void enrichPending() {
+        int total = 0;
+        try {
+            while (true) {
+                List<Song> batch = musicRepository.getSongsPendingEnrichment(BATCH_SIZE).get();
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                musicRepository.updateSongMetadata(enrichBatch(batch)).get();
+                total += batch.size();
+                if (playbackActive) {
+                    Thread.sleep(THROTTLE_PAUSE_MS);
+                }
+            }
+            if (total > 0) {
+                Log.d(TAG, "Enriquecimento concluído - " + total + " músicas processadas");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.e(TAG, "Erro no enriquecimento - " + total + " músicas processadas antes do erro", e);
+        }
+    }
+
+    /**
+     * Lê as tags de um lote, dividindo-o entre as threads disponíveis.
+     * @param batch Músicas do lote.
+     * @return Metadados lidos, um por música.
+     */
+    private List<SongMetadata> enrichBatch(List<Song> batch) throws Exception {
+        int parallelism = playbackActive ? 1 : POOL_SIZE;
+        int partSize = (batch.size() + parallelism - 1) / parallelism;
+        List<Callable<List<SongMetadata>>> tasks = new ArrayList<>();
+        for (int start = 0; start < batch.size(); start += partSize) {
+            List<Song> part = batch.subList(start, Math.min(start + partSize, batch.size()));
+            tasks.add(() -> {
+                List<SongMetadata> results = new ArrayList<>(part.size());
+                for (Song song : part) {
+                    results.add(enrich(song));
+                }
+                return results;
+            });
+        }
+        List<SongMetadata> metadata = new ArrayList<>(batch.size());
+        for (Future<List<SongMetadata>> future : workers.invokeAll(tasks)) {
+            metadata.addAll(future.get());
+        }
+        return metadata;
+    }
+
+    /**
+     * Lê as tags de um arquivo. Músicas cujo arquivo não pode ser lido também são marcadas,
+     * para não serem tentadas de novo a cada execução.
+     * @param song Música a ser enriquecida.
+     * @return Metadados da música.
+     */
+    private SongMetadata enrich(Song song) {
+        SongMetadata metadata = new SongMetadata(song);
+        metadata.enrichedAt = System.currentTimeMillis();
+        MediaMetadataRetriever retriever = retrievers.get();
+        try {
+            retriever.setDataSource(song.getPath());
+
+            String title = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_TITLE);
+            if (!isBlank(title) && MusicScanner.isPlaceholderTitle(song.getTitle(), song.getPath())) {
+                metadata.title = title.trim();
+            }
+            String artist = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_ARTIST);
+            if (!isBlank(artist) && MusicScanner.UNKNOWN_ARTIST.equals(song.getArtist())) {
+                metadata.artist = artist.trim();
+            }
+            if (song.getDuration() <= 0) {
+                metadata.duration = parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION));
+            }
+
+            String album = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_ALBUM);
+            metadata.album = isBlank(album) ? null : album.trim();
+            String genre = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_GENRE);
+            metadata.genre = isBlank(genre) ? null : genre.trim();
+            metadata.trackNumber = parseLeadingInt(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_CD_TRACK_NUMBER));
+            metadata.year = parseLeadingInt(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_YEAR));
+            metadata.bitrate = (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_BITRATE));
+            metadata.hasEmbeddedArt = retriever.getEmbeddedPicture() != null;
+        } catch (Exception e) {
+            Log.w(TAG, "Não foi possível ler as tags de " + song.getPath() + ": " + e.getMessage());
+        }
+        return metadata;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static long parseLong(String value) {
+        if (isBlank(value)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Lê o número inicial de um texto, como em "3/12" (faixa) ou "2004-05-01" (ano).
+     * @param value Texto a ser lido.
+     * @return Número inicial, ou 0 se não houver.
+     */
+    private static int parseLeadingInt(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int result = 0;
+        int i = 0;
+        String trimmed = value.trim();
+        while (i < trimmed.length() && Character.isDigit(trimmed.charAt(i)) && i < 9) {
+            result = result * 10 + (trimmed.charAt(i) - '0');
+            i++;
+        }
+        return result;
+    }
+}
@@ -22,18 +22,24 @@ import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
 import java.util.List;
 
+import Model.LibraryChanges;
+import Model.Model;
 import Model.Musica;
+import Model.SongPager;
 import presenter.Presenter;
 import view.Contrato;
 
 public class MusicListActivity extends AppCompatActivity implements Contrato.View {
     private static final String TAG = "MusicListActivity";
+    private static final int SEARCH_LIMIT = 1000; // Máximo de resultados exibidos por busca na lista paginada
 
     private RecyclerView musicListRecyclerView;
     private MusicListAdapter musicListAdapter;
     private List<Musica> allMusicas;
     private List<Musica> todasMusicas; // Lista completa para busca
-    private Presenter presenter;
+    private Presenter presenter; // Só existe quando a lista veio do Intent; a lista paginada não carrega a biblioteca
+    private SongPager songPager; // Paginador da biblioteca, quando a lista exibida é a biblioteca inteira
+    private int searchGeneration = 0; // Incrementado a cada busca, para descartar resultados antigos
 
     // Sistema de busca
     private androidx.appcompat.widget.SearchView searchView;
@@ -77,11 +83,13 @@ public class MusicListActivity extends AppCompatActivity implements Contrato.Vie
         musicListRecyclerView = findViewById(R.id.music_list);
         musicListRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
-        // Inicializar presenter
-        presenter = new Presenter(this, this);
-
-        // Carregar lista de músicas do Intent ou do Presenter
-        if (getIntent().hasExtra("all_musicas")) {
+        // Carregar lista de músicas do banco em páginas, ou do Intent com o Presenter para a busca.
+        // A lista paginada não cria o Presenter, que carregaria a biblioteca inteira e iniciaria um scan:
+        // ela só lê páginas e busca no índice textual
+        if (getIntent().getBooleanExtra("paged_library", false)) {
+            showPagedLibrary();
+        } else if (getIntent().hasExtra("all_musicas")) {
+            presenter = new Presenter(this, this);
             allMusicas = (List<Musica>) getIntent().getSerializableExtra("all_musicas");
             todasMusicas = new ArrayList<>(allMusicas);
             setMusicList(allMusicas);
@@ -134,18 +142,56 @@ public class MusicListActivity extends AppCompatActivity implements Contrato.Vie
     public void setSongList(List<Musica> songs) {
         this.allMusicas = songs;
         this.todasMusicas = new ArrayList<>(songs);
+        if (songPager != null) {
+            songPager.invalidate(); // A biblioteca foi recarregada; as páginas são buscadas de novo
+            return;
+        }
         setMusicList(songs);
     }
 
-    private void setMusicList(List<Musica> songs) {
-        musicListAdapter = new MusicListAdapter(songs, position -> {
-            Log.d(TAG, "Música selecionada: " + position);
-            Intent resultIntent = new Intent();
-            resultIntent.putExtra("selected_song_index", position);
-            setResult(RESULT_OK, resultIntent);
-            finish();
-            overridePendingTransition(R.anim.slide_in_left, R.anim.slide_out_right);
+    /**
+     * Exibe a biblioteca inteira lida em páginas do banco: só as páginas visíveis e as vizinhas
+     * ficam em memória, e abrir a lista custa o mesmo com mil ou cem mil músicas.
+     */
+    private void showPagedLibrary() {
+        songPager = new SongPager(this, !Model.isHideDuplicates(this), new SongPager.Listener() {
+            @Override
+            public void onCountChanged(int count) {
+                if (musicListAdapter.getSongs() == null) {
+                    musicListAdapter.notifyDataSetChanged();
+                }
+            }
+
+            @Override
+            public void onPageLoaded(int start, int size) {
+                if (musicListAdapter.getSongs() == null) {
+                    musicListAdapter.notifyItemRangeChanged(start, size);
+                }
+            }
         });
+        musicListAdapter = new MusicListAdapter(songPager, this::onSongSelected);
+        musicListRecyclerView.setAdapter(musicListAdapter);
+    }
+
+    private void onSongSelected(int position) {
+        Log.d(TAG, "Música selecionada: " + position);
+        // Nos resultados da busca a posição não é a da biblioteca; o ID localiza a música na fila
+        List<Musica> shown = musicListAdapter.getSongs();
+        Musica selected = shown != null
+                ? (position < shown.size() ? shown.get(position) : null)
+                : songPager.get(position);
+        Intent resultIntent = new Intent();
+        resultIntent.putExtra("selected_song_index", position);
+        if (selected != null && selected.getSongId() > 0) {
+            resultIntent.putExtra("selected_song_id", selected.getSongId());
+        }
+        setResult(RESULT_OK, resultIntent);
+        finish();
+        overridePendingTransition(R.anim.slide_in_left, R.anim.slide_out_right);
+    }
+
+    private void setMusicList(List<Musica> songs) {
+        musicListAdapter = new MusicListAdapter(songs, this::onSongSelected);
         musicListRecyclerView.setAdapter(musicListAdapter);
     }
 
@@ -210,7 +256,10 @@ public class MusicListActivity extends AppCompatActivity implements Contrato.Vie
         if (title != null) {
             title.setVisibility(View.VISIBLE);
         }
-        if (musicListAdapter != null && todasMusicas != null) {
+        if (musicListAdapter != null && songPager != null) {
+            searchGeneration++; // Descarta uma busca ainda em andamento
+            musicListAdapter.showPager(songPager);
+        } else if (musicListAdapter != null && todasMusicas != null) {
             musicListAdapter.updateSongs(todasMusicas);
             musicListAdapter.notifyDataSetChanged();
         }
@@ -220,33 +269,32 @@ public class MusicListActivity extends AppCompatActivity implements Contrato.Vie
 
     private void filterSongs(String query) {
         Log.d(TAG, "Filtrando músicas com query: " + query);
-        if (todasMusicas == null || todasMusicas.isEmpty()) {
-            Log.d(TAG, "Lista de músicas vazia");
-            return;
+        if (songPager != null) {
+            searchPagedLibrary(query);
+        } else if (presenter != null) {
+            presenter.filterSongs(query); // O resultado chega em showFilteredSongs
         }
-        List<Musica> filteredSongs = new ArrayList<>();
+    }
+
+    /**
+     * Busca na lista paginada: só as músicas encontradas são lidas do banco. Se o usuário
+     * continuar digitando, os resultados das buscas anteriores são descartados.
+     * @param query Texto de busca.
+     */
+    private void searchPagedLibrary(String query) {
+        int generation = ++searchGeneration;
         if (query == null || query.trim().isEmpty()) {
-            filteredSongs.addAll(todasMusicas);
-            Log.d(TAG, "Query vazia - mostrando todas as " + todasMusicas.size() + " músicas");
-        } else {
-            String lowerCaseQuery = query.toLowerCase().trim();
-            Log.d(TAG, "Buscando por: " + lowerCaseQuery);
-            for (Musica musica : todasMusicas) {
-                String titulo = musica.getTitulo() != null ? musica.getTitulo().toLowerCase() : "";
-                String artista = musica.getArtista() != null ? musica.getArtista().toLowerCase() : "";
-                if (titulo.contains(lowerCaseQuery) || artista.contains(lowerCaseQuery)) {
-                    filteredSongs.add(musica);
-                    Log.d(TAG, "Música encontrada: " + musica.getTitulo() + " - " + musica.getArtista());
-                }
-            }
-            Log.d(TAG, "Encontradas " + filteredSongs.size() + " músicas");
-        }
-        if (musicListAdapter != null) {
-            musicListAdapter.updateSongs(filteredSongs);
-            musicListAdapter.notifyDataSetChanged();
-        } else {
-            Log.e(TAG, "MusicListAdapter é null!");
+            musicListAdapter.showPager(songPager);
+            return;
         }
+        songPager.search(query, SEARCH_LIMIT).thenAccept(songs -> {
+            if (generation == searchGeneration && isSearchVisible) {
+                musicListAdapter.updateSongs(songs);
+            }
+        }).exceptionally(throwable -> {
+            Log.e(TAG, "Erro na busca por: " + query, throwable);
+            return null;
+        });
     }
 
     @Override
@@ -291,4 +339,6 @@ public class MusicListActivity extends AppCompatActivity implements Contrato.Vie
     }
     @Override
     public void playNewList(ArrayList<Musica> songs, int index) {}
+    @Override
+    public void onLibraryChanged(LibraryChanges changes, boolean appendAdded) {}
 }
\ No newline at end of file
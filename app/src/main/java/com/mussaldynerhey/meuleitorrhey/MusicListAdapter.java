@@ -12,13 +12,17 @@ import androidx.recyclerview.widget.RecyclerView;
 import java.util.List;
 
 import Model.Musica;
+import Model.SongPager;
 
 /**
  * Adaptador para exibir uma lista de músicas em um RecyclerView.
+ * Exibe uma lista já carregada ou, para a biblioteca inteira, as páginas de um {@link SongPager}.
  */
 public class MusicListAdapter extends RecyclerView.Adapter<MusicListAdapter.ViewHolder> {
-    private List<Musica> songs; // Lista de músicas a serem exibidas
+    private List<Musica> songs; // Lista de músicas a serem exibidas (null quando exibe o paginador)
+    private SongPager pager; // Paginador da biblioteca, usado quando não há lista
     private OnSongClickListener listener; // Listener para cliques em itens da lista
+    private OnSongLongClickListener longClickListener; // Listener para toques longos em itens da lista
 
     /**
      * Construtor do adaptador.
@@ -30,6 +34,34 @@ public class MusicListAdapter extends RecyclerView.Adapter<MusicListAdapter.View
         this.listener = listener;
     }
 
+    /**
+     * Construtor do adaptador para a biblioteca paginada.
+     * @param pager Paginador da biblioteca.
+     * @param listener Listener para cliques em músicas.
+     */
+    public MusicListAdapter(SongPager pager, OnSongClickListener listener) {
+        this.pager = pager;
+        this.listener = listener;
+    }
+
+    /**
+     * Volta a exibir a biblioteca paginada, por exemplo ao fechar uma busca.
+     * @param pager Paginador da biblioteca.
+     */
+    public void showPager(SongPager pager) {
+        this.songs = null;
+        this.pager = pager;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Define o listener chamado quando uma música é tocada e segurada.
+     * @param longClickListener Listener para toques longos, ou null para desativá-los.
+     */
+    public void setOnSongLongClickListener(OnSongLongClickListener longClickListener) {
+        this.longClickListener = longClickListener;
+    }
+
     /**
      * Atualiza a lista de músicas exibidas no adaptador.
      * @param newSongs Nova lista de músicas.
@@ -58,9 +90,15 @@ public class MusicListAdapter extends RecyclerView.Adapter<MusicListAdapter.View
      */
     @Override
     public void onBindViewHolder(ViewHolder holder, int position) {
-        Musica song = songs.get(position);
-        holder.titleTextView.setText(song.getTitulo()); // Define o título da música
-        holder.artistTextView.setText(song.getArtista()); // Define o nome do artista
+        Musica song = songs != null ? songs.get(position) : pager.get(position);
+        if (song == null) {
+            // Página ainda sendo carregada; a linha é refeita quando ela chegar
+            holder.titleTextView.setText("");
+            holder.artistTextView.setText("");
+        } else {
+            holder.titleTextView.setText(song.getTitulo()); // Define o título da música
+            holder.artistTextView.setText(song.getArtista()); // Define o nome do artista
+        }
 
         // Define ícone padrão para todas as músicas, ignorando contentUri
         holder.iconImageView.setImageResource(R.drawable.ic_music);
@@ -71,6 +109,13 @@ public class MusicListAdapter extends RecyclerView.Adapter<MusicListAdapter.View
                 listener.onSongClick(position);
             }
         });
+        holder.itemView.setOnLongClickListener(v -> {
+            if (longClickListener != null && song != null) {
+                longClickListener.onSongLongClick(position, song);
+                return true;
+            }
+            return false;
+        });
     }
 
     /**
@@ -79,12 +124,15 @@ public class MusicListAdapter extends RecyclerView.Adapter<MusicListAdapter.View
      */
     @Override
     public int getItemCount() {
-        return songs != null ? songs.size() : 0;
+        if (songs != null) {
+            return songs.size();
+        }
+        return pager != null ? pager.getCount() : 0;
     }
 
     /**
      * Obtém a lista atual de músicas.
-     * @return Lista de músicas.
+     * @return Lista de músicas, ou null quando o adaptador exibe a biblioteca paginada.
      */
     public List<Musica> getSongs() {
         return songs;
@@ -115,4 +163,11 @@ public class MusicListAdapter extends RecyclerView.Adapter<MusicListAdapter.View
     public interface OnSongClickListener {
         void onSongClick(int position);
     }
+
+    /**
+     * Interface para lidar com toques longos em itens da lista.
+     */
+    public interface OnSongLongClickListener {
+        void onSongLongClick(int position, Musica song);
+    }
 }
\ No newline at end of file
@@ -3,17 +3,29 @@ package com.mussaldynerhey.meuleitorrhey.utils;
 import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Build;
 import android.provider.MediaStore;
 import android.util.Log;
 
+import androidx.annotation.RequiresApi;
+
 import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
+import com.mussaldynerhey.meuleitorrhey.database.relations.SongPathRow;
 import com.mussaldynerhey.meuleitorrhey.database.repository.MusicRepository;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -21,8 +33,16 @@ import java.util.Set;
  */
 public class MusicScanner {
     private static final String TAG = "MusicScanner";
+    private static final String PREFS_NAME = "music_scanner"; // Arquivo de preferências com as marcas d'água do scan
+    private static final String KEY_VERSION_PREFIX = "media_store_version_"; // Versão do MediaStore por volume (API 30+)
+    private static final String KEY_GENERATION_PREFIX = "media_store_generation_"; // Última geração sincronizada por volume (API 30+)
+    private static final String KEY_LAST_DATE = "media_store_last_date"; // Último DATE_MODIFIED/DATE_ADDED sincronizado (API < 30)
+    private static final String KEY_FILESYSTEM_ROOTS = "filesystem_roots"; // Pastas percorridas além do MediaStore
+    public static final String UNKNOWN_ARTIST = "Artista Desconhecido"; // Artista usado quando o MediaStore não tem um
+    private static final int CHUNK_SIZE = 200; // Músicas lidas do cursor entre duas gravações no banco
     private Context context; // Contexto da aplicação
     private MusicRepository musicRepository; // Repositório para acesso ao banco de dados
+    private SharedPreferences preferences; // Preferências onde as marcas d'água são persistidas
 
     /**
      * Construtor da classe MusicScanner.
@@ -32,6 +52,7 @@ public class MusicScanner {
     public MusicScanner(Context context, MusicRepository musicRepository) {
         this.context = context;
         this.musicRepository = musicRepository;
+        this.preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
     }
 
     /**
@@ -42,8 +63,106 @@ public class MusicScanner {
         List<Song> deviceSongs = new ArrayList<>(); // Lista para armazenar músicas encontradas
         Set<String> uniquePaths = new HashSet<>(); // Conjunto para evitar duplicatas por caminho do arquivo
 
+        // Filtro para incluir apenas arquivos de música
+        String selection = MediaStore.Audio.Media.IS_MUSIC + " != 0";
+        querySongs(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, selection, null, uniquePaths, null, null, deviceSongs::addAll);
+
+        Log.d(TAG, "Total de músicas encontradas no dispositivo: " + deviceSongs.size() +
+                " (Duplicadas removidas: " + (uniquePaths.size() - deviceSongs.size()) + ")");
+        return deviceSongs;
+    }
+
+    /**
+     * Escaneia apenas as músicas adicionadas ou alteradas desde a última sincronização.
+     * No Android 11+ usa a geração do MediaStore de cada volume; nas versões anteriores
+     * usa DATE_MODIFIED/DATE_ADDED. Sem marca d'água registrada, equivale a um scan completo.
+     * A nova marca d'água só é gravada por {@link #commitWatermark(Watermark)} após a sincronização.
+     * As músicas são entregues ao consumidor em blocos de até {@link #CHUNK_SIZE}, à medida que o cursor é lido.
+     * @param watermark Marca d'água a ser preenchida com os valores observados neste scan.
+     * @param session Sessão que recebe o progresso e pode cancelar a leitura, ou null.
+     * @param consumer Consumidor dos blocos de músicas novas ou alteradas.
+     */
+    public void scanChangedMusic(Watermark watermark, ScanSession session, ChunkConsumer consumer) {
+        int[] count = {0}; // Total de músicas entregues, apenas para o log
+        ChunkConsumer countingConsumer = chunk -> {
+            count[0] += chunk.size();
+            consumer.accept(chunk);
+        };
+        Set<String> uniquePaths = new HashSet<>();
+
+        boolean complete = true; // Indica se todas as consultas terminaram sem erro
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            watermark.fullScan = true;
+            for (String volume : MediaStore.getExternalVolumeNames(context)) {
+                String version = MediaStore.getVersion(context, volume);
+                long lastGeneration = preferences.getLong(KEY_GENERATION_PREFIX + volume, 0);
+                if (!version.equals(preferences.getString(KEY_VERSION_PREFIX + volume, null))) {
+                    // Versão diferente: o banco do MediaStore foi recriado e as gerações antigas não valem mais
+                    Log.d(TAG, "Versão do MediaStore alterada no volume " + volume + " - scan completo");
+                    lastGeneration = 0;
+                }
+                if (lastGeneration > 0) {
+                    watermark.fullScan = false;
+                }
+                long currentGeneration = MediaStore.getGeneration(context, volume);
+
+                String selection = MediaStore.Audio.Media.IS_MUSIC + " != 0 AND " +
+                        MediaStore.Audio.Media.GENERATION_MODIFIED + " > ?";
+                String[] selectionArgs = {String.valueOf(lastGeneration)};
+                complete &= querySongs(MediaStore.Audio.Media.getContentUri(volume), selection, selectionArgs,
+                        uniquePaths, null, session, countingConsumer);
+
+                watermark.versions.put(volume, version);
+                watermark.generations.put(volume, currentGeneration);
+            }
+        } else {
+            long lastDate = preferences.getLong(KEY_LAST_DATE, 0);
+            // ">=" para não perder arquivos alterados no mesmo segundo do último scan; o sync ignora repetidos
+            String selection = MediaStore.Audio.Media.IS_MUSIC + " != 0 AND (" +
+                    MediaStore.Audio.Media.DATE_MODIFIED + " >= ? OR " +
+                    MediaStore.Audio.Media.DATE_ADDED + " >= ?)";
+            String[] selectionArgs = {String.valueOf(lastDate), String.valueOf(lastDate)};
+            watermark.lastDate = lastDate;
+            watermark.fullScan = lastDate == 0;
+            complete = querySongs(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, selection, selectionArgs,
+                    uniquePaths, watermark, session, countingConsumer);
+        }
+        watermark.complete = complete;
+
+        Log.d(TAG, "Músicas novas ou alteradas desde o último scan: " + count[0]);
+    }
+
+    /**
+     * Grava a marca d'água observada em um scan incremental bem-sucedido.
+     * @param watermark Marca d'água preenchida por {@link #scanChangedMusic(Watermark, ScanSession, ChunkConsumer)}.
+     */
+    public void commitWatermark(Watermark watermark) {
+        SharedPreferences.Editor editor = preferences.edit();
+        for (Map.Entry<String, String> entry : watermark.versions.entrySet()) {
+            editor.putString(KEY_VERSION_PREFIX + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Long> entry : watermark.generations.entrySet()) {
+            editor.putLong(KEY_GENERATION_PREFIX + entry.getKey(), entry.getValue());
+        }
+        editor.putLong(KEY_LAST_DATE, watermark.lastDate);
+        editor.apply();
+    }
+
+    /**
+     * Consulta o MediaStore e entrega ao consumidor as músicas válidas encontradas, em blocos.
+     * @param musicUri URI da coleção de áudio a ser consultada.
+     * @param selection Filtro da consulta.
+     * @param selectionArgs Argumentos do filtro.
+     * @param uniquePaths Conjunto de caminhos já vistos, para evitar duplicatas.
+     * @param watermark Marca d'água a ser avançada com as datas dos registros (API < 30), ou null.
+     * @param session Sessão que recebe o progresso e pode cancelar a leitura, ou null.
+     * @param consumer Consumidor que recebe blocos de até {@link #CHUNK_SIZE} músicas.
+     * @return True se a consulta foi concluída sem erros e sem cancelamento.
+     */
+    private boolean querySongs(Uri musicUri, String selection, String[] selectionArgs, Set<String> uniquePaths,
+                            Watermark watermark, ScanSession session, ChunkConsumer consumer) {
+        List<Song> songs = new ArrayList<>(CHUNK_SIZE); // Bloco atual, entregue ao consumidor quando cheio
         ContentResolver contentResolver = context.getContentResolver(); // Resolver para acessar dados do dispositivo
-        Uri musicUri = MediaStore.Audio.Media.EXTERNAL_CONTENT_URI; // URI para arquivos de áudio
 
         // Colunas a serem recuperadas do MediaStore
         String[] projection = {
@@ -52,31 +171,49 @@ public class MusicScanner {
                 MediaStore.Audio.Media.ARTIST,
                 MediaStore.Audio.Media.DATA,
                 MediaStore.Audio.Media.DURATION,
-                MediaStore.Audio.Media.ALBUM
+                MediaStore.Audio.Media.ALBUM,
+                MediaStore.Audio.Media.DATE_ADDED,
+                MediaStore.Audio.Media.DATE_MODIFIED
         };
 
-        // Filtro para incluir apenas arquivos de música
-        String selection = MediaStore.Audio.Media.IS_MUSIC + " != 0";
         String sortOrder = MediaStore.Audio.Media.TITLE + " ASC"; // Ordenar por título em ordem ascendente
 
         Cursor cursor = null;
         try {
             // Executar consulta ao MediaStore
-            cursor = contentResolver.query(musicUri, projection, selection, null, sortOrder);
+            cursor = contentResolver.query(musicUri, projection, selection, selectionArgs, sortOrder);
 
             if (cursor != null && cursor.moveToFirst()) {
+                int idColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media._ID);
+                int titleColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.TITLE);
+                int artistColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.ARTIST);
+                int dataColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DATA);
+                int durationColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DURATION);
+                int dateAddedColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DATE_ADDED);
+                int dateModifiedColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DATE_MODIFIED);
                 do {
+                    if (session != null) {
+                        if (session.isCancelled()) {
+                            return false;
+                        }
+                        session.onRowScanned();
+                    }
+
                     // Extrair dados do cursor
-                    long id = cursor.getLong(cursor.getColumnIndexOrThrow(MediaStore.Audio.Media._ID));
-                    String title = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.TITLE));
-                    String artist = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.ARTIST));
-                    String path = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DATA));
-                    long duration = cursor.getLong(cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DURATION));
-                    String album = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.ALBUM));
+                    long id = cursor.getLong(idColumn);
+                    String title = cursor.getString(titleColumn);
+                    String artist = cursor.getString(artistColumn);
+                    String path = cursor.getString(dataColumn);
+                    long duration = cursor.getLong(durationColumn);
+
+                    if (watermark != null) {
+                        watermark.lastDate = Math.max(watermark.lastDate,
+                                Math.max(cursor.getLong(dateAddedColumn), cursor.getLong(dateModifiedColumn)));
+                    }
 
                     // Definir "Artista Desconhecido" se o campo de artista estiver vazio
                     if (artist == null || artist.trim().isEmpty()) {
-                        artist = "Artista Desconhecido";
+                        artist = UNKNOWN_ARTIST;
                     }
 
                     // Pular música se o título estiver vazio
@@ -103,57 +240,380 @@ public class MusicScanner {
                             duration,
                             songUri.toString() // Usar URI como albumArtPath para consistência
                     );
-                    deviceSongs.add(song);
+                    songs.add(song);
 
                     Log.d(TAG, "Música encontrada: " + title + " - " + artist);
 
+                    if (songs.size() >= CHUNK_SIZE) {
+                        consumer.accept(songs);
+                        songs = new ArrayList<>(CHUNK_SIZE);
+                    }
                 } while (cursor.moveToNext());
             }
+            if (!songs.isEmpty()) {
+                consumer.accept(songs);
+            }
 
         } catch (Exception e) {
             Log.e(TAG, "Erro ao buscar músicas do dispositivo", e);
+            return false;
         } finally {
             if (cursor != null) {
                 cursor.close(); // Fechar o cursor para evitar vazamentos de memória
             }
         }
+        return cursor != null;
+    }
 
-        Log.d(TAG, "Total de músicas encontradas no dispositivo: " + deviceSongs.size() +
-                " (Duplicadas removidas: " + (uniquePaths.size() - deviceSongs.size()) + ")");
-        return deviceSongs;
+    /**
+     * Obtém as pastas percorridas diretamente no sistema de arquivos, além do que o MediaStore indexa.
+     * @return Caminhos absolutos das pastas escolhidas pelo usuário.
+     */
+    public Set<String> getFileSystemRoots() {
+        return new HashSet<>(preferences.getStringSet(KEY_FILESYSTEM_ROOTS, Collections.emptySet()));
     }
 
     /**
-     * Sincroniza as músicas do dispositivo com o banco de dados, adicionando apenas novas músicas.
+     * Define as pastas percorridas diretamente no sistema de arquivos (Android 8+).
+     * @param roots Caminhos absolutos das pastas.
      */
-    public void syncDeviceMusicWithDatabase() {
-        new Thread(() -> {
-            // Escanear músicas do dispositivo
-            List<Song> deviceSongs = scanDeviceForMusic();
+    public void setFileSystemRoots(Set<String> roots) {
+        preferences.edit().putStringSet(KEY_FILESYSTEM_ROOTS, new HashSet<>(roots)).apply();
+    }
+
+    /**
+     * Sincroniza as músicas do dispositivo com o banco de dados em segundo plano.
+     * Se já houver um scan em andamento, retorna a sessão existente.
+     * @return Sessão do scan, com o future de conclusão e o progresso.
+     */
+    public ScanSession syncDeviceMusicWithDatabase() {
+        return ScanSession.start(this);
+    }
 
-            // Obter músicas já existentes no banco de dados
-            List<Song> existingSongs = musicRepository.getAllSongs();
+    /**
+     * Sincroniza as músicas do MediaStore com o banco de dados de forma incremental, na thread atual.
+     * As pastas do sistema de arquivos não são percorridas.
+     * @return Resultado da sincronização com as músicas novas, alteradas e removidas.
+     */
+    public SyncResult syncNow() {
+        return syncNow(null, false);
+    }
 
-            // Adicionar apenas músicas que não estão no banco
-            for (Song deviceSong : deviceSongs) {
-                boolean alreadyExists = false;
+    /**
+     * Sincroniza as músicas do dispositivo com o banco de dados de forma incremental, na thread atual.
+     * Cada bloco é comparado apenas com as músicas do banco de mesmos caminhos, buscadas pelo
+     * índice único de path, para calcular os conjuntos de músicas novas, alteradas e removidas.
+     * O cursor é lido em blocos e cada bloco é gravado em uma única transação e
+     * publicado na sessão assim que lido, de modo que as primeiras músicas aparecem sem
+     * esperar o fim do scan. As remoções são calculadas e aplicadas ao final, também nos
+     * scans incrementais.
+     * @param session Sessão que recebe o progresso e os blocos, e pode cancelar o scan, ou null.
+     * @param includeFileSystem Indica se as pastas escolhidas pelo usuário também devem ser percorridas.
+     * @return Resultado da sincronização com as músicas novas, alteradas e removidas.
+     */
+    SyncResult syncNow(ScanSession session, boolean includeFileSystem) {
+        synchronized (MusicScanner.class) { // Evita que dois scans apliquem o mesmo delta ao mesmo tempo
+            Watermark watermark = new Watermark();
+            SyncResult result = new SyncResult();
 
-                if (existingSongs != null) {
-                    for (Song existingSong : existingSongs) {
-                        if (existingSong.getPath() != null &&
-                                existingSong.getPath().equals(deviceSong.getPath())) {
-                            alreadyExists = true;
-                            break;
-                        }
+            // Escanear apenas o que mudou no dispositivo desde a última marca d'água, bloco a bloco
+            scanChangedMusic(watermark, session, chunk -> {
+                if (session != null && session.isCancelled()) {
+                    return;
+                }
+                Map<String, Song> existingByPath = loadChunkIndex(chunk);
+                SyncResult chunkResult = new SyncResult();
+                for (Song deviceSong : chunk) {
+                    Song existing = existingByPath.get(deviceSong.getPath());
+                    if (existing != null) {
+                        keepEnrichedValues(existing, deviceSong);
+                    }
+                    if (existing == null) {
+                        chunkResult.added.add(deviceSong);
+                    } else if (hasChanged(existing, deviceSong)) {
+                        deviceSong.setId(existing.getId());
+                        chunkResult.changed.add(deviceSong);
                     }
                 }
+                if (!chunkResult.isEmpty()) {
+                    musicRepository.applySongSync(chunkResult.added, chunkResult.changed, chunkResult.removed).get();
+                    result.added.addAll(chunkResult.added);
+                    result.changed.addAll(chunkResult.changed);
+                    if (session != null) session.onChunkApplied(chunkResult);
+                }
+            });
+            if (session != null && session.isCancelled()) {
+                return result; // A marca d'água não é gravada: o próximo scan retoma de onde este partiu
+            }
 
-                if (!alreadyExists) {
-                    musicRepository.insertSong(deviceSong); // Inserir nova música no banco
-                    Log.d(TAG, "Nova música adicionada ao banco: " + deviceSong.getTitle());
+            // A marca d'água só traz o que foi inserido ou alterado: as remoções vêm de uma
+            // comparação dos caminhos do MediaStore com os do banco, feita em todo scan
+            Set<String> roots = getFileSystemRoots();
+            if (watermark.complete) {
+                findRemovedSongs(roots, session, result);
+                if (session != null && session.isCancelled()) {
+                    return result;
                 }
             }
-        }).start(); // Executar em thread separada para evitar bloqueio da UI
+
+            if (includeFileSystem && !roots.isEmpty() && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                syncFileSystemRoots(roots, session, result);
+                if (session != null && session.isCancelled()) {
+                    return result;
+                }
+            }
+
+            try {
+                if (!result.removed.isEmpty()) {
+                    musicRepository.applySongSync(Collections.emptyList(), Collections.emptyList(), result.removed).get();
+                }
+                Log.d(TAG, "Sincronização aplicada - Novas: " + result.added.size() +
+                        ", Alteradas: " + result.changed.size() + ", Removidas: " + result.removed.size());
+                if (watermark.complete) {
+                    commitWatermark(watermark);
+                }
+                if (session != null) session.onSyncApplied(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Erro ao aplicar sincronização no banco", e);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Encontra as músicas do banco que não existem mais no MediaStore (apagadas ou movidas).
+     * Compara só caminhos: os do MediaStore vêm de uma consulta apenas à coluna DATA e os do
+     * banco, do índice único de path. Arquivos das pastas percorridas diretamente só saem se
+     * não existirem mais. Se alguma consulta ao MediaStore falhar, nada é removido.
+     * @param roots Pastas percorridas diretamente no sistema de arquivos.
+     * @param session Sessão que pode cancelar a busca, ou null.
+     * @param result Resultado da sincronização, que recebe as músicas removidas.
+     */
+    private void findRemovedSongs(Set<String> roots, ScanSession session, SyncResult result) {
+        Set<String> devicePaths = queryDevicePaths(session);
+        if (devicePaths == null) {
+            return;
+        }
+        List<SongPathRow> known = musicRepository.getDeviceSongPaths().join(); // Chamado apenas na thread do scan
+        for (SongPathRow row : known) {
+            if (devicePaths.contains(row.getPath())
+                    || (isUnderRoots(row.getPath(), roots) && new File(row.getPath()).exists())) {
+                continue;
+            }
+            // A remoção e as listas usam apenas o ID e o caminho
+            Song removed = new Song(null, null, row.getPath(), 0, 0, null);
+            removed.setId(row.getId());
+            result.removed.add(removed);
+        }
+    }
+
+    /**
+     * Lê os caminhos de todas as músicas do MediaStore, em todos os volumes externos.
+     * @param session Sessão que pode cancelar a leitura, ou null.
+     * @return Caminhos das músicas, ou null se alguma consulta falhou ou foi cancelada.
+     */
+    private Set<String> queryDevicePaths(ScanSession session) {
+        List<Uri> uris = new ArrayList<>();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            for (String volume : MediaStore.getExternalVolumeNames(context)) {
+                uris.add(MediaStore.Audio.Media.getContentUri(volume));
+            }
+        } else {
+            uris.add(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI);
+        }
+        String[] projection = {MediaStore.Audio.Media.DATA};
+        String selection = MediaStore.Audio.Media.IS_MUSIC + " != 0";
+        Set<String> paths = new HashSet<>();
+        for (Uri uri : uris) {
+            try (Cursor cursor = context.getContentResolver().query(uri, projection, selection, null, null)) {
+                if (cursor == null) {
+                    return null;
+                }
+                int dataColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DATA);
+                while (cursor.moveToNext()) {
+                    if (session != null && session.isCancelled()) {
+                        return null;
+                    }
+                    paths.add(cursor.getString(dataColumn));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Erro ao ler os caminhos do MediaStore - nenhuma música será removida", e);
+                return null;
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Percorre as pastas escolhidas pelo usuário, insere os arquivos de áudio que ainda não estão
+     * no banco, em blocos, e marca para remoção as músicas dessas pastas cujo arquivo não existe mais.
+     * @param roots Pastas a serem percorridas.
+     * @param session Sessão que recebe os blocos e pode cancelar a varredura, ou null.
+     * @param result Resultado da sincronização, que recebe as músicas novas e removidas.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void syncFileSystemRoots(Set<String> roots, ScanSession session, SyncResult result) {
+        List<Path> rootPaths = new ArrayList<>();
+        for (String root : roots) {
+            rootPaths.add(Paths.get(root));
+        }
+        FileSystemScanner fileSystemScanner = new FileSystemScanner(Runtime.getRuntime().availableProcessors());
+        List<FileSystemScanner.AudioFile> files = fileSystemScanner.scan(rootPaths,
+                () -> session != null && session.isCancelled());
+        if (session != null && session.isCancelled()) {
+            return;
+        }
+
+        // Índice atualizado, já com o que o MediaStore acabou de inserir
+        Map<String, SongPathRow> existingByPath = new HashMap<>();
+        for (SongPathRow row : musicRepository.getDeviceSongPaths().join()) {
+            existingByPath.put(row.getPath(), row);
+        }
+        Set<String> walkedPaths = new HashSet<>();
+        SyncResult chunk = new SyncResult();
+        try {
+            for (FileSystemScanner.AudioFile file : files) {
+                walkedPaths.add(file.path);
+                if (existingByPath.containsKey(file.path)) {
+                    continue;
+                }
+                String title = file.path.substring(file.path.lastIndexOf('/') + 1);
+                int dot = title.lastIndexOf('.');
+                if (dot > 0) {
+                    title = title.substring(0, dot);
+                }
+                // Título e artista provisórios: o enriquecimento de tags completa depois
+                chunk.added.add(new Song(title, UNKNOWN_ARTIST, file.path, 0, 0, null));
+                if (session != null) session.onRowScanned();
+                if (chunk.added.size() >= CHUNK_SIZE) {
+                    applyFileSystemChunk(chunk, session, result);
+                    chunk = new SyncResult();
+                }
+            }
+            if (!chunk.added.isEmpty()) {
+                applyFileSystemChunk(chunk, session, result);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Erro ao gravar músicas das pastas no banco", e);
+            return;
+        }
+
+        Set<String> removedPaths = new HashSet<>();
+        for (Song song : result.removed) {
+            removedPaths.add(song.getPath());
+        }
+        for (SongPathRow row : existingByPath.values()) {
+            if (isUnderRoots(row.getPath(), roots)
+                    && !walkedPaths.contains(row.getPath()) && !removedPaths.contains(row.getPath())
+                    && !new File(row.getPath()).exists()) {
+                Song removed = new Song(null, null, row.getPath(), 0, 0, null);
+                removed.setId(row.getId());
+                result.removed.add(removed);
+            }
+        }
+        Log.d(TAG, "Pastas percorridas - Arquivos de áudio: " + files.size());
+    }
+
+    private void applyFileSystemChunk(SyncResult chunk, ScanSession session, SyncResult result) throws Exception {
+        musicRepository.applySongSync(chunk.added, chunk.changed, chunk.removed).get();
+        result.added.addAll(chunk.added);
+        if (session != null) session.onChunkApplied(chunk);
+    }
+
+    /**
+     * Verifica se um caminho está dentro de alguma das pastas informadas.
+     * @param path Caminho do arquivo.
+     * @param roots Pastas raiz.
+     * @return True se o caminho estiver dentro de uma das pastas.
+     */
+    private static boolean isUnderRoots(String path, Set<String> roots) {
+        if (path == null) {
+            return false;
+        }
+        for (String root : roots) {
+            String prefix = root.endsWith("/") ? root : root + "/";
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Monta o índice caminho→música apenas com as músicas do banco que estão no bloco.
+     * Um bloco tem no máximo CHUNK_SIZE caminhos, abaixo do limite de parâmetros do SQLite.
+     * @param chunk Músicas lidas do MediaStore.
+     * @return Músicas já gravadas, indexadas pelo caminho.
+     */
+    private Map<String, Song> loadChunkIndex(List<Song> chunk) {
+        List<String> paths = new ArrayList<>(chunk.size());
+        for (Song song : chunk) {
+            paths.add(song.getPath());
+        }
+        Map<String, Song> existingByPath = new HashMap<>();
+        List<Song> existingSongs = musicRepository.getSongsByPaths(paths).join(); // Chamado apenas na thread do scan
+        if (existingSongs != null) {
+            for (Song existingSong : existingSongs) {
+                existingByPath.put(existingSong.getPath(), existingSong);
+            }
+        }
+        return existingByPath;
+    }
+
+    /**
+     * Mantém na música escaneada os valores que o enriquecimento já corrigiu (título provisório,
+     * artista desconhecido e duração zerada), para que eles não sejam vistos como alteração.
+     * @param existing Música gravada no banco.
+     * @param scanned Música lida do dispositivo.
+     */
+    private static void keepEnrichedValues(Song existing, Song scanned) {
+        if (existing.getEnrichedAt() == 0) {
+            return;
+        }
+        if (isPlaceholderTitle(scanned.getTitle(), scanned.getPath())) {
+            scanned.setTitle(existing.getTitle());
+        }
+        if (UNKNOWN_ARTIST.equals(scanned.getArtist())) {
+            scanned.setArtist(existing.getArtist());
+        }
+        if (scanned.getDuration() <= 0) {
+            scanned.setDuration(existing.getDuration());
+        }
+    }
+
+    /**
+     * Verifica se um título é apenas o provisório que o MediaStore usa quando o arquivo não tem tag,
+     * ou seja, o nome do arquivo sem a extensão.
+     * @param title Título a ser verificado.
+     * @param path Caminho do arquivo.
+     * @return True se o título estiver vazio ou for igual ao nome do arquivo.
+     */
+    public static boolean isPlaceholderTitle(String title, String path) {
+        if (title == null || title.trim().isEmpty()) {
+            return true;
+        }
+        if (path == null) {
+            return false;
+        }
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        if (dot > 0) {
+            fileName = fileName.substring(0, dot);
+        }
+        return title.trim().equalsIgnoreCase(fileName);
+    }
+
+    /**
+     * Verifica se os metadados de uma música escaneada diferem dos gravados no banco.
+     * @param existing Música gravada no banco.
+     * @param scanned Música lida do dispositivo.
+     * @return True se algum campo exibido ou usado na reprodução mudou.
+     */
+    private static boolean hasChanged(Song existing, Song scanned) {
+        return !Objects.equals(existing.getTitle(), scanned.getTitle()) ||
+                !Objects.equals(existing.getArtist(), scanned.getArtist()) ||
+                !Objects.equals(existing.getAlbumArtPath(), scanned.getAlbumArtPath()) ||
+                existing.getDuration() != scanned.getDuration();
     }
 
     /**
@@ -171,4 +631,39 @@ public class MusicScanner {
             Log.d("DEBUG_SCAN", "=== Fim do Debug de Escaneamento ===");
         }).start(); // Executar em thread separada para evitar bloqueio da UI
     }
-}
\ No newline at end of file
+
+    /**
+     * Interface para receber as músicas lidas do cursor, um bloco por vez.
+     */
+    public interface ChunkConsumer {
+        void accept(List<Song> chunk) throws Exception;
+    }
+
+    /**
+     * Marca d'água observada durante um scan incremental.
+     */
+    public static class Watermark {
+        final Map<String, String> versions = new HashMap<>(); // Versão do MediaStore por volume (API 30+)
+        final Map<String, Long> generations = new HashMap<>(); // Geração do MediaStore por volume (API 30+)
+        long lastDate; // Maior DATE_MODIFIED/DATE_ADDED visto, em segundos (API < 30)
+        boolean fullScan; // Indica que não havia marca d'água, ou seja, o scan leu todas as músicas
+        boolean complete; // Indica que todas as consultas ao MediaStore terminaram sem erro
+    }
+
+    /**
+     * Resultado de uma sincronização: músicas inseridas, atualizadas e removidas do banco.
+     */
+    public static class SyncResult {
+        public final List<Song> added = new ArrayList<>(); // Músicas novas, já com o ID gerado pelo banco
+        public final List<Song> changed = new ArrayList<>(); // Músicas cujos metadados mudaram
+        public final List<Song> removed = new ArrayList<>(); // Músicas que não existem mais no dispositivo
+
+        /**
+         * Verifica se a sincronização não alterou nada no banco.
+         * @return True se nenhuma música foi inserida, atualizada ou removida.
+         */
+        public boolean isEmpty() {
+            return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+        }
+    }
+}
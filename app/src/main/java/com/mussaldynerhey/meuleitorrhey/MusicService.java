@@ -22,10 +22,19 @@ import android.widget.Toast;
 
 import androidx.core.app.NotificationCompat;
 
+import com.mussaldynerhey.meuleitorrhey.database.QueryStats;
+import com.mussaldynerhey.meuleitorrhey.utils.MetadataEnricher;
+import com.mussaldynerhey.meuleitorrhey.utils.PlayEventJournal;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
 import Model.Musica;
+import Model.PlaybackQueue;
+import Model.ShuffleOrder;
+import Model.SmartShuffle;
 import Model.Model;
 
 /**
@@ -42,10 +51,13 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
     public static final String EXTRA_DURATION = "duration";
     public static final String EXTRA_TITLE = "titulo";
     public static final String EXTRA_ARTIST = "artista";
+    public static final String EXTRA_SONG_ID = "current_song_id"; // ID no banco da música atual (0 se não veio do banco)
     public static final String ACTION_PLAY = "ACTION_PLAY";
     public static final String ACTION_PAUSE = "ACTION_PAUSE";
     public static final String ACTION_NEXT = "ACTION_NEXT";
     public static final String ACTION_PREV = "ACTION_PREV";
+    public static final String ACTION_UPDATE_QUEUE = "ACTION_UPDATE_QUEUE"; // Troca a fila sem reiniciar a música
+    public static final String EXTRA_SHARED_QUEUE = "SHARED_QUEUE"; // A fila está em PlaybackQueue.published()
     private static final String CHANNEL_ID = "MediaPlayerChannel";
     private static final int NOTIFICATION_ID = 1;
     private MediaPlayer mediaPlayer; // Instância do MediaPlayer para reprodução de áudio
@@ -58,10 +70,14 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
     private int currentSongIndex = -1; // Índice da música atual (redundante, mantido por compatibilidade)
     private boolean repeatState = false; // Estado do modo de repetição
     private boolean shuffleState = false; // Estado do modo aleatório
+    private boolean smartShuffleState = false; // Indica se o modo aleatório é ponderado pelas estatísticas
     private Handler progressHandler = new Handler(); // Handler para atualizações de progresso
     private Runnable progressRunnable; // Runnable para atualizações periódicas do progresso
     private MediaSessionCompat mediaSession; // Sessão de mídia para controles do sistema
     private final IBinder binder = new LocalBinder(); // Binder para comunicação com o serviço
+    private PlayEventJournal playEventJournal; // Diário dos eventos de reprodução (contagem de reproduções e pulos)
+    private int activeSongId = 0; // ID no banco da música carregada no player (0 se não veio do banco)
+    private boolean activeSongFinished = true; // Indica se a música carregada já terminou, falhou ou teve o pulo registrado
 
     /**
      * Classe interna para fornecer acesso ao serviço via binding.
@@ -88,6 +104,12 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
         Musica musicaParaTocar = musicas.get(indice);
         Log.d(TAG, "Preparando música: " + musicaParaTocar.getTitulo());
 
+        if (!activeSongFinished) {
+            // A música anterior foi trocada antes do fim
+            playEventJournal.record(PlayEventJournal.EVENT_SKIP, activeSongId, playbackPosition());
+            activeSongFinished = true;
+        }
+
         try {
             if (mediaPlayer == null) {
                 mediaPlayer = new MediaPlayer();
@@ -117,6 +139,9 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
                 currentPosition = 0;
                 isPlaying = true;
                 mp.start();
+                activeSongId = musicaParaTocar.getSongId();
+                activeSongFinished = false;
+                playEventJournal.record(PlayEventJournal.EVENT_START, activeSongId, 0);
                 startProgressUpdates();
                 updateMediaSessionState();
                 showNotification();
@@ -150,6 +175,8 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
     public boolean onError(MediaPlayer mp, int what, int extra) {
         Log.e(TAG, "MediaPlayer Error - What: " + what + " Extra: " + extra);
         isPlaying = false;
+        activeSongFinished = true;
+        MetadataEnricher.setPlaybackActive(false);
 
         if (mediaPlayer != null) {
             mediaPlayer.reset();
@@ -158,6 +185,35 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
         return true;
     }
 
+    /**
+     * Troca a fila de reprodução sem interromper a música atual, que continua tocando na
+     * posição em que ficou na nova fila.
+     * @param novaFila Fila editada.
+     * @param indiceSugerido Posição da música atual na nova fila, segundo quem editou a fila.
+     */
+    private void updateQueue(PlaybackQueue novaFila, int indiceSugerido) {
+        Musica atual = musicas != null && indiceActual >= 0 && indiceActual < musicas.size()
+                ? musicas.get(indiceActual) : null;
+        int novoIndice = indiceSugerido;
+        if (atual != null && (novoIndice < 0 || novoIndice >= novaFila.size() || novaFila.get(novoIndice) != atual)) {
+            // O serviço pode ter avançado sozinho desde a edição: procura a música atual na nova fila pelo ID
+            novoIndice = novaFila.positionOf(atual, indiceActual);
+        }
+        this.musicas = novaFila;
+        this.indiceActual = Math.max(0, Math.min(novoIndice, novaFila.size() - 1));
+        Log.d(TAG, "Fila atualizada: " + novaFila.size() + " músicas, índice atual " + indiceActual);
+    }
+
+    /**
+     * Obtém o ID no banco da música atual, enviado junto do índice para que a tela localize a
+     * música sem depender de a sua lista estar na mesma ordem que a fila.
+     * @return ID da música, ou 0 se não há música ou ela não veio do banco.
+     */
+    private int currentSongId() {
+        return musicas != null && indiceActual >= 0 && indiceActual < musicas.size()
+                ? musicas.get(indiceActual).getSongId() : 0;
+    }
+
     /**
      * Pausa a reprodução da música atual.
      */
@@ -166,6 +222,7 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
             currentPosition = mediaPlayer.getCurrentPosition();
             mediaPlayer.pause();
             isPlaying = false;
+            playEventJournal.record(PlayEventJournal.EVENT_POSITION, activeSongId, currentPosition);
             stopProgressUpdates();
 
             sendSongUpdateBroadcast();
@@ -181,11 +238,13 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
 
     /**
      * Toca a próxima música na lista, considerando o modo aleatório.
+     * No modo aleatório, segue a mesma ordem usada pelo Model.
      */
     private void next() {
         if (musicas == null || musicas.isEmpty()) return;
         if (shuffleState) {
-            indiceActual = (int) (Math.random() * musicas.size());
+            int sorteada = smartShuffleState ? SmartShuffle.getInstance(this).next(musicas, indiceActual) : -1;
+            indiceActual = sorteada >= 0 ? sorteada : ShuffleOrder.shared().next(musicas.size(), indiceActual);
         } else {
             indiceActual = (indiceActual + 1) % musicas.size();
         }
@@ -201,7 +260,8 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
         } else {
             if (musicas == null || musicas.isEmpty()) return;
             if (shuffleState) {
-                indiceActual = (int) (Math.random() * musicas.size());
+                int anterior = smartShuffleState ? SmartShuffle.getInstance(this).previous(musicas, indiceActual) : -1;
+                indiceActual = anterior >= 0 ? anterior : ShuffleOrder.shared().previous(musicas.size(), indiceActual);
             } else {
                 indiceActual = (indiceActual - 1 + musicas.size()) % musicas.size();
             }
@@ -228,6 +288,7 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
         createNotificationChannel();
         setupProgressUpdater();
         setupMediaSession();
+        playEventJournal = PlayEventJournal.getInstance(this);
         Log.d(TAG, "MediaPlayerService criado");
     }
 
@@ -308,10 +369,14 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
             case ACTION_PLAY:
                 Log.d(TAG, "ACTION_PLAY - Processando...");
 
-                if (intent.hasExtra("SONG_LIST")) {
+                if (intent.getBooleanExtra(EXTRA_SHARED_QUEUE, false)) {
+                    this.musicas = PlaybackQueue.published(); // Mesma instância usada pelo Presenter, sem cópia
+                    Log.d(TAG, "Fila compartilhada recebida no Service: " + musicas.size() + " músicas");
+                } else if (intent.hasExtra("SONG_LIST")) {
                     ArrayList<Musica> receivedList = (ArrayList<Musica>) intent.getSerializableExtra("SONG_LIST");
                     if (receivedList != null && !receivedList.isEmpty()) {
                         this.musicas = receivedList;
+                        ShuffleOrder.shared().invalidate(); // Lista que não veio do Model: a ordem aleatória é refeita
                         Log.d(TAG, "Lista de músicas recebida no Service: " + receivedList.size() + " músicas");
                     }
                 }
@@ -337,6 +402,10 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
                 pause();
                 break;
 
+            case ACTION_UPDATE_QUEUE:
+                updateQueue(PlaybackQueue.published(), intent.getIntExtra("CURRENT_INDEX", -1));
+                break;
+
             case ACTION_SEEK_TO:
                 Log.d(TAG, "ACTION_SEEK_TO RECEBIDO NO SERVICE");
 
@@ -383,6 +452,10 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
     @Override
     public void onCompletion(MediaPlayer mp) {
         Log.d(TAG, "Música concluída - Repeat: " + repeatState + " - Shuffle: " + shuffleState);
+        if (!activeSongFinished) {
+            playEventJournal.record(PlayEventJournal.EVENT_COMPLETE, activeSongId, currentDuration);
+            activeSongFinished = true;
+        }
 
         if (repeatState) {
             Log.d(TAG, "Repeat ativado - Reiniciando mesma música");
@@ -437,6 +510,7 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
             seekIntent.putExtra("is_seeking", true);
             seekIntent.putExtra("seek_manual", true);
             seekIntent.putExtra("current_song_index", indiceActual);
+            seekIntent.putExtra(EXTRA_SONG_ID, currentSongId());
 
             if (musicas != null && !musicas.isEmpty() && indiceActual < musicas.size()) {
                 seekIntent.putExtra("song_title", musicas.get(indiceActual).getTitulo());
@@ -522,6 +596,7 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
      * Atualiza o estado da MediaSession com base na reprodução atual.
      */
     private void updateMediaSessionState() {
+        MetadataEnricher.setPlaybackActive(isPlaying); // Reduz o enriquecimento de tags enquanto toca
         if (mediaSession != null && mediaPlayer != null) {
             android.support.v4.media.session.PlaybackStateCompat.Builder stateBuilder =
                     new android.support.v4.media.session.PlaybackStateCompat.Builder()
@@ -585,6 +660,7 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
                                 updateIntent.putExtra("song_title", musicas.get(indiceActual).getTitulo());
                                 updateIntent.putExtra("song_artist", musicas.get(indiceActual).getArtista());
                                 updateIntent.putExtra("current_song_index", indiceActual);
+                                updateIntent.putExtra(EXTRA_SONG_ID, currentSongId());
                             }
 
                             sendBroadcast(updateIntent);
@@ -652,6 +728,8 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
                 Intent intent = new Intent(BROADCAST_UPDATE);
 
                 intent.putExtra("current_song_index", indiceActual);
+
+                intent.putExtra(EXTRA_SONG_ID, currentSongId());
                 intent.putExtra("song_title", musicas.get(indiceActual).getTitulo());
                 intent.putExtra("song_artist", musicas.get(indiceActual).getArtista());
 
@@ -699,6 +777,7 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
         Intent intent = new Intent(this, MainActivity.class);
         intent.putExtra("from_notification", true);
         intent.putExtra("current_song_index", indiceActual);
+        intent.putExtra(EXTRA_SONG_ID, currentSongId());
         intent.putExtra("is_playing", isPlaying);
         intent.putExtra("current_position", currentPosition);
         intent.putExtra("current_duration", currentDuration);
@@ -785,6 +864,11 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
     public void onDestroy() {
         super.onDestroy();
         stopProgressUpdates();
+        MetadataEnricher.setPlaybackActive(false);
+        if (!activeSongFinished) {
+            playEventJournal.record(PlayEventJournal.EVENT_POSITION, activeSongId, playbackPosition());
+        }
+        playEventJournal.flushAndAggregate();
         if (mediaPlayer != null) {
             mediaPlayer.release();
             mediaPlayer = null;
@@ -797,6 +881,38 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
         Log.d(TAG, "MediaPlayerService destruído");
     }
 
+    /**
+     * Exibe as medições do banco de dados no dumpsys:
+     * {@code adb shell dumpsys activity service com.mussaldynerhey.meuleitorrhey/.MusicService [reset]}.
+     * @param fd Descritor do arquivo de saída.
+     * @param writer Destino do texto.
+     * @param args Argumentos; "reset" descarta as medições depois de exibi-las.
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        writer.println("MusicService - Tocando: " + isPlaying + ", Índice: " + indiceActual +
+                ", Músicas: " + (musicas != null ? musicas.size() : 0));
+        writer.println();
+        QueryStats.dump(writer);
+        if (args != null && args.length > 0 && "reset".equals(args[0])) {
+            QueryStats.reset();
+            writer.println();
+            writer.println("Medições descartadas");
+        }
+    }
+
+    /**
+     * Obtém a posição do player sem falhar quando ele está em um estado que não a informa.
+     * @return Posição atual em milissegundos, ou a última posição conhecida.
+     */
+    private int playbackPosition() {
+        try {
+            return mediaPlayer != null ? mediaPlayer.getCurrentPosition() : currentPosition;
+        } catch (IllegalStateException e) {
+            return currentPosition;
+        }
+    }
+
     /**
      * Verifica se uma música está sendo reproduzida.
      * @return True se a música está tocando, false caso contrário.
@@ -887,6 +1003,10 @@ public class MusicService extends Service implements MediaPlayer.OnCompletionLis
 
             this.repeatState = repeatState;
             this.shuffleState = shuffleState;
+            this.smartShuffleState = shuffleState && intent.getBooleanExtra("SMART_SHUFFLE_STATE", false);
+            if (smartShuffleState && musicas != null) {
+                SmartShuffle.getInstance(this).prepare(musicas);
+            }
 
             if (currentIndex != this.indiceActual) {
                 this.indiceActual = currentIndex;
@@ -0,0 +1,241 @@
+package com.mussaldynerhey.meuleitorrhey.utils;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.mussaldynerhey.meuleitorrhey.database.entities.PlayStatsDelta;
+import com.mussaldynerhey.meuleitorrhey.database.repository.MusicRepository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Diário dos eventos de reprodução (início, pulo, fim e posição de cada música).
+ * Registrar um evento só o coloca em uma fila em memória: os eventos são gravados em lotes,
+ * em uma thread própria, no fim de um arquivo binário em que cada registro é precedido pelo
+ * seu tamanho. De tempos em tempos o arquivo é renomeado e somado à tabela play_stats em uma
+ * única transação, então a reprodução nunca espera por disco nem pelo banco. Um registro
+ * incompleto no fim do arquivo (o app foi encerrado no meio da gravação) é descartado.
+ */
+public class PlayEventJournal {
+    private static final String TAG = "PlayEventJournal";
+    public static final byte EVENT_START = 1; // A música começou a tocar
+    public static final byte EVENT_SKIP = 2; // A música foi trocada antes do fim
+    public static final byte EVENT_COMPLETE = 3; // A música tocou até o fim
+    public static final byte EVENT_POSITION = 4; // Posição da música ao pausar ou ao fechar o player
+
+    private static final String JOURNAL_FILE = "play_events.journal"; // Arquivo que recebe os novos eventos
+    private static final String AGGREGATING_FILE = "play_events.journal.aggregating"; // Arquivo sendo somado ao banco
+    private static final int RECORD_SIZE = 1 + 4 + 8 + 4; // Tipo, ID da música, data e posição
+    private static final int MAX_RECORD_SIZE = 1024; // Tamanhos maiores indicam um arquivo corrompido
+    private static final int FLUSH_BATCH = 32; // Eventos pendentes que disparam uma gravação imediata
+    private static final long FLUSH_DELAY_MS = 5000; // Espera máxima de um evento antes de ser gravado
+    private static final long AGGREGATE_INTERVAL_MS = 10 * 60 * 1000; // Intervalo entre agregações
+    private static final long AGGREGATE_SIZE = 16 * 1024; // Tamanho do diário que antecipa a agregação
+
+    private static PlayEventJournal instance; // Instância única, compartilhada pelo app
+
+    private final MusicRepository musicRepository; // Repositório para acesso ao banco de dados
+    private final File journalFile; // Diário dos novos eventos
+    private final File aggregatingFile; // Diário renomeado, sendo somado ao banco
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, TAG)); // Thread das gravações e agregações
+    private final ConcurrentLinkedQueue<Event> pending = new ConcurrentLinkedQueue<>(); // Eventos ainda não gravados
+    private final AtomicInteger pendingCount = new AtomicInteger(); // Tamanho aproximado da fila
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false); // Indica se há gravação agendada
+    private long lastAggregation = 0; // Momento da última agregação, alterado apenas pela thread do diário
+
+    /**
+     * Evento de reprodução ainda não gravado.
+     */
+    private static class Event {
+        final byte type; // Tipo do evento
+        final int songId; // ID da música
+        final long timestamp; // Momento do evento em milissegundos
+        final int positionMs; // Posição da música no momento do evento
+
+        Event(byte type, int songId, long timestamp, int positionMs) {
+            this.type = type;
+            this.songId = songId;
+            this.timestamp = timestamp;
+            this.positionMs = positionMs;
+        }
+    }
+
+    private PlayEventJournal(Context context) {
+        this.musicRepository = new MusicRepository((Application) context.getApplicationContext());
+        this.journalFile = new File(context.getFilesDir(), JOURNAL_FILE);
+        this.aggregatingFile = new File(context.getFilesDir(), AGGREGATING_FILE);
+        // Eventos deixados pela execução anterior entram nas estatísticas logo na abertura
+        executor.execute(this::aggregate);
+    }
+
+    /**
+     * Obtém a instância única do diário.
+     * @param context Contexto da aplicação.
+     * @return Instância do diário.
+     */
+    public static synchronized PlayEventJournal getInstance(Context context) {
+        if (instance == null) {
+            instance = new PlayEventJournal(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Registra um evento de reprodução. Não faz E/S: pode ser chamado na thread do player.
+     * Músicas que não vieram do banco (ID 0) são ignoradas.
+     * @param type Tipo do evento (EVENT_START, EVENT_SKIP, EVENT_COMPLETE ou EVENT_POSITION).
+     * @param songId ID da música no banco de dados.
+     * @param positionMs Posição da música em milissegundos.
+     */
+    public void record(byte type, int songId, int positionMs) {
+        if (songId <= 0) {
+            return;
+        }
+        pending.add(new Event(type, songId, System.currentTimeMillis(), positionMs));
+        if (pendingCount.incrementAndGet() >= FLUSH_BATCH) {
+            executor.execute(this::flush);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                flushScheduled.set(false);
+                flush();
+            }, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Grava os eventos pendentes e soma o diário às estatísticas, em segundo plano.
+     * Usado quando o player é fechado.
+     */
+    public void flushAndAggregate() {
+        executor.execute(() -> {
+            flush();
+            aggregate();
+        });
+    }
+
+    /**
+     * Grava no fim do diário todos os eventos pendentes, em uma única escrita.
+     */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        int written = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(journalFile, true)))) {
+            Event event;
+            while ((event = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                out.writeInt(RECORD_SIZE);
+                out.writeByte(event.type);
+                out.writeInt(event.songId);
+                out.writeLong(event.timestamp);
+                out.writeInt(event.positionMs);
+                written++;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Erro ao gravar o diário - " + written + " eventos gravados antes do erro", e);
+            return;
+        }
+        if (SystemClock.elapsedRealtime() - lastAggregation >= AGGREGATE_INTERVAL_MS
+                || journalFile.length() >= AGGREGATE_SIZE) {
+            aggregate();
+        }
+    }
+
+    /**
+     * Soma o diário às estatísticas. O arquivo é renomeado antes de ser lido, para que novos
+     * eventos sigam para um diário novo; um arquivo renomeado que sobrou de uma agregação
+     * interrompida é somado primeiro.
+     */
+    private void aggregate() {
+        lastAggregation = SystemClock.elapsedRealtime();
+        try {
+            if (aggregatingFile.exists()) {
+                aggregateFile(aggregatingFile);
+            }
+            if (journalFile.length() > 0 && journalFile.renameTo(aggregatingFile)) {
+                aggregateFile(aggregatingFile);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // O arquivo renomeado é mantido e somado na próxima agregação
+            Log.e(TAG, "Erro ao somar o diário às estatísticas", e);
+        }
+    }
+
+    private void aggregateFile(File file) throws Exception {
+        Map<Integer, PlayStatsDelta> deltas = readDeltas(file);
+        if (!deltas.isEmpty()) {
+            musicRepository.applyPlayStats(deltas.values()).get();
+        }
+        if (!file.delete()) {
+            Log.w(TAG, "Não foi possível apagar " + file.getName());
+        }
+        Log.d(TAG, "Diário agregado - Músicas: " + deltas.size());
+    }
+
+    /**
+     * Lê um diário e soma os eventos por música.
+     * @param file Diário a ser lido.
+     * @return Incrementos das estatísticas, por ID de música.
+     */
+    private static Map<Integer, PlayStatsDelta> readDeltas(File file) throws IOException {
+        Map<Integer, PlayStatsDelta> deltas = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int size;
+                try {
+                    size = in.readInt();
+                } catch (EOFException end) {
+                    break;
+                }
+                if (size < RECORD_SIZE || size > MAX_RECORD_SIZE) {
+                    Log.w(TAG, "Registro inválido no diário (" + size + " bytes) - o restante é ignorado");
+                    break;
+                }
+                byte[] record = new byte[size];
+                try {
+                    in.readFully(record);
+                } catch (EOFException truncated) {
+                    break; // Registro incompleto no fim do arquivo
+                }
+                // Bytes além de RECORD_SIZE são de versões futuras do registro e são ignorados
+                DataInputStream fields = new DataInputStream(new ByteArrayInputStream(record));
+                byte type = fields.readByte();
+                int songId = fields.readInt();
+                long timestamp = fields.readLong();
+                PlayStatsDelta delta = deltas.computeIfAbsent(songId, PlayStatsDelta::new);
+                if (type == EVENT_START) {
+                    delta.lastPlayedAt = Math.max(delta.lastPlayedAt, timestamp);
+                } else if (type == EVENT_COMPLETE) {
+                    delta.plays++;
+                } else if (type == EVENT_SKIP) {
+                    delta.skips++;
+                }
+            }
+        }
+        return deltas;
+    }
+}
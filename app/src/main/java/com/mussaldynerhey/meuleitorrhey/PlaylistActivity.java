@@ -12,19 +12,18 @@ import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.mussaldynerhey.meuleitorrhey.database.MusicDatabase;
-import com.mussaldynerhey.meuleitorrhey.database.daos.PlaylistDao;
 import com.mussaldynerhey.meuleitorrhey.database.entities.Playlist;
-import com.mussaldynerhey.meuleitorrhey.database.relations.PlaylistWithSongs;
+import com.mussaldynerhey.meuleitorrhey.database.relations.PlaylistSummary;
+import com.mussaldynerhey.meuleitorrhey.database.repository.MusicRepository;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Activity para gerenciar e exibir playlists.
@@ -34,11 +33,11 @@ public class PlaylistActivity extends AppCompatActivity {
     private static final String TAG = "PlaylistActivity";
 
     // Variáveis para o banco de dados e a UI
-    private PlaylistDao playlistDao; // DAO para operações com playlists
-    private Executor databaseExecutor; // Executor para operações do banco em background
+    private MusicRepository musicRepository; // Repositório para acesso ao banco de dados
+    private Executor mainExecutor; // Entrega os resultados do banco na thread principal
     private RecyclerView playlistsRecyclerView; // RecyclerView para exibir playlists
     private PlaylistAdapter playlistAdapter; // Adaptador para o RecyclerView
-    private List<PlaylistWithSongs> playlistWithSongsList = new ArrayList<>(); // Lista de playlists com suas músicas
+    private List<PlaylistSummary> playlistSummaries = new ArrayList<>(); // Resumos das playlists exibidas
 
     /**
      * Método chamado quando a Activity é criada.
@@ -54,16 +53,15 @@ public class PlaylistActivity extends AppCompatActivity {
         setSupportActionBar(toolbar);
         getSupportActionBar().setDisplayHomeAsUpEnabled(true); // Ativa o botão de voltar
 
-        // Inicialização do Banco de Dados e Executor
-        MusicDatabase db = MusicDatabase.getDatabase(this);
-        playlistDao = db.playlistDao();
-        databaseExecutor = Executors.newSingleThreadExecutor(); // Thread para operações do banco
+        // Inicialização do Repositório; as threads do banco são compartilhadas pelo app
+        musicRepository = new MusicRepository(getApplication());
+        mainExecutor = ContextCompat.getMainExecutor(this);
 
         // Configuração do RecyclerView
         playlistsRecyclerView = findViewById(R.id.playlists_recycler_view);
         playlistsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
-        playlistAdapter = new PlaylistAdapter(playlistWithSongsList,
+        playlistAdapter = new PlaylistAdapter(playlistSummaries,
                 playlist -> { // Manipulador de clique normal
                     Log.d(TAG, "Playlist clicada: " + playlist.getName() + " (ID: " + playlist.getId() + ")");
                     Intent intent = new Intent(PlaylistActivity.this, PlaylistDetailsActivity.class);
@@ -82,17 +80,8 @@ public class PlaylistActivity extends AppCompatActivity {
         FloatingActionButton fab = findViewById(R.id.fab_add_playlist);
         fab.setOnClickListener(view -> showCreatePlaylistDialog());
 
-        // Carrega as playlists existentes ao iniciar a tela
-        loadPlaylists();
-    }
-
-    /**
-     * Recarrega as playlists quando a Activity é retomada.
-     */
-    @Override
-    protected void onResume() {
-        super.onResume();
-        loadPlaylists();
+        // Observa as playlists: qualquer alteração no banco, feita nesta tela ou não, chega aqui
+        observePlaylists();
     }
 
     /**
@@ -121,26 +110,13 @@ public class PlaylistActivity extends AppCompatActivity {
     }
 
     /**
-     * Carrega todas as playlists e suas músicas do banco e atualiza o RecyclerView.
+     * Observa o resumo de todas as playlists, consultado em uma única query. O Room refaz a
+     * consulta quando as tabelas envolvidas mudam e o adaptador aplica só as diferenças.
      */
-    private void loadPlaylists() {
-        databaseExecutor.execute(() -> {
-            List<Playlist> allPlaylists = playlistDao.getAllPlaylists();
-            List<PlaylistWithSongs> resultData = new ArrayList<>();
-
-            for (Playlist p : allPlaylists) {
-                PlaylistWithSongs data = playlistDao.getPlaylistWithSongs(p.id);
-                if (data != null) {
-                    resultData.add(data);
-                }
-            }
-
-            runOnUiThread(() -> {
-                playlistWithSongsList.clear();
-                playlistWithSongsList.addAll(resultData);
-                playlistAdapter.notifyDataSetChanged();
-                Log.d(TAG, "Playlists (com contagem de músicas) carregadas: " + playlistWithSongsList.size());
-            });
+    private void observePlaylists() {
+        musicRepository.observePlaylistSummaries().observe(this, resultData -> {
+            playlistAdapter.updateData(resultData);
+            Log.d(TAG, "Playlists (com contagem de músicas) carregadas: " + resultData.size());
         });
     }
 
@@ -178,28 +154,20 @@ public class PlaylistActivity extends AppCompatActivity {
     }
 
     /**
-     * Salva uma nova playlist no banco de dados em uma thread de fundo.
+     * Salva uma nova playlist no banco de dados, na fila de escrita.
      * @param name Nome da nova playlist.
      */
     private void createNewPlaylist(final String name) {
-        databaseExecutor.execute(() -> {
-            if (playlistDao.countPlaylistsWithName(name) > 0) {
-                runOnUiThread(() -> Toast.makeText(PlaylistActivity.this, "Uma playlist com este nome já existe", Toast.LENGTH_SHORT).show());
-                return;
-            }
-
-            Playlist newPlaylist = new Playlist(name);
-            long newId = playlistDao.insert(newPlaylist);
-
-            if (newId != -1) {
-                runOnUiThread(() -> {
-                    Toast.makeText(PlaylistActivity.this, "Playlist '" + name + "' criada!", Toast.LENGTH_SHORT).show();
-                    loadPlaylists();
-                });
+        musicRepository.createPlaylist(name).whenCompleteAsync((newId, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Erro ao criar playlist", error);
+                Toast.makeText(PlaylistActivity.this, "Erro ao criar playlist", Toast.LENGTH_SHORT).show();
+            } else if (newId == -1) {
+                Toast.makeText(PlaylistActivity.this, "Uma playlist com este nome já existe", Toast.LENGTH_SHORT).show();
             } else {
-                runOnUiThread(() -> Toast.makeText(PlaylistActivity.this, "Erro ao criar playlist", Toast.LENGTH_SHORT).show());
+                Toast.makeText(PlaylistActivity.this, "Playlist '" + name + "' criada!", Toast.LENGTH_SHORT).show();
             }
-        });
+        }, mainExecutor);
     }
 
     /**
@@ -270,11 +238,11 @@ public class PlaylistActivity extends AppCompatActivity {
      * @param newName Novo nome da playlist.
      */
     private void updatePlaylistName(final Playlist playlist, final String newName) {
-        databaseExecutor.execute(() -> {
-            playlist.name = newName;
-            playlistDao.update(playlist);
-            runOnUiThread(this::loadPlaylists);
-        });
+        // Uma cópia: o objeto original está na lista exibida e serve de base para a comparação
+        Playlist renamed = new Playlist(newName);
+        renamed.id = playlist.id;
+        renamed.createdAt = playlist.createdAt;
+        musicRepository.updatePlaylist(renamed);
     }
 
     /**
@@ -282,9 +250,6 @@ public class PlaylistActivity extends AppCompatActivity {
      * @param playlist Playlist a ser deletada.
      */
     private void deletePlaylist(final Playlist playlist) {
-        databaseExecutor.execute(() -> {
-            playlistDao.delete(playlist);
-            runOnUiThread(this::loadPlaylists);
-        });
+        musicRepository.deletePlaylist(playlist);
     }
 }
\ No newline at end of file
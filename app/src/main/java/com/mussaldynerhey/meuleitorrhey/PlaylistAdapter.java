@@ -7,21 +7,24 @@ import android.widget.Filter;
 import android.widget.Filterable;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.mussaldynerhey.meuleitorrhey.database.entities.Playlist;
-import com.mussaldynerhey.meuleitorrhey.database.relations.PlaylistWithSongs;
+import com.mussaldynerhey.meuleitorrhey.database.relations.PlaylistSummary;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Adaptador para exibir playlists em um RecyclerView com suporte a filtragem.
  */
 public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.PlaylistViewHolder> implements Filterable {
 
-    private List<PlaylistWithSongs> playlistsWithSongs; // Lista para exibição (pode ser filtrada)
-    private final List<PlaylistWithSongs> playlistsWithSongsFull; // Lista mestre com todos os itens
+    private final List<PlaylistSummary> playlists; // Lista para exibição (pode ser filtrada)
+    private final ListDiffer<PlaylistSummary> differ; // Aplica novas versões da lista apenas com as diferenças
+    private final List<PlaylistSummary> playlistsFull; // Lista mestre com todos os itens
     private final OnPlaylistClickListener clickListener; // Listener para cliques normais
     private final OnPlaylistLongClickListener longClickListener; // Listener para cliques longos
 
@@ -41,15 +44,16 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
 
     /**
      * Construtor do adaptador.
-     * @param playlistsWithSongs Lista inicial de playlists com suas músicas.
+     * @param playlists Lista inicial de resumos das playlists.
      * @param clickListener Listener para cliques normais.
      * @param longClickListener Listener para cliques longos.
      */
-    public PlaylistAdapter(List<PlaylistWithSongs> playlistsWithSongs, OnPlaylistClickListener clickListener, OnPlaylistLongClickListener longClickListener) {
-        this.playlistsWithSongs = playlistsWithSongs;
+    public PlaylistAdapter(List<PlaylistSummary> playlists, OnPlaylistClickListener clickListener, OnPlaylistLongClickListener longClickListener) {
+        this.playlists = playlists;
         this.clickListener = clickListener;
         this.longClickListener = longClickListener;
-        this.playlistsWithSongsFull = new ArrayList<>(playlistsWithSongs); // Cria cópia da lista original
+        this.playlistsFull = new ArrayList<>(playlists); // Cria cópia da lista original
+        this.differ = new ListDiffer<>(this, playlists, SUMMARY_DIFF);
     }
 
     /**
@@ -72,7 +76,7 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
      */
     @Override
     public void onBindViewHolder(@NonNull PlaylistViewHolder holder, int position) {
-        PlaylistWithSongs currentData = playlistsWithSongs.get(position);
+        PlaylistSummary currentData = playlists.get(position);
         holder.bind(currentData, clickListener, longClickListener);
     }
 
@@ -82,21 +86,38 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
      */
     @Override
     public int getItemCount() {
-        return playlistsWithSongs.size();
+        return playlists.size();
     }
 
     /**
-     * Atualiza os dados do adaptador com uma nova lista de playlists.
-     * @param newData Nova lista de playlists com suas músicas.
+     * Atualiza os dados do adaptador com uma nova lista de playlists, notificando apenas
+     * as playlists que mudaram.
+     * @param newData Nova lista de resumos das playlists.
      */
-    public void updateData(List<PlaylistWithSongs> newData) {
-        this.playlistsWithSongs.clear();
-        this.playlistsWithSongs.addAll(newData);
-        this.playlistsWithSongsFull.clear();
-        this.playlistsWithSongsFull.addAll(newData);
-        notifyDataSetChanged();
+    public void updateData(List<PlaylistSummary> newData) {
+        this.playlistsFull.clear();
+        this.playlistsFull.addAll(newData);
+        differ.submit(new ArrayList<>(newData));
     }
 
+    /**
+     * Compara resumos pelo ID da playlist e pelos campos exibidos na linha.
+     */
+    private static final DiffUtil.ItemCallback<PlaylistSummary> SUMMARY_DIFF = new DiffUtil.ItemCallback<PlaylistSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull PlaylistSummary oldItem, @NonNull PlaylistSummary newItem) {
+            return oldItem.playlist.getId() == newItem.playlist.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull PlaylistSummary oldItem, @NonNull PlaylistSummary newItem) {
+            return Objects.equals(oldItem.playlist.getName(), newItem.playlist.getName())
+                    && oldItem.songCount == newItem.songCount
+                    && oldItem.totalDuration == newItem.totalDuration
+                    && Objects.equals(oldItem.coverSongIds, newItem.coverSongIds);
+        }
+    };
+
     /**
      * ViewHolder para um item de playlist.
      */
@@ -116,21 +137,37 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
 
         /**
          * Vincula os dados da playlist ao ViewHolder.
-         * @param data Dados da playlist com suas músicas.
+         * @param data Resumo da playlist.
          * @param clickListener Listener para cliques normais.
          * @param longClickListener Listener para cliques longos.
          */
-        public void bind(final PlaylistWithSongs data, final OnPlaylistClickListener clickListener, final OnPlaylistLongClickListener longClickListener) {
+        public void bind(final PlaylistSummary data, final OnPlaylistClickListener clickListener, final OnPlaylistLongClickListener longClickListener) {
             Playlist playlist = data.playlist;
             playlistName.setText(playlist.getName());
 
-            int songCount = data.songs != null ? data.songs.size() : 0;
+            int songCount = data.songCount;
             String songCountText = songCount == 1 ? "1 música" : songCount + " músicas";
+            if (data.totalDuration > 0) {
+                songCountText += " • " + formatDuration(data.totalDuration);
+            }
             playlistInfo.setText(songCountText);
 
             itemView.setOnClickListener(v -> clickListener.onPlaylistClick(playlist));
             itemView.setOnLongClickListener(v -> longClickListener.onPlaylistLongClick(playlist));
         }
+
+        /**
+         * Formata a duração total da playlist, em minutos ou em horas e minutos.
+         * @param millis Duração em milissegundos.
+         * @return Texto como "42 min" ou "2 h 05 min".
+         */
+        private static String formatDuration(long millis) {
+            long minutes = millis / 60000;
+            if (minutes < 60) {
+                return minutes + " min";
+            }
+            return String.format("%d h %02d min", minutes / 60, minutes % 60);
+        }
     }
 
     /**
@@ -150,13 +187,13 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
          */
         @Override
         protected FilterResults performFiltering(CharSequence constraint) {
-            List<PlaylistWithSongs> filteredList = new ArrayList<>();
+            List<PlaylistSummary> filteredList = new ArrayList<>();
 
             if (constraint == null || constraint.length() == 0) {
-                filteredList.addAll(playlistsWithSongsFull);
+                filteredList.addAll(playlistsFull);
             } else {
                 String filterPattern = constraint.toString().toLowerCase().trim();
-                for (PlaylistWithSongs item : playlistsWithSongsFull) {
+                for (PlaylistSummary item : playlistsFull) {
                     if (item.playlist.getName().toLowerCase().contains(filterPattern)) {
                         filteredList.add(item);
                     }
@@ -174,10 +211,9 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
          * @param results Resultados da filtragem.
          */
         @Override
+        @SuppressWarnings("unchecked")
         protected void publishResults(CharSequence constraint, FilterResults results) {
-            playlistsWithSongs.clear();
-            playlistsWithSongs.addAll((List) results.values);
-            notifyDataSetChanged();
+            differ.submit((List<PlaylistSummary>) results.values);
         }
     };
 }
\ No newline at end of file
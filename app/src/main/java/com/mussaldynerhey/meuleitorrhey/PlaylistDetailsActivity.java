@@ -5,25 +5,24 @@ import android.os.Bundle;
 import android.util.Log;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LiveData;
+import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.mussaldynerhey.meuleitorrhey.database.MusicDatabase;
-import com.mussaldynerhey.meuleitorrhey.database.daos.PlaylistSongDao;
-import com.mussaldynerhey.meuleitorrhey.database.daos.SongDao;
-import com.mussaldynerhey.meuleitorrhey.database.entities.PlaylistSong;
-import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
-import com.mussaldynerhey.meuleitorrhey.database.relations.PlaylistWithSongs;
+import com.mussaldynerhey.meuleitorrhey.database.relations.SongRow;
+import com.mussaldynerhey.meuleitorrhey.database.repository.MusicRepository;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -34,12 +33,17 @@ public class PlaylistDetailsActivity extends AppCompatActivity {
     private static final String TAG = "PlaylistDetailsActivity";
     public static final String EXTRA_PLAYLIST_ID = "playlist_id";
     public static final String EXTRA_PLAYLIST_NAME = "playlist_name";
+    public static final String RESULT_PLAYLIST_ID = "PLAYLIST_ID_RESULT"; // Playlist a tocar, devolvida à tela principal
+    public static final String RESULT_SONG_ID = "SONG_ID_RESULT"; // Música clicada, devolvida à tela principal
 
     private int playlistId = -1; // ID da playlist atual
-    private MusicDatabase db; // Instância do banco de dados
-    private Executor databaseExecutor; // Executor para operações do banco em background
+    private MusicRepository musicRepository; // Repositório para acesso ao banco de dados
+    private Executor mainExecutor; // Entrega os resultados do banco na thread principal
     private SongAdapter songAdapter; // Adaptador para o RecyclerView de músicas
-    private final ArrayList<Song> songsInPlaylist = new ArrayList<>(); // Lista de músicas na playlist
+    private final ArrayList<SongRow> songsInPlaylist = new ArrayList<>(); // Lista de músicas na playlist
+    private boolean dragging = false; // Indica se uma música está sendo arrastada
+    private List<SongRow> pendingSongs; // Versão recebida do banco durante o arrasto, aplicada ao soltar
+    private LiveData<List<SongRow>> playlistSongs; // Músicas da playlist observadas no banco
 
     /**
      * Método chamado quando a Activity é criada.
@@ -58,8 +62,8 @@ public class PlaylistDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        db = MusicDatabase.getDatabase(this);
-        databaseExecutor = Executors.newSingleThreadExecutor();
+        musicRepository = new MusicRepository(getApplication());
+        mainExecutor = ContextCompat.getMainExecutor(this);
 
         // Configuração da Toolbar
         Toolbar toolbar = findViewById(R.id.details_toolbar);
@@ -74,113 +78,196 @@ public class PlaylistDetailsActivity extends AppCompatActivity {
         songsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
         songAdapter = new SongAdapter(songsInPlaylist,
-                song -> {
-                    int clickedIndex = songsInPlaylist.indexOf(song);
-                    if (clickedIndex != -1) {
-                        Intent resultIntent = new Intent();
-                        resultIntent.putExtra("SONG_LIST_RESULT", songsInPlaylist);
-                        resultIntent.putExtra("SONG_INDEX_RESULT", clickedIndex);
-                        setResult(RESULT_OK, resultIntent);
-                        finish();
-                    }
-                },
-                song -> { // Clique longo para remover
-                    showRemoveSongDialog(song);
-                    return true;
-                }
+                this::playFromSong,
+                song -> false // O clique longo é tratado pelo arrasto (ver attachDragToReorder)
         );
         songsRecyclerView.setAdapter(songAdapter);
+        attachDragToReorder(songsRecyclerView);
 
         // Configuração do Botão de Adicionar (FAB)
         FloatingActionButton fab = findViewById(R.id.fab_add_songs);
         fab.setOnClickListener(view -> showAddSongsDialog());
+
+        observeSongsInPlaylist();
     }
 
     /**
-     * Recarrega as músicas da playlist quando a Activity é retomada.
+     * Observa as músicas da playlist. O Room refaz a consulta (no pool de leitura, sem esperar
+     * scans em andamento) quando as músicas ou a playlist mudam, e o adaptador vincula de novo
+     * apenas as linhas que mudaram. Por isso adicionar, remover ou mover músicas não recarrega a lista.
      */
-    @Override
-    protected void onResume() {
-        super.onResume();
-        loadSongsInPlaylist();
+    private void observeSongsInPlaylist() {
+        playlistSongs = musicRepository.observeSongsByPlaylist(playlistId);
+        playlistSongs.observe(this, songs -> {
+            if (getSupportActionBar() != null) {
+                getSupportActionBar().setSubtitle(songs.size() == 1 ? "1 música" : songs.size() + " músicas");
+            }
+            if (dragging) {
+                pendingSongs = songs; // Aplicar agora desfaria o arrasto em andamento
+            } else {
+                songAdapter.submitSongs(songs);
+            }
+        });
+    }
+
+    /**
+     * Devolve à tela principal a playlist e a música clicada, para tocar a partir dela.
+     * Só os IDs vão no Intent; a tela principal carrega a fila com as linhas mínimas para tocar.
+     * @param song Música clicada.
+     */
+    private void playFromSong(SongRow song) {
+        Intent resultIntent = new Intent();
+        resultIntent.putExtra(RESULT_PLAYLIST_ID, playlistId);
+        resultIntent.putExtra(RESULT_SONG_ID, song.getId());
+        setResult(RESULT_OK, resultIntent);
+        finish();
     }
 
     /**
-     * Carrega as músicas da playlist do banco e atualiza o RecyclerView.
+     * Permite reordenar a playlist segurando e arrastando uma música. Ao soltar, só a posição
+     * da música movida é gravada, entre as posições das novas vizinhas. Segurar e soltar sem
+     * arrastar abre a opção de remover a música.
+     * @param recyclerView Lista das músicas da playlist.
      */
-    private void loadSongsInPlaylist() {
-        databaseExecutor.execute(() -> {
-            PlaylistWithSongs playlistWithSongs = db.playlistDao().getPlaylistWithSongs(playlistId);
+    private void attachDragToReorder(RecyclerView recyclerView) {
+        ItemTouchHelper touchHelper = new ItemTouchHelper(new ItemTouchHelper.SimpleCallback(
+                ItemTouchHelper.UP | ItemTouchHelper.DOWN, 0) {
+            private int dragFrom = RecyclerView.NO_POSITION; // Posição em que o arrasto começou
 
-            songsInPlaylist.clear();
-            if (playlistWithSongs != null && playlistWithSongs.songs != null) {
-                songsInPlaylist.addAll(playlistWithSongs.songs);
+            @Override
+            public void onSelectedChanged(RecyclerView.ViewHolder viewHolder, int actionState) {
+                super.onSelectedChanged(viewHolder, actionState);
+                if (actionState == ItemTouchHelper.ACTION_STATE_DRAG && viewHolder != null) {
+                    dragFrom = viewHolder.getAdapterPosition();
+                    dragging = true;
+                }
             }
 
-            runOnUiThread(() -> {
-                songAdapter.notifyDataSetChanged();
-                if (getSupportActionBar() != null) {
-                    getSupportActionBar().setSubtitle(songsInPlaylist.size() == 1 ? "1 música" : songsInPlaylist.size() + " músicas");
+            @Override
+            public boolean onMove(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder source,
+                                  @NonNull RecyclerView.ViewHolder target) {
+                int from = source.getAdapterPosition();
+                int to = target.getAdapterPosition();
+                if (from == RecyclerView.NO_POSITION || to == RecyclerView.NO_POSITION) {
+                    return false;
                 }
-            });
+                songAdapter.moveSong(from, to);
+                return true;
+            }
+
+            @Override
+            public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
+            }
+
+            @Override
+            public void clearView(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder) {
+                super.clearView(recyclerView, viewHolder);
+                int from = dragFrom;
+                int to = viewHolder.getAdapterPosition();
+                dragFrom = RecyclerView.NO_POSITION;
+                dragging = false;
+                List<SongRow> pending = pendingSongs;
+                pendingSongs = null;
+                if (from != RecyclerView.NO_POSITION && to != RecyclerView.NO_POSITION && from != to) {
+                    saveMovedSong(to); // O banco notifica em seguida uma versão que já inclui o movimento
+                    return;
+                }
+                if (pending != null) {
+                    songAdapter.submitSongs(pending); // Nada foi gravado, então o banco não notifica de novo
+                }
+                if (to != RecyclerView.NO_POSITION && from == to) {
+                    showRemoveSongDialog(songsInPlaylist.get(to));
+                }
+            }
         });
+        touchHelper.attachToRecyclerView(recyclerView);
+    }
+
+    /**
+     * Grava a nova posição da música que foi arrastada, a partir das vizinhas na lista.
+     * @param index Posição final da música na lista.
+     */
+    private void saveMovedSong(int index) {
+        int songId = songsInPlaylist.get(index).getId();
+        Integer previousSongId = index > 0 ? songsInPlaylist.get(index - 1).getId() : null;
+        Integer nextSongId = index < songsInPlaylist.size() - 1 ? songsInPlaylist.get(index + 1).getId() : null;
+        musicRepository.moveSongInPlaylist(playlistId, songId, previousSongId, nextSongId)
+                .whenCompleteAsync((result, error) -> {
+                    if (error != null) {
+                        onWriteFailed("Erro ao mover música", error);
+                    }
+                }, mainExecutor);
+    }
+
+    /**
+     * Avisa que uma escrita falhou e volta a exibir a versão do banco. O banco não muda, então
+     * não notifica de novo; a última versão observada desfaz, por exemplo, um arrasto não gravado.
+     * @param message Mensagem exibida ao usuário.
+     * @param error Erro da escrita.
+     */
+    private void onWriteFailed(String message, Throwable error) {
+        Log.e(TAG, message + " na playlist " + playlistId, error);
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+        List<SongRow> songs = playlistSongs != null ? playlistSongs.getValue() : null;
+        if (songs == null) {
+            return;
+        }
+        if (dragging) {
+            pendingSongs = songs; // Aplicada ao soltar, como as versões recebidas durante o arrasto
+        } else {
+            songAdapter.submitSongs(songs);
+        }
     }
 
     /**
      * Exibe um diálogo para adicionar músicas à playlist.
      */
     private void showAddSongsDialog() {
-        databaseExecutor.execute(() -> {
-            SongDao songDao = db.songDao();
-            List<Song> allSongs = songDao.getAllSongsForSelection();
-            String[] songTitles = allSongs.stream().map(Song::getTitle).toArray(String[]::new);
+        musicRepository.getAllSongsForSelection().thenAcceptAsync(allSongs -> {
+            String[] songTitles = allSongs.stream().map(SongRow::getTitle).toArray(String[]::new);
 
             boolean[] checkedItems = new boolean[allSongs.size()];
-            ArrayList<Song> selectedSongs = new ArrayList<>();
-
-            runOnUiThread(() -> {
-                AlertDialog.Builder builder = new AlertDialog.Builder(this);
-                builder.setTitle("Adicionar Músicas");
-                builder.setMultiChoiceItems(songTitles, checkedItems, (dialog, which, isChecked) -> {
-                    if (isChecked) {
-                        selectedSongs.add(allSongs.get(which));
-                    } else {
-                        selectedSongs.remove(allSongs.get(which));
-                    }
-                });
+            ArrayList<SongRow> selectedSongs = new ArrayList<>();
 
-                builder.setPositiveButton("ADICIONAR", (dialog, which) -> {
-                    if (!selectedSongs.isEmpty()) {
-                        addSongsToPlaylist(selectedSongs);
-                    }
-                });
-                builder.setNegativeButton("CANCELAR", null);
-                builder.create().show();
+            AlertDialog.Builder builder = new AlertDialog.Builder(this);
+            builder.setTitle("Adicionar Músicas");
+            builder.setMultiChoiceItems(songTitles, checkedItems, (dialog, which, isChecked) -> {
+                if (isChecked) {
+                    selectedSongs.add(allSongs.get(which));
+                } else {
+                    selectedSongs.remove(allSongs.get(which));
+                }
             });
-        });
+
+            builder.setPositiveButton("ADICIONAR", (dialog, which) -> {
+                if (!selectedSongs.isEmpty()) {
+                    addSongsToPlaylist(selectedSongs);
+                }
+            });
+            builder.setNegativeButton("CANCELAR", null);
+            builder.create().show();
+        }, mainExecutor);
     }
 
     /**
      * Adiciona músicas selecionadas à playlist no banco de dados.
      * @param songsToAdd Lista de músicas a serem adicionadas.
      */
-    private void addSongsToPlaylist(List<Song> songsToAdd) {
-        databaseExecutor.execute(() -> {
-            PlaylistSongDao playlistSongDao = db.playlistSongDao();
-            for (Song song : songsToAdd) {
-                int position = playlistSongDao.getSongCountInPlaylist(playlistId);
-                PlaylistSong playlistSong = new PlaylistSong(playlistId, song.getId(), position);
-                playlistSongDao.addSongToPlaylist(playlistSong);
-            }
-            loadSongsInPlaylist();
-        });
+    private void addSongsToPlaylist(List<SongRow> songsToAdd) {
+        List<Integer> songIds = songsToAdd.stream().map(SongRow::getId).collect(Collectors.toList());
+        musicRepository.addSongsToPlaylist(playlistId, songIds) // Uma única transação
+                .whenCompleteAsync((added, error) -> {
+                    if (error != null) {
+                        onWriteFailed("Erro ao adicionar músicas", error);
+                    }
+                }, mainExecutor);
     }
 
     /**
      * Exibe um diálogo de confirmação para remover uma música da playlist.
      * @param song Música a ser removida.
      */
-    private void showRemoveSongDialog(Song song) {
+    private void showRemoveSongDialog(SongRow song) {
         new AlertDialog.Builder(this)
                 .setTitle("Remover Música")
                 .setMessage("Tem certeza que deseja remover '" + song.getTitle() + "' desta playlist?")
@@ -193,12 +280,13 @@ public class PlaylistDetailsActivity extends AppCompatActivity {
      * Remove uma música da playlist no banco de dados.
      * @param song Música a ser removida.
      */
-    private void removeSongFromPlaylist(Song song) {
-        databaseExecutor.execute(() -> {
-            PlaylistSongDao playlistSongDao = db.playlistSongDao();
-            playlistSongDao.removeSongFromPlaylist(playlistId, song.getId());
-            loadSongsInPlaylist();
-        });
+    private void removeSongFromPlaylist(SongRow song) {
+        musicRepository.removeSongFromPlaylist(playlistId, song.getId())
+                .whenCompleteAsync((result, error) -> {
+                    if (error != null) {
+                        onWriteFailed("Erro ao remover música", error);
+                    }
+                }, mainExecutor);
     }
 
     /**
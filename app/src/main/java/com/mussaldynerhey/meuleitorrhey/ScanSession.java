@@ -0,0 +1,238 @@
+package com.mussaldynerhey.meuleitorrhey.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sessão de scan e sincronização das músicas do dispositivo.
+ * Expõe um future de conclusão, eventos de progresso e cancelamento. Só existe uma sessão
+ * em andamento por vez: chamadas concorrentes a {@link #start(MusicScanner)} recebem a sessão
+ * que já está rodando em vez de iniciar outro scan.
+ */
+public class ScanSession {
+    private static final String TAG = "ScanSession";
+    private static final int PROGRESS_INTERVAL = 100; // Registros lidos entre duas publicações de progresso
+    private static final ExecutorService scanExecutor = Executors.newSingleThreadExecutor(); // Thread dos scans
+    private static ScanSession current; // Sessão em andamento, protegida por ScanSession.class
+
+    private final CompletableFuture<MusicScanner.SyncResult> completion = new CompletableFuture<>(); // Resultado do scan
+    private final AtomicBoolean cancelled = new AtomicBoolean(false); // Indica se o scan foi cancelado
+    private final List<ProgressListener> listeners = new CopyOnWriteArrayList<>(); // Listeners de progresso
+    private final List<ChunkListener> chunkListeners = new CopyOnWriteArrayList<>(); // Listeners dos blocos gravados
+    private int insertedRows = 0; // Músicas inseridas até agora, alterado apenas pela thread do scan
+    private int updatedRows = 0; // Músicas atualizadas até agora, alterado apenas pela thread do scan
+    private final Handler mainHandler = new Handler(Looper.getMainLooper()); // Entrega o progresso na thread principal
+    private int clients = 1; // Número de chamadores aguardando esta sessão, protegido por ScanSession.class
+    private volatile Progress progress = new Progress(0, 0, 0, 0); // Último progresso publicado
+    private int scannedRows = 0; // Registros lidos até agora, alterado apenas pela thread do scan
+
+    /**
+     * Interface para receber, na thread principal, cada bloco de músicas gravado no banco durante o scan.
+     */
+    public interface ChunkListener {
+        void onChunkApplied(MusicScanner.SyncResult chunk);
+    }
+
+    /**
+     * Interface para receber o progresso do scan na thread principal.
+     */
+    public interface ProgressListener {
+        void onProgress(Progress progress);
+    }
+
+    /**
+     * Progresso de um scan: registros lidos do MediaStore e músicas inseridas, atualizadas e removidas.
+     */
+    public static class Progress {
+        public final int scanned; // Registros lidos do MediaStore
+        public final int inserted; // Músicas inseridas no banco
+        public final int updated; // Músicas atualizadas no banco
+        public final int removed; // Músicas removidas do banco
+
+        Progress(int scanned, int inserted, int updated, int removed) {
+            this.scanned = scanned;
+            this.inserted = inserted;
+            this.updated = updated;
+            this.removed = removed;
+        }
+
+        @Override
+        public String toString() {
+            return "Lidas: " + scanned + ", Novas: " + inserted + ", Alteradas: " + updated + ", Removidas: " + removed;
+        }
+    }
+
+    private ScanSession() {
+    }
+
+    /**
+     * Inicia um scan incremental, ou retorna a sessão que já está em andamento.
+     * @param musicScanner Scanner usado caso uma nova sessão precise ser criada.
+     * @return Sessão em andamento.
+     */
+    public static ScanSession start(MusicScanner musicScanner) {
+        synchronized (ScanSession.class) {
+            if (current != null && !current.completion.isDone()) {
+                current.clients++;
+                Log.d(TAG, "Scan já em andamento - aguardando a sessão atual (" + current.clients + " chamadores)");
+                return current;
+            }
+            ScanSession session = new ScanSession();
+            current = session;
+            scanExecutor.execute(() -> session.run(musicScanner));
+            return session;
+        }
+    }
+
+    private void run(MusicScanner musicScanner) {
+        if (cancelled.get()) {
+            return;
+        }
+        try {
+            MusicScanner.SyncResult result = musicScanner.syncNow(this, true);
+            if (cancelled.get()) {
+                Log.d(TAG, "Scan cancelado - " + progress);
+            } else {
+                Log.d(TAG, "Scan concluído - " + progress);
+                completion.complete(result);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Erro durante o scan", e);
+            completion.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Obtém o future concluído com o resultado da sincronização.
+     * É cancelado se a sessão for cancelada antes de terminar.
+     * @return Future de conclusão do scan.
+     */
+    public CompletableFuture<MusicScanner.SyncResult> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Obtém o último progresso publicado.
+     * @return Progresso atual do scan.
+     */
+    public Progress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Adiciona um listener de progresso, chamado na thread principal.
+     * @param listener Listener a ser adicionado.
+     * @return A própria sessão, para encadear chamadas.
+     */
+    public ScanSession addProgressListener(ProgressListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Remove um listener de progresso.
+     * @param listener Listener a ser removido.
+     */
+    public void removeProgressListener(ProgressListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adiciona um listener dos blocos gravados no banco, chamado na thread principal.
+     * Blocos gravados antes do registro não são reenviados.
+     * @param listener Listener a ser adicionado.
+     * @return A própria sessão, para encadear chamadas.
+     */
+    public ScanSession addChunkListener(ChunkListener listener) {
+        chunkListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Remove um listener dos blocos gravados.
+     * @param listener Listener a ser removido.
+     */
+    public void removeChunkListener(ChunkListener listener) {
+        chunkListeners.remove(listener);
+    }
+
+    /**
+     * Desiste desta sessão. O scan só é interrompido quando nenhum outro chamador ainda
+     * aguarda o resultado; nesse caso nada é gravado no banco e o future é cancelado.
+     */
+    public void cancel() {
+        synchronized (ScanSession.class) {
+            if (completion.isDone() || --clients > 0) {
+                return;
+            }
+            cancelled.set(true);
+            if (current == this) {
+                current = null;
+            }
+        }
+        completion.cancel(false);
+        Log.d(TAG, "Cancelamento solicitado");
+    }
+
+    /**
+     * Verifica se o scan foi cancelado. Consultado pelo scanner durante a leitura do cursor.
+     * @return True se o scan deve ser interrompido.
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Registra a leitura de um registro do cursor, publicando o progresso a cada {@link #PROGRESS_INTERVAL} registros.
+     */
+    void onRowScanned() {
+        scannedRows++;
+        if (scannedRows % PROGRESS_INTERVAL == 0) {
+            publishProgress(new Progress(scannedRows, insertedRows, updatedRows, 0));
+        }
+    }
+
+    /**
+     * Registra um bloco gravado no banco e o entrega aos listeners de blocos.
+     * @param chunk Músicas inseridas e atualizadas no bloco.
+     */
+    void onChunkApplied(MusicScanner.SyncResult chunk) {
+        insertedRows += chunk.added.size();
+        updatedRows += chunk.changed.size();
+        publishProgress(new Progress(scannedRows, insertedRows, updatedRows, 0));
+        if (!chunkListeners.isEmpty()) {
+            mainHandler.post(() -> {
+                for (ChunkListener listener : chunkListeners) {
+                    listener.onChunkApplied(chunk);
+                }
+            });
+        }
+    }
+
+    /**
+     * Registra o resultado aplicado ao banco e publica o progresso final.
+     * @param result Resultado da sincronização.
+     */
+    void onSyncApplied(MusicScanner.SyncResult result) {
+        publishProgress(new Progress(scannedRows, result.added.size(), result.changed.size(), result.removed.size()));
+    }
+
+    private void publishProgress(Progress snapshot) {
+        progress = snapshot;
+        if (!listeners.isEmpty()) {
+            mainHandler.post(() -> {
+                for (ProgressListener listener : listeners) {
+                    listener.onProgress(snapshot);
+                }
+            });
+        }
+    }
+}
@@ -6,9 +6,11 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
-import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
+import com.mussaldynerhey.meuleitorrhey.database.relations.SongRow;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -16,7 +18,8 @@ import java.util.concurrent.TimeUnit;
  */
 public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder> {
 
-    private final List<Song> songs; // Lista de músicas para exibição
+    private final List<SongRow> songs; // Lista de músicas para exibição
+    private final ListDiffer<SongRow> differ; // Aplica novas versões da lista apenas com as diferenças
     private final OnSongClickListener clickListener; // Listener para cliques normais
     private final OnSongLongClickListener longClickListener; // Listener para cliques longos
 
@@ -24,14 +27,14 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
      * Interface para lidar com cliques normais em uma música.
      */
     public interface OnSongClickListener {
-        void onSongClick(Song song);
+        void onSongClick(SongRow song);
     }
 
     /**
      * Interface para lidar com cliques longos em uma música.
      */
     public interface OnSongLongClickListener {
-        boolean onSongLongClick(Song song);
+        boolean onSongLongClick(SongRow song);
     }
 
     /**
@@ -40,10 +43,28 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
      * @param clickListener Listener para cliques normais.
      * @param longClickListener Listener para cliques longos.
      */
-    public SongAdapter(List<Song> songs, OnSongClickListener clickListener, OnSongLongClickListener longClickListener) {
+    public SongAdapter(List<SongRow> songs, OnSongClickListener clickListener, OnSongLongClickListener longClickListener) {
         this.songs = songs;
         this.clickListener = clickListener;
         this.longClickListener = longClickListener;
+        this.differ = new ListDiffer<>(this, songs, SONG_DIFF);
+    }
+
+    /**
+     * Substitui a lista exibida, notificando apenas as músicas inseridas, removidas, movidas ou alteradas.
+     * @param newSongs Nova lista de músicas.
+     */
+    public void submitSongs(List<SongRow> newSongs) {
+        differ.submit(newSongs);
+    }
+
+    /**
+     * Move uma música na lista exibida, como durante um arrasto.
+     * @param from Posição atual da música.
+     * @param to Nova posição da música.
+     */
+    public void moveSong(int from, int to) {
+        differ.move(from, to);
     }
 
     /**
@@ -66,7 +87,7 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
      */
     @Override
     public void onBindViewHolder(@NonNull SongViewHolder holder, int position) {
-        Song currentSong = songs.get(position);
+        SongRow currentSong = songs.get(position);
         holder.bind(currentSong, clickListener, longClickListener);
     }
 
@@ -79,6 +100,22 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
         return songs != null ? songs.size() : 0;
     }
 
+    /**
+     * Compara músicas pelo ID e pelos campos exibidos na linha.
+     */
+    private static final DiffUtil.ItemCallback<SongRow> SONG_DIFF = new DiffUtil.ItemCallback<SongRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull SongRow oldSong, @NonNull SongRow newSong) {
+            return oldSong.getId() == newSong.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull SongRow oldSong, @NonNull SongRow newSong) {
+            return Objects.equals(oldSong.getTitle(), newSong.getTitle())
+                    && Objects.equals(oldSong.getArtist(), newSong.getArtist());
+        }
+    };
+
     /**
      * ViewHolder para um item de música.
      */
@@ -104,7 +141,7 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
          * @param clickListener Listener para cliques normais.
          * @param longClickListener Listener para cliques longos.
          */
-        public void bind(final Song song, final OnSongClickListener clickListener, final OnSongLongClickListener longClickListener) {
+        public void bind(final SongRow song, final OnSongClickListener clickListener, final OnSongLongClickListener longClickListener) {
             titleTextView.setText(song.getTitle());
             artistTextView.setText(song.getArtist());
 
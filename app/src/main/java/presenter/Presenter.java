@@ -5,19 +5,30 @@ import android.content.Intent;
 import android.content.res.AssetFileDescriptor;
 import android.media.MediaMetadataRetriever;
 import android.os.Build;
-import android.os.Handler;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 
 import com.mussaldynerhey.meuleitorrhey.MusicService;
 import com.mussaldynerhey.meuleitorrhey.R;
+import com.mussaldynerhey.meuleitorrhey.database.entities.Playlist;
+import com.mussaldynerhey.meuleitorrhey.database.entities.Song;
+import com.mussaldynerhey.meuleitorrhey.utils.MusicScanner;
+import com.mussaldynerhey.meuleitorrhey.utils.ScanSession;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
+import Model.LibraryChanges;
 import Model.Model;
 import Model.Musica;
+import Model.PlaybackQueue;
 import view.Contrato;
 
 /**
@@ -27,8 +38,18 @@ public class Presenter implements Contrato.Presenter {
     private final Contrato.View view; // Referência à interface da View
     private final Model model; // Referência ao Model
     private final Context context; // Contexto da aplicação
-    private List<Musica> musicas; // Lista de músicas atuais
+    private PlaybackQueue musicas; // Lista de músicas exibida, compartilhada com o Model sem cópia
     private final List<Musica> todasAsMusicas = new ArrayList<>(); // Lista completa de todas as músicas
+    private boolean isLibraryList = true; // Indica se a lista atual é a biblioteca (e não uma playlist)
+    private final List<ScanSession> pendingScans = new ArrayList<>(); // Scans cujo resultado ainda é aguardado
+    private boolean released = false; // Indica se o Presenter já foi liberado
+    private final Executor mainExecutor; // Executor da thread principal, onde os callbacks atualizam a View
+    private int loadGeneration = 0; // Número do carregamento mais recente, para descartar resultados antigos
+    private boolean showingDefaultSongs = false; // Indica se a lista exibida são as músicas padrão do app
+    private Map<Integer, Musica> songsById; // Músicas da biblioteca por ID do banco, refeito quando a biblioteca muda
+    private int searchGeneration = 0; // Número da busca mais recente, para descartar resultados de digitações antigas
+    private List<Musica> searchResults = new ArrayList<>(); // Resultados da busca exibida (vazio sem busca)
+    private static final int SEARCH_LIMIT = 1000; // Máximo de resultados exibidos por busca
     private static final String TAG = "Presenter"; // Tag para logs
 
     /**
@@ -39,6 +60,8 @@ public class Presenter implements Contrato.Presenter {
     public Presenter(@NonNull Contrato.View view, @NonNull Context context) {
         this.view = view;
         this.context = context;
+        this.mainExecutor = ContextCompat.getMainExecutor(context);
+        this.musicas = PlaybackQueue.empty();
         this.model = new Model(new ArrayList<>(), context);
         loadSongs(); // Carrega as músicas ao inicializar
     }
@@ -59,38 +82,181 @@ public class Presenter implements Contrato.Presenter {
     public void forceReloadSongs() {
         Log.d(TAG, "FORÇANDO RECARREGAMENTO DE TODAS AS MÚSICAS DO DISPOSITIVO");
 
-        if (model != null) {
-            model.scanAndSyncDeviceMusic(); // Inicia o escaneamento de músicas
-            Log.d(TAG, "Scan do dispositivo iniciado");
-        }
+        if (model == null) return;
+        ScanSession session = model.scanAndSyncDeviceMusic(); // Inicia o escaneamento de músicas
+        Log.d(TAG, "Scan do dispositivo iniciado");
 
-        // Aguarda 1.5 segundos para garantir que o scan esteja concluído antes de recarregar
-        new Handler().postDelayed(() -> {
-            loadSongs();
+        // Recarrega assim que o scan terminar, sem esperar um tempo fixo
+        whenScanCompletes(session, result -> {
+            showSongsFromDatabase();
             Log.d(TAG, "Recarregamento de músicas concluído");
-        }, 1500);
+        });
     }
 
     /**
-     * Carrega as músicas do banco de dados ou usa músicas padrão se necessário.
+     * Exibe a cópia da biblioteca gravada em disco (ou, sem ela, as músicas já gravadas no banco)
+     * e inicia um scan incremental em segundo plano.
+     * A lista só é recarregada ao fim do scan se ele tiver alterado o banco.
      */
     public void loadSongs() {
         Log.d(TAG, "Iniciando carregamento de músicas...");
         if (model == null) return;
 
-        model.scanAndSyncDeviceMusic(); // Sincroniza músicas do dispositivo
-        List<Musica> allSongs = model.loadAllSongsFromDatabase(); // Carrega do banco de dados
+        showSongsFromSnapshot(); // Sem cópia em disco, exibe o que já está no banco
+        ScanSession session = model.scanAndSyncDeviceMusic(); // Sincroniza músicas do dispositivo
+        whenScanCompletes(session, result -> {
+            if (!result.isEmpty()) {
+                Log.d(TAG, "Scan alterou o banco - recarregando músicas");
+                showSongsFromDatabase();
+            }
+            if (!result.isEmpty() || !model.hasDetectedDuplicates()) {
+                refreshDuplicates();
+            }
+        });
+    }
+
+    /**
+     * Procura cópias idênticas em segundo plano e recarrega a lista se ela as estiver ocultando.
+     */
+    private void refreshDuplicates() {
+        model.detectDuplicates().thenAcceptAsync(changed -> {
+            if (!released && changed && model.isHideDuplicates() && isLibraryList) {
+                Log.d(TAG, "Cópias idênticas atualizadas - recarregando músicas");
+                showSongsFromDatabase();
+            }
+        }, mainExecutor);
+    }
+
+    /**
+     * Verifica se a lista atual é a biblioteca completa vinda do banco, na mesma ordem das
+     * páginas do SongPager.
+     * @return True se a lista atual for a biblioteca.
+     */
+    public boolean isShowingLibrary() {
+        return isLibraryList && !showingDefaultSongs;
+    }
+
+    /**
+     * Verifica se a lista oculta as cópias idênticas.
+     * @return True se as cópias estiverem ocultas.
+     */
+    public boolean isHideDuplicates() {
+        return model != null && model.isHideDuplicates();
+    }
+
+    /**
+     * Liga ou desliga o modo que oculta cópias idênticas e recarrega a biblioteca.
+     * @param hide True para ocultar as cópias.
+     */
+    public void setHideDuplicates(boolean hide) {
+        if (model == null) return;
+        model.setHideDuplicates(hide);
+        showSongsFromDatabase();
+    }
+
+    /**
+     * Executa uma ação na thread principal quando o scan terminar com sucesso.
+     * @param session Sessão do scan, ou null se o scan não pôde ser iniciado.
+     * @param action Ação que recebe o resultado da sincronização.
+     */
+    private void whenScanCompletes(ScanSession session, Consumer<MusicScanner.SyncResult> action) {
+        if (session == null) {
+            action.accept(new MusicScanner.SyncResult());
+            return;
+        }
+        if (!pendingScans.contains(session)) {
+            session.addProgressListener(progress -> Log.d(TAG, "Progresso do scan - " + progress));
+            session.addChunkListener(this::onScanChunk);
+        }
+        pendingScans.add(session);
+        session.getCompletion().whenCompleteAsync((result, error) -> {
+            pendingScans.remove(session);
+            if (released) {
+                return;
+            }
+            if (error != null) {
+                Log.e(TAG, "Scan não concluído", error);
+                return;
+            }
+            action.accept(result);
+        }, mainExecutor);
+    }
+
+    /**
+     * Exibe um bloco de músicas gravado pelo scan em andamento, sem esperar o fim do scan.
+     * @param chunk Músicas inseridas e atualizadas no bloco.
+     */
+    private void onScanChunk(MusicScanner.SyncResult chunk) {
+        if (released) {
+            return;
+        }
+        if (showingDefaultSongs && isLibraryList) {
+            showSongsFromDatabase(); // O primeiro bloco substitui as músicas padrão
+        } else {
+            // A cópia em disco não é regravada a cada bloco: o fim do scan recarrega e grava a lista
+            applyLibraryChanges(Model.toLibraryChanges(chunk));
+        }
+    }
+
+    /**
+     * Exibe a cópia da biblioteca gravada em disco, que é lida sem abrir o banco de dados e fora
+     * da thread principal. Se a cópia não existir ou não for válida, a lista vem do banco.
+     */
+    private void showSongsFromSnapshot() {
+        int generation = ++loadGeneration;
+        model.loadLibrarySnapshot().whenCompleteAsync((snapshot, error) -> {
+            if (released || generation != loadGeneration) {
+                return; // Outro carregamento já foi iniciado
+            }
+            if (error != null) {
+                Log.e(TAG, "Erro ao ler a cópia da biblioteca", error);
+            }
+            if (snapshot != null) {
+                onSongsLoaded(snapshot);
+            } else {
+                showSongsFromDatabase();
+            }
+        }, mainExecutor);
+    }
+
+    /**
+     * Carrega as músicas do banco de dados ou usa músicas padrão se necessário, e atualiza a View.
+     * A biblioteca carregada é gravada como cópia para a próxima abertura do app.
+     */
+    private void showSongsFromDatabase() {
+        int generation = ++loadGeneration;
+        model.loadAllSongsFromDatabase().thenAcceptAsync(allSongs -> { // Carrega do banco de dados
+            if (!released && generation == loadGeneration) { // Ignora carregamentos já superados por outro
+                onSongsLoaded(allSongs);
+                if (!showingDefaultSongs) {
+                    model.saveLibrarySnapshot(todasAsMusicas);
+                }
+            }
+        }, mainExecutor).exceptionally(e -> {
+            Log.e(TAG, "Erro ao carregar músicas do banco", e);
+            return null;
+        });
+    }
 
+    /**
+     * Exibe as músicas carregadas do banco, ou as músicas padrão se o banco estiver vazio.
+     * @param allSongs Músicas carregadas do banco.
+     */
+    private void onSongsLoaded(List<Musica> allSongs) {
         if (allSongs != null && !allSongs.isEmpty()) {
-            this.musicas = allSongs; // Usa músicas do banco
+            this.musicas = PlaybackQueue.of(allSongs); // Usa músicas do banco
+            this.showingDefaultSongs = false;
         } else {
             Log.d(TAG, "Banco de dados vazio. Carregando músicas padrão...");
-            this.musicas = getDefaultSongs(); // Carrega músicas padrão
+            this.musicas = PlaybackQueue.of(getDefaultSongs()); // Carrega músicas padrão
+            this.showingDefaultSongs = true;
         }
 
         model.updateListaMusica(this.musicas); // Atualiza o Model
+        this.isLibraryList = true;
         this.todasAsMusicas.clear();
         this.todasAsMusicas.addAll(this.musicas); // Atualiza lista completa
+        this.songsById = null;
 
         if (view != null) {
             view.setSongList(this.musicas); // Atualiza a UI com a lista de músicas
@@ -107,6 +273,77 @@ public class Presenter implements Contrato.Presenter {
         debugMusicState(); // Log de depuração do estado
     }
 
+    /**
+     * Passa a receber as mudanças da biblioteca detectadas pelo observer do MediaStore.
+     */
+    public void startObservingLibrary() {
+        if (model != null) {
+            model.startObservingLibrary(this::onLibraryChanged);
+        }
+    }
+
+    /**
+     * Libera os recursos do Presenter, como o observer do MediaStore.
+     */
+    public void release() {
+        released = true;
+        for (ScanSession session : new ArrayList<>(pendingScans)) {
+            session.cancel(); // O scan só é interrompido se ninguém mais estiver aguardando
+        }
+        pendingScans.clear();
+        if (model != null) {
+            model.stopObservingLibrary();
+        }
+    }
+
+    /**
+     * Aplica as mudanças detectadas pelo observer do MediaStore e mantém a cópia em disco em dia.
+     * @param changes Mudanças detectadas pela sincronização incremental.
+     */
+    private void onLibraryChanged(LibraryChanges changes) {
+        applyLibraryChanges(changes);
+        if (!showingDefaultSongs) {
+            model.saveLibrarySnapshot(todasAsMusicas); // Mantém a cópia em dia com o que o observer aplicou
+        }
+    }
+
+    /**
+     * Aplica as mudanças da biblioteca às listas e repassa apenas as músicas afetadas à View.
+     * Quando só há músicas novas (caso de cada bloco do scan), elas são acrescentadas ao fim das
+     * listas sem copiá-las; alterações e remoções refazem as listas.
+     * @param changes Mudanças detectadas pela sincronização incremental.
+     */
+    private void applyLibraryChanges(LibraryChanges changes) {
+        Log.d(TAG, "Biblioteca alterada - Novas: " + changes.getAdded().size() +
+                ", Alteradas: " + changes.getChanged().size() + ", Removidas: " + changes.getRemoved().size());
+        model.applyLibraryChanges(changes, isLibraryList);
+        if (changes.getChanged().isEmpty() && changes.getRemoved().isEmpty()) {
+            List<Musica> added = changes.getAdded();
+            todasAsMusicas.addAll(added);
+            if (songsById != null) {
+                for (Musica musica : added) {
+                    if (musica.getSongId() != 0) {
+                        songsById.put(musica.getSongId(), musica);
+                    }
+                }
+            }
+            if (musicas != null && isLibraryList) {
+                musicas = musicas.withInsertedAll(musicas.size(), added);
+            }
+        } else {
+            changes.applyTo(todasAsMusicas, true, null);
+            songsById = null;
+            if (musicas != null) {
+                List<Musica> editada = new ArrayList<>(musicas);
+                changes.applyTo(editada, isLibraryList, null);
+                musicas = PlaybackQueue.of(editada);
+            }
+        }
+        if (view != null) {
+            view.onLibraryChanged(changes, isLibraryList);
+        }
+    }
+
     /**
      * Inicia a reprodução de uma música ao clicar no botão de play.
      */
@@ -173,8 +410,9 @@ public class Presenter implements Contrato.Presenter {
         }
         Log.d(TAG, "Trocando para nova lista com " + newList.size() + " músicas.");
 
-        this.musicas = new ArrayList<>(newList);
-        model.updateListaMusica(this.musicas); // Atualiza o Model
+        this.musicas = PlaybackQueue.of(newList);
+        model.updateListaMusica(this.musicas); // Atualiza o Model, que passa a compartilhar a mesma fila
+        this.isLibraryList = false;
 
         if (view != null) {
             view.setSongList(this.musicas); // Atualiza a UI
@@ -184,29 +422,57 @@ public class Presenter implements Contrato.Presenter {
     }
 
     /**
-     * Inicia a reprodução de uma música em um índice específico.
-     * @param index Índice da música na lista.
+     * Toca uma playlist a partir de uma de suas músicas. Só os IDs chegam da tela da playlist;
+     * a fila é carregada aqui, com as linhas mínimas para tocar, e publicada em startPlayback.
+     * @param playlistId ID da playlist.
+     * @param songId ID da música inicial.
+     */
+    @Override
+    public void playPlaylistFrom(int playlistId, int songId) {
+        model.loadPlaylistQueue(playlistId).thenAcceptAsync(musicas -> {
+            if (released) {
+                return;
+            }
+            int index = -1;
+            for (int i = 0; i < musicas.size(); i++) {
+                if (musicas.get(i).getSongId() == songId) {
+                    index = i;
+                    break;
+                }
+            }
+            Log.d(TAG, "Playlist " + playlistId + " carregada: " + musicas.size() + " músicas, tocando a de índice " + index);
+            playNewList(musicas, index); // Índice -1 (música removida nesse meio tempo) cai na mensagem de erro
+        }, mainExecutor).exceptionally(e -> {
+            Log.e(TAG, "Erro ao carregar a playlist " + playlistId, e);
+            if (view != null) view.mensagemErro("Erro ao carregar a playlist.");
+            return null;
+        });
+    }
+
+    /**
+     * Inicia a reprodução de uma música da fila do Model em um índice específico.
+     * A fila é entregue ao serviço por referência, sem cópia.
+     * @param index Índice da música na fila.
      */
     private void startPlayback(int index) {
-        if (musicas == null || index < 0 || index >= musicas.size()) {
+        PlaybackQueue fila = model.getListaMusica();
+        if (index < 0 || index >= fila.size()) {
             Log.e(TAG, "Índice de música inválido");
             return;
         }
 
         model.setIndiceActual(index); // Define o índice no Model
-        Musica musicaParaTocar = musicas.get(index);
+        Musica musicaParaTocar = fila.get(index);
 
         Log.d(TAG, "ENVIANDO PARA SERVICE - Música: " + musicaParaTocar.getTitulo());
 
         Intent serviceIntent = new Intent(context, MusicService.class);
         serviceIntent.setAction(MusicService.ACTION_PLAY);
 
-        if (musicas != null && !musicas.isEmpty()) {
-            ArrayList<Musica> musicasList = new ArrayList<>(musicas);
-            serviceIntent.putExtra("SONG_LIST", musicasList); // Envia a lista completa
-            serviceIntent.putExtra("SONG_INDEX", index); // Envia o índice
-            Log.d(TAG, "Enviando lista com " + musicasList.size() + " músicas para Service");
-        }
+        PlaybackQueue.publish(fila);
+        serviceIntent.putExtra(MusicService.EXTRA_SHARED_QUEUE, true); // O serviço lê a fila publicada
+        serviceIntent.putExtra("SONG_INDEX", index); // Envia o índice
+        Log.d(TAG, "Fila com " + fila.size() + " músicas publicada para o Service");
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             context.startForegroundService(serviceIntent);
@@ -231,6 +497,9 @@ public class Presenter implements Contrato.Presenter {
     public void playSpecificSong(int index) {
         if (this.musicas != null && !this.musicas.isEmpty() && index >= 0 && index < this.musicas.size()) {
             Log.d(TAG, "Tocando música específica no índice: " + index);
+            if (model.getListaMusica() != this.musicas) {
+                model.updateListaMusica(this.musicas); // Tocar da lista exibida descarta as edições da fila
+            }
             startPlayback(index);
         } else {
             Log.e(TAG, "Falha ao tocar música específica: lista vazia ou índice inválido.");
@@ -240,6 +509,16 @@ public class Presenter implements Contrato.Presenter {
         }
     }
 
+    /**
+     * Localiza uma música da lista exibida pelo ID do banco.
+     * @param songId ID da música.
+     * @param hint Posição provável da música, ou -1.
+     * @return Posição da música na lista, ou -1 se ela não estiver nela.
+     */
+    public int indexOfSongId(int songId, int hint) {
+        return musicas != null ? musicas.positionOfSongId(songId, hint) : -1;
+    }
+
     /**
      * Avança para a próxima música.
      */
@@ -331,6 +610,20 @@ public class Presenter implements Contrato.Presenter {
         Log.d(TAG, "Shuffle " + (model.isShuffleOn() ? "ATIVADO" : "DESATIVADO"));
     }
 
+    /**
+     * Alterna o shuffle inteligente, ponderado pelas estatísticas de reprodução.
+     * @return True se o shuffle inteligente ficou ativado.
+     */
+    public boolean toggleSmartShuffle() {
+        model.toggleSmartShuffle();
+        if (view != null) {
+            view.updateShuffleIcon(model.isShuffleOn());
+            view.updateRepeatIcon(model.isRepeatOn());
+        }
+        syncPlayerState();
+        return model.isSmartShuffleOn();
+    }
+
     /**
      * Alterna o modo repeat (repetição).
      */
@@ -356,6 +649,7 @@ public class Presenter implements Contrato.Presenter {
         Intent serviceIntent = new Intent(context, MusicService.class);
         serviceIntent.setAction("SYNC_STATE");
         serviceIntent.putExtra("SHUFFLE_STATE", model.isShuffleOn());
+        serviceIntent.putExtra("SMART_SHUFFLE_STATE", model.isSmartShuffleOn());
         serviceIntent.putExtra("REPEAT_STATE", model.isRepeatOn());
         serviceIntent.putExtra("CURRENT_INDEX", model.getIndiceActual());
 
@@ -377,9 +671,10 @@ public class Presenter implements Contrato.Presenter {
      */
     @Override
     public void syncPlayerState(int songIndex, boolean shouldPlay, int currentPosition, int duration) {
-        if (model != null && musicas != null && songIndex >= 0 && songIndex < musicas.size()) {
+        PlaybackQueue fila = model != null ? model.getListaMusica() : null;
+        if (fila != null && songIndex >= 0 && songIndex < fila.size()) {
             model.setIndiceActual(songIndex);
-            Musica musica = musicas.get(songIndex);
+            Musica musica = fila.get(songIndex);
             if (view != null) {
                 view.informacaoMusica(musica.getArtista(), musica.getTitulo());
                 view.updateSeekBar(currentPosition, duration);
@@ -387,24 +682,175 @@ public class Presenter implements Contrato.Presenter {
         }
     }
 
+    /**
+     * Toca uma música logo depois da atual, sem interromper a reprodução.
+     * @param musica Música a ser tocada em seguida.
+     */
+    public void playNext(Musica musica) {
+        model.playNext(musica);
+        pushQueueToService();
+    }
+
+    /**
+     * Adiciona uma música ao fim da fila, sem interromper a reprodução.
+     * @param musica Música a ser adicionada.
+     */
+    public void enqueue(Musica musica) {
+        model.enqueue(musica);
+        pushQueueToService();
+    }
+
+    /**
+     * Remove uma música da fila de reprodução, sem interromper a reprodução.
+     * @param musica Música a ser removida.
+     * @param hint Posição provável da música na fila, ou -1.
+     * @return True se a música foi removida; false se ela não está na fila ou é a que está tocando.
+     */
+    public boolean removeFromQueue(Musica musica, int hint) {
+        int position = model.getListaMusica().positionOf(musica, hint);
+        if (position < 0 || !model.removeFromQueue(position)) {
+            return false;
+        }
+        pushQueueToService();
+        return true;
+    }
+
+    /**
+     * Move uma música da fila de reprodução, sem interromper a reprodução.
+     * @param from Posição atual da música na fila.
+     * @param to Nova posição da música na fila.
+     */
+    public void moveInQueue(int from, int to) {
+        model.moveInQueue(from, to);
+        pushQueueToService();
+    }
+
+    /**
+     * Entrega ao serviço a fila editada e a posição da música atual nela.
+     * O serviço troca a fila sem reiniciar a música que está tocando.
+     */
+    private void pushQueueToService() {
+        PlaybackQueue.publish(model.getListaMusica());
+        Intent serviceIntent = new Intent(context, MusicService.class);
+        serviceIntent.setAction(MusicService.ACTION_UPDATE_QUEUE);
+        serviceIntent.putExtra("CURRENT_INDEX", model.getIndiceActual());
+        try {
+            context.startService(serviceIntent);
+        } catch (Exception e) {
+            Log.e(TAG, "Erro ao enviar a fila para o serviço", e);
+        }
+    }
+
     /**
      * Filtra músicas com base em uma consulta.
+     * A busca roda no índice de busca textual do banco, fora da thread principal; se o usuário
+     * continuar digitando, os resultados das consultas anteriores são descartados.
      * @param query Texto de busca.
      */
     @Override
     public void filterSongs(String query) {
-        List<Musica> filteredSongs = new ArrayList<>();
+        int generation = ++searchGeneration;
         if (query == null || query.trim().isEmpty()) {
-            filteredSongs.addAll(todasAsMusicas);
-        } else {
-            String lowerCaseQuery = query.toLowerCase().trim();
-            for (Musica musica : todasAsMusicas) {
-                if (musica.getTitulo().toLowerCase().contains(lowerCaseQuery) ||
-                        musica.getArtista().toLowerCase().contains(lowerCaseQuery)) {
+            searchResults = new ArrayList<>();
+            if (view != null) {
+                view.showFilteredSongs(new ArrayList<>(todasAsMusicas));
+            }
+            return;
+        }
+        if (showingDefaultSongs || model == null) {
+            filterSongsInMemory(query); // As músicas padrão não vêm do banco
+            return;
+        }
+        model.searchSongIds(query, SEARCH_LIMIT).thenAcceptAsync(ids -> {
+            if (released || generation != searchGeneration) {
+                return; // Uma busca mais recente já foi iniciada
+            }
+            Map<Integer, Musica> byId = getSongsById();
+            List<Musica> filteredSongs = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                Musica musica = byId.get(id);
+                if (musica != null) { // Cópias ocultas não estão na biblioteca exibida
                     filteredSongs.add(musica);
                 }
             }
+            searchResults = filteredSongs;
+            if (view != null) {
+                view.showFilteredSongs(filteredSongs);
+            }
+        }, mainExecutor).exceptionally(throwable -> {
+            Log.e(TAG, "Erro na busca por: " + query, throwable);
+            return null;
+        });
+    }
+
+    /**
+     * Verifica se há resultados de busca exibidos.
+     * @return True se a última busca encontrou músicas.
+     */
+    public boolean hasSearchResults() {
+        return !searchResults.isEmpty();
+    }
+
+    /**
+     * Obtém todas as playlists, para escolher onde adicionar músicas.
+     * @return Future concluído na thread principal com as playlists.
+     */
+    public CompletableFuture<List<Playlist>> getPlaylists() {
+        return model.getAllPlaylists().thenApplyAsync(playlists -> playlists, mainExecutor);
+    }
+
+    /**
+     * Carrega sob demanda os detalhes completos de uma música (caminho e tags lidas do arquivo).
+     * @param musica Música exibida.
+     * @return Future concluído na thread principal com a música do banco, ou null se não houver.
+     */
+    public CompletableFuture<Song> getSongDetails(Musica musica) {
+        return model.getSongDetails(musica.getSongId()).thenApplyAsync(song -> song, mainExecutor);
+    }
+
+    /**
+     * Adiciona todos os resultados da busca exibida ao fim de uma playlist, em uma única transação.
+     * @param playlistId ID da playlist.
+     * @return Future concluído na thread principal com o número de músicas adicionadas.
+     */
+    public CompletableFuture<Integer> addSearchResultsToPlaylist(int playlistId) {
+        return model.addSongsToPlaylist(playlistId, new ArrayList<>(searchResults))
+                .thenApplyAsync(added -> {
+                    Log.d(TAG, added + " resultados da busca adicionados à playlist " + playlistId);
+                    return added;
+                }, mainExecutor);
+    }
+
+    /**
+     * Obtém as músicas da biblioteca indexadas pelo ID do banco, refazendo o índice se ela mudou.
+     * @return Mapa ID → música.
+     */
+    private Map<Integer, Musica> getSongsById() {
+        if (songsById == null) {
+            songsById = new HashMap<>(todasAsMusicas.size() * 2);
+            for (Musica musica : todasAsMusicas) {
+                if (musica.getSongId() != 0) {
+                    songsById.put(musica.getSongId(), musica);
+                }
+            }
         }
+        return songsById;
+    }
+
+    /**
+     * Filtra em memória a lista completa, usado quando ela não vem do banco.
+     * @param query Texto de busca.
+     */
+    private void filterSongsInMemory(String query) {
+        List<Musica> filteredSongs = new ArrayList<>();
+        String lowerCaseQuery = query.toLowerCase().trim();
+        for (Musica musica : todasAsMusicas) {
+            if (musica.getTitulo().toLowerCase().contains(lowerCaseQuery) ||
+                    musica.getArtista().toLowerCase().contains(lowerCaseQuery)) {
+                filteredSongs.add(musica);
+            }
+        }
+        searchResults = filteredSongs;
         if (view != null) {
             view.showFilteredSongs(filteredSongs);
         }
@@ -508,21 +954,14 @@ public class Presenter implements Contrato.Presenter {
         Log.d(TAG, "FORÇANDO RECARREGAMENTO DE CAPAS");
 
         if (model != null) {
-            model.scanAndSyncDeviceMusic(); // Força novo scan para capas
-
-            new Handler().postDelayed(() -> {
-                List<Musica> updatedSongs = model.loadAllSongsFromDatabase();
-                if (view != null && updatedSongs != null) {
-                    view.setSongList(updatedSongs);
-                    Log.d(TAG, "Capas recarregadas - " + updatedSongs.size() + " músicas");
-
-                    int withCover = 0;
-                    for (Musica musica : updatedSongs) {
-                        if (musica.getContentUri() != null) withCover++;
-                    }
-                    Log.d(TAG, withCover + " músicas com capa de " + updatedSongs.size());
-                }
-            }, 2000);
+            ScanSession session = model.scanAndSyncDeviceMusic(); // Força novo scan para capas
+
+            // Recarrega pelo mesmo caminho da biblioteca, que atualiza o Model, as listas do
+            // Presenter e a View juntos
+            whenScanCompletes(session, result -> {
+                showSongsFromDatabase();
+                Log.d(TAG, "Capas recarregadas");
+            });
         }
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package view;
 import java.util.ArrayList;
 import java.util.List;
 
+import Model.LibraryChanges;
 import Model.Musica;
 
 /**
@@ -100,6 +101,13 @@ public interface Contrato {
          * @param index Índice da música inicial.
          */
         void playNewList(ArrayList<Musica> songs, int index);
+
+        /**
+         * Aplica à lista exibida apenas as músicas afetadas por uma mudança na biblioteca.
+         * @param changes Músicas novas, alteradas e removidas.
+         * @param appendAdded Indica se as músicas novas devem ser adicionadas à lista exibida.
+         */
+        void onLibraryChanged(LibraryChanges changes, boolean appendAdded);
     }
 
     /**
@@ -190,5 +198,12 @@ public interface Contrato {
          * @param position Índice da música inicial.
          */
         void playNewList(List<Musica> newList, int position);
+
+        /**
+         * Toca uma playlist a partir de uma de suas músicas, carregando a fila do banco.
+         * @param playlistId ID da playlist.
+         * @param songId ID da música inicial.
+         */
+        void playPlaylistFrom(int playlistId, int songId);
     }
 }
\ No newline at end of file
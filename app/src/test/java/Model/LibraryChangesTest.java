@@ -0,0 +1,80 @@
+package Model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da {@link LibraryChanges}: as posições notificadas valem no momento da notificação,
+ * como se cada música fosse removida da lista na hora.
+ */
+public class LibraryChangesTest {
+
+    @Test
+    public void applyTo_removesChangesAndAppends() {
+        List<Musica> list = new ArrayList<>(PlaybackQueueTest.songs(1, 10));
+        Musica changed = PlaybackQueueTest.song(4);
+        List<Musica> added = PlaybackQueueTest.songs(11, 12);
+        LibraryChanges changes = new LibraryChanges(added, Collections.singletonList(changed),
+                Arrays.asList(PlaybackQueueTest.song(2), PlaybackQueueTest.song(7), PlaybackQueueTest.song(10)));
+
+        changes.applyTo(list, true, null);
+
+        assertEquals(Arrays.asList(1, 3, 4, 5, 6, 8, 9, 11, 12), ids(list));
+        assertSame(changed, list.get(2));
+    }
+
+    @Test
+    public void applyTo_notifiesPositionsAsIfRemovedOneByOne() {
+        List<Musica> list = new ArrayList<>(PlaybackQueueTest.songs(1, 20));
+        List<Musica> mirror = new ArrayList<>(list); // Recebe cada notificação na hora
+        List<Musica> removed = new ArrayList<>();
+        for (int id = 1; id <= 20; id += 3) {
+            removed.add(PlaybackQueueTest.song(id));
+        }
+        LibraryChanges changes = new LibraryChanges(PlaybackQueueTest.songs(21, 22),
+                Collections.singletonList(PlaybackQueueTest.song(5)), removed);
+
+        changes.applyTo(list, true, new LibraryChanges.Callback() {
+            @Override
+            public void onChanged(int position) {
+                assertEquals(5, mirror.get(position).getSongId());
+            }
+
+            @Override
+            public void onRemoved(int position) {
+                assertEquals(0, (mirror.remove(position).getSongId() - 1) % 3);
+            }
+
+            @Override
+            public void onInserted(int position, int count) {
+                assertEquals(mirror.size(), position);
+                mirror.addAll(PlaybackQueueTest.songs(21, 20 + count));
+            }
+        });
+
+        assertEquals(ids(mirror), ids(list));
+    }
+
+    @Test
+    public void applyTo_playlistIgnoresAdded() {
+        List<Musica> list = new ArrayList<>(PlaybackQueueTest.songs(1, 3));
+        new LibraryChanges(PlaybackQueueTest.songs(4, 5), Collections.emptyList(), Collections.emptyList())
+                .applyTo(list, false, null);
+
+        assertEquals(Arrays.asList(1, 2, 3), ids(list));
+    }
+
+    private static List<Integer> ids(List<Musica> songs) {
+        List<Integer> ids = new ArrayList<>();
+        for (Musica musica : songs) {
+            ids.add(musica.getSongId());
+        }
+        return ids;
+    }
+}
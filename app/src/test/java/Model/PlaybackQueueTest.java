@@ -0,0 +1,201 @@
+package Model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da {@link PlaybackQueue}, comparada a uma ArrayList que recebe as mesmas edições.
+ */
+public class PlaybackQueueTest {
+
+    @Test
+    public void of_keepsOrder() {
+        List<Musica> songs = songs(1, 1000);
+        PlaybackQueue queue = PlaybackQueue.of(songs);
+
+        assertEquals(songs.size(), queue.size());
+        assertSameContents(songs, queue);
+    }
+
+    @Test
+    public void edits_matchArrayList() {
+        Random random = new Random(42);
+        List<Musica> oracle = new ArrayList<>(songs(1, 50));
+        PlaybackQueue queue = PlaybackQueue.of(oracle);
+        int nextId = 51;
+        for (int step = 0; step < 5000; step++) {
+            int op = random.nextInt(4);
+            if (op == 0 || oracle.isEmpty()) {
+                int index = random.nextInt(oracle.size() + 1);
+                Musica musica = song(nextId++);
+                oracle.add(index, musica);
+                queue = queue.withInserted(index, musica);
+            } else if (op == 1) {
+                int index = random.nextInt(oracle.size() + 1);
+                List<Musica> batch = songs(nextId, nextId + random.nextInt(5));
+                nextId += batch.size();
+                oracle.addAll(index, batch);
+                queue = queue.withInsertedAll(index, batch);
+            } else if (op == 2) {
+                int index = random.nextInt(oracle.size());
+                oracle.remove(index);
+                queue = queue.withRemoved(index);
+            } else {
+                int from = random.nextInt(oracle.size());
+                int to = random.nextInt(oracle.size());
+                oracle.add(to, oracle.remove(from));
+                queue = queue.withMoved(from, to);
+            }
+            assertEquals(oracle.size(), queue.size());
+            if (step % 50 == 0) {
+                assertSameContents(oracle, queue);
+            }
+        }
+        assertSameContents(oracle, queue);
+    }
+
+    @Test
+    public void edits_leaveOriginalUnchanged() {
+        List<Musica> songs = songs(1, 10);
+        PlaybackQueue original = PlaybackQueue.of(songs);
+
+        original.withInserted(3, song(99));
+        original.withRemoved(0);
+        original.withMoved(0, 9);
+
+        assertSameContents(songs, original);
+    }
+
+    @Test
+    public void withMoved_toEnds() {
+        PlaybackQueue queue = PlaybackQueue.of(songs(1, 5));
+
+        assertEquals(Arrays.asList(2, 3, 4, 5, 1), ids(queue.withMoved(0, 4)));
+        assertEquals(Arrays.asList(5, 1, 2, 3, 4), ids(queue.withMoved(4, 0)));
+        assertSame(queue, queue.withMoved(2, 2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void withRemoved_rejectsInvalidIndex() {
+        PlaybackQueue.of(songs(1, 3)).withRemoved(3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void withInserted_rejectsInvalidIndex() {
+        PlaybackQueue.of(songs(1, 3)).withInserted(4, song(9));
+    }
+
+    @Test
+    public void positionOfSongId_afterEdits() {
+        Random random = new Random(7);
+        List<Musica> oracle = new ArrayList<>(songs(1, 300));
+        PlaybackQueue queue = PlaybackQueue.of(oracle);
+        int nextId = 301;
+        for (int step = 0; step < 300; step++) {
+            int op = random.nextInt(3);
+            if (op == 0) {
+                int index = random.nextInt(oracle.size() + 1);
+                Musica musica = song(nextId++);
+                oracle.add(index, musica);
+                queue = queue.withInserted(index, musica);
+            } else if (op == 1 && oracle.size() > 1) {
+                int index = random.nextInt(oracle.size());
+                oracle.remove(index);
+                queue = queue.withRemoved(index);
+            } else {
+                int from = random.nextInt(oracle.size());
+                int to = random.nextInt(oracle.size());
+                oracle.add(to, oracle.remove(from));
+                queue = queue.withMoved(from, to);
+            }
+            // Cada versão da fila monta seu próprio índice; ele deve refletir as edições
+            for (int probe = 0; probe < 20; probe++) {
+                int songId = 1 + random.nextInt(nextId);
+                assertEquals("ID " + songId, indexOfId(oracle, songId), queue.positionOfSongId(songId, -1));
+            }
+        }
+    }
+
+    @Test
+    public void positionOfSongId_prefersHintForRepeatedSong() {
+        Musica repeated = song(5);
+        PlaybackQueue queue = PlaybackQueue.of(songs(1, 3)).withInserted(1, repeated).withInserted(3, repeated);
+
+        assertEquals(1, queue.positionOfSongId(5, -1));
+        assertEquals(3, queue.positionOfSongId(5, 3));
+        assertEquals(1, queue.positionOfSongId(5, 0));
+    }
+
+    @Test
+    public void positionOfSongId_missingOrInvalid() {
+        PlaybackQueue queue = PlaybackQueue.of(songs(1, 10));
+
+        assertEquals(-1, queue.positionOfSongId(11, -1));
+        assertEquals(-1, queue.positionOfSongId(0, -1));
+        assertEquals(-1, PlaybackQueue.empty().positionOfSongId(1, -1));
+    }
+
+    @Test
+    public void positionOf_usesPathForSongsWithoutId() {
+        Musica first = new Musica("Igual", "Artista", "/music/a.mp3", 1000, null);
+        Musica second = new Musica("Igual", "Artista", "/music/b.mp3", 1000, null);
+        PlaybackQueue queue = PlaybackQueue.of(Arrays.asList(first, second));
+
+        assertEquals(1, queue.positionOf(new Musica("Igual", "Artista", "/music/b.mp3", 1000, null), -1));
+        assertEquals(-1, queue.positionOf(new Musica("Igual", "Artista", "/music/c.mp3", 1000, null), -1));
+    }
+
+    private static void assertSameContents(List<Musica> expected, PlaybackQueue queue) {
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame("Posição " + i, expected.get(i), queue.get(i));
+        }
+        Iterator<Musica> iterator = queue.iterator();
+        for (Musica musica : expected) {
+            assertTrue(iterator.hasNext());
+            assertSame(musica, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    private static int indexOfId(List<Musica> songs, int songId) {
+        for (int i = 0; i < songs.size(); i++) {
+            if (songs.get(i).getSongId() == songId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Integer> ids(List<Musica> songs) {
+        List<Integer> ids = new ArrayList<>();
+        for (Musica musica : songs) {
+            ids.add(musica.getSongId());
+        }
+        return ids;
+    }
+
+    static Musica song(int songId) {
+        Musica musica = new Musica("Música " + songId, "Artista", "/music/" + songId + ".mp3", 1000, null);
+        musica.setSongId(songId);
+        return musica;
+    }
+
+    static List<Musica> songs(int firstId, int lastId) {
+        if (lastId < firstId) {
+            return Collections.emptyList();
+        }
+        List<Musica> songs = new ArrayList<>(lastId - firstId + 1);
+        for (int id = firstId; id <= lastId; id++) {
+            songs.add(song(id));
+        }
+        return songs;
+    }
+}
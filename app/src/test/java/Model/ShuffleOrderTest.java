@@ -0,0 +1,259 @@
+package Model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da {@link ShuffleOrder}: cada ciclo é uma permutação da fila, também depois de
+ * músicas inseridas ou movidas.
+ */
+public class ShuffleOrderTest {
+    private final ShuffleOrder order = ShuffleOrder.shared();
+
+    @Before
+    public void setUp() {
+        order.invalidate();
+    }
+
+    @Test
+    public void cycle_playsEverySongOnce() {
+        int size = 200;
+        order.reset(size, 17);
+        Set<Integer> played = new HashSet<>();
+        played.add(17);
+        int current = 17;
+        for (int i = 1; i < size; i++) {
+            current = order.next(size, current);
+            assertTrue("Repetida antes do fim do ciclo: " + current, played.add(current));
+        }
+        assertEquals(size, played.size());
+
+        // O novo ciclo não começa pela música que acabou de tocar
+        assertNotEquals(current, order.next(size, current));
+    }
+
+    @Test
+    public void previous_walksBackThroughHistory() {
+        int size = 30;
+        order.reset(size, 0);
+        List<Integer> history = new ArrayList<>();
+        history.add(0);
+        int current = 0;
+        for (int i = 0; i < 10; i++) {
+            current = order.next(size, current);
+            history.add(current);
+        }
+        for (int i = history.size() - 2; i >= 0; i--) {
+            current = order.previous(size, current);
+            assertEquals(history.get(i).intValue(), current);
+        }
+        assertEquals(0, order.previous(size, current)); // Primeira música do ciclo: fica nela
+        for (int i = 1; i < history.size(); i++) {
+            current = order.next(size, current);
+            assertEquals("O avanço repete o histórico", history.get(i).intValue(), current);
+        }
+    }
+
+    @Test
+    public void onInserted_keepsPermutation() {
+        Random random = new Random(3);
+        List<Integer> queue = new ArrayList<>(); // Identidade de cada posição da fila
+        for (int i = 0; i < 40; i++) {
+            queue.add(i);
+        }
+        int current = 5;
+        order.reset(queue.size(), current);
+        Set<Integer> played = new HashSet<>();
+        played.add(queue.get(current));
+        int nextIdentity = queue.size();
+        for (int step = 0; step < 120 && played.size() < queue.size(); step++) {
+            if (random.nextBoolean()) {
+                int index = random.nextInt(queue.size() + 1);
+                boolean playNext = random.nextInt(4) == 0;
+                order.onInserted(queue.size(), index, playNext);
+                queue.add(index, nextIdentity++);
+                if (index <= current) {
+                    current++;
+                }
+                if (playNext) {
+                    int next = order.next(queue.size(), current);
+                    assertEquals("A música inserida é a próxima", index, next);
+                    current = next;
+                    assertTrue(played.add(queue.get(current)));
+                }
+            } else {
+                current = order.next(queue.size(), current);
+                assertTrue("Repetida antes do fim do ciclo: " + queue.get(current), played.add(queue.get(current)));
+            }
+        }
+        // O que falta do ciclo inclui todas as músicas inseridas, sem repetir as já tocadas
+        while (played.size() < queue.size()) {
+            current = order.next(queue.size(), current);
+            assertTrue("Repetida antes do fim do ciclo: " + queue.get(current), played.add(queue.get(current)));
+        }
+        assertEquals(new HashSet<>(queue), played);
+    }
+
+    @Test
+    public void onMoved_keepsPlaybackOrder() {
+        Random random = new Random(11);
+        int size = 50;
+        List<Integer> queue = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            queue.add(i);
+        }
+        int current = 0;
+        order.reset(size, current);
+        Set<Integer> played = new HashSet<>();
+        played.add(queue.get(current));
+        for (int step = 0; step < size * 2 && played.size() < size; step++) {
+            if (random.nextInt(3) == 0) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+                order.onMoved(size, from, to);
+                int identity = queue.get(current);
+                queue.add(to, queue.remove(from));
+                current = queue.indexOf(identity);
+            } else {
+                current = order.next(size, current);
+                assertTrue("Repetida antes do fim do ciclo: " + queue.get(current), played.add(queue.get(current)));
+            }
+        }
+        while (played.size() < size) {
+            current = order.next(size, current);
+            assertTrue("Repetida antes do fim do ciclo: " + queue.get(current), played.add(queue.get(current)));
+        }
+        assertEquals(size, played.size());
+    }
+
+    @Test
+    public void onInsertedBatch_appendsWithoutReshuffling() {
+        int size = 20;
+        List<Integer> queue = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            queue.add(i);
+        }
+        int current = 0;
+        order.reset(size, current);
+        Set<Integer> played = new HashSet<>();
+        played.add(current);
+        for (int i = 0; i < 10; i++) {
+            current = order.next(queue.size(), current);
+            played.add(queue.get(current));
+        }
+        // Blocos de músicas novas chegam ao fim da fila, como no scan
+        for (int chunk = 0; chunk < 3; chunk++) {
+            order.onInserted(queue.size(), queue.size(), 5, false);
+            for (int i = 0; i < 5; i++) {
+                queue.add(queue.size());
+            }
+        }
+        while (played.size() < queue.size()) {
+            current = order.next(queue.size(), current);
+            assertTrue("Repetida antes do fim do ciclo: " + queue.get(current), played.add(queue.get(current)));
+        }
+        assertEquals(35, played.size());
+    }
+
+    @Test
+    public void onRemoved_keepsPlayedSongsOut() {
+        Random random = new Random(5);
+        List<Integer> queue = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            queue.add(i);
+        }
+        int current = 0;
+        order.reset(queue.size(), current);
+        Set<Integer> played = new HashSet<>();
+        played.add(queue.get(current));
+        for (int step = 0; step < 80 && played.size() < queue.size(); step++) {
+            if (random.nextInt(3) == 0 && queue.size() > 2) {
+                int index = random.nextInt(queue.size());
+                order.onRemoved(queue.size(), index);
+                queue.remove(index);
+                if (index < current) {
+                    current--;
+                } else if (index == current) {
+                    current = Math.min(current, queue.size() - 1); // A música seguinte fica no lugar
+                    played.add(queue.get(current));
+                }
+            } else {
+                current = order.next(queue.size(), current);
+                assertTrue("Repetida antes do fim do ciclo: " + queue.get(current), played.add(queue.get(current)));
+            }
+        }
+        Set<Integer> remaining = new HashSet<>(queue);
+        remaining.removeAll(played);
+        while (!remaining.isEmpty()) {
+            current = order.next(queue.size(), current);
+            assertTrue("Repetida antes do fim do ciclo: " + queue.get(current), remaining.remove(queue.get(current)));
+        }
+    }
+
+    @Test
+    public void onRemoved_currentSong_continuesFromReplacement() {
+        int size = 10;
+        order.reset(size, 0);
+        int current = 0;
+        Set<Integer> played = new HashSet<>();
+        played.add(0);
+        for (int i = 0; i < 3; i++) {
+            current = order.next(size, current);
+            played.add(current);
+        }
+        // A música atual sai da fila; a que fica no lugar passa a ser a atual
+        order.onRemoved(size, current);
+        List<Integer> queue = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            queue.add(i);
+        }
+        played.remove(queue.remove(current));
+        size--;
+        current = Math.min(current, size - 1);
+        order.moveTo(size, current);
+        played.add(queue.get(current));
+        while (played.size() < size) {
+            current = order.next(size, current);
+            assertTrue("Repetida antes do fim do ciclo: " + queue.get(current), played.add(queue.get(current)));
+        }
+    }
+
+    @Test
+    public void moveTo_marksSongAsPlayed() {
+        int size = 10;
+        order.reset(size, 0);
+        order.moveTo(size, 7);
+        Set<Integer> played = new HashSet<>();
+        played.add(0);
+        played.add(7);
+        int current = 7;
+        for (int i = 2; i < size; i++) {
+            current = order.next(size, current);
+            assertTrue("Repetida antes do fim do ciclo: " + current, played.add(current));
+        }
+        assertEquals(size, played.size());
+    }
+
+    @Test
+    public void next_rebuildsForDifferentQueue() {
+        order.reset(5, 0);
+        int next = order.next(8, 6); // Outra fila: a ordem é refeita a partir da música atual
+        assertTrue(next >= 0 && next < 8);
+        assertNotEquals(6, next);
+    }
+
+    @Test
+    public void singleSong_staysOnIt() {
+        order.reset(1, 0);
+        assertEquals(0, order.next(1, 0));
+        assertEquals(0, order.previous(1, 0));
+    }
+}
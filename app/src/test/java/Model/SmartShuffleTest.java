@@ -0,0 +1,162 @@
+package Model;
+
+import com.mussaldynerhey.meuleitorrhey.database.entities.PlayStats;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes do {@link SmartShuffle} com estatísticas em memória, montagem na própria thread e
+ * sorteios com semente fixa.
+ */
+public class SmartShuffleTest {
+    private long clock = 0; // Relógio monotônico controlado pelo teste
+
+    @Test
+    public void next_returnsMinusOneUntilTableIsReady() {
+        CompletableFuture<List<PlayStats>> stats = new CompletableFuture<>();
+        SmartShuffle shuffle = new SmartShuffle(() -> stats, () -> clock, Runnable::run, new Random(1));
+        List<Musica> queue = PlaybackQueueTest.songs(1, 10);
+
+        assertEquals(-1, shuffle.next(queue, 0));
+        stats.complete(Collections.emptyList());
+        int next = shuffle.next(queue, 0);
+        assertTrue(next > 0 && next < queue.size());
+    }
+
+    @Test
+    public void frequencies_followWeights() {
+        int size = 2000;
+        List<Musica> queue = PlaybackQueueTest.songs(1, size);
+        // Três classes: favoritas, nunca tocadas (sem estatísticas) e puladas quase sempre
+        List<PlayStats> stats = new ArrayList<>();
+        for (int id = 1; id <= size; id++) {
+            if (id % 4 == 0) {
+                stats.add(stats(id, 40, 0, 0));
+            } else if (id % 4 == 1) {
+                stats.add(stats(id, 0, 30, 0));
+            }
+        }
+        SmartShuffle shuffle = shuffle(stats);
+        Map<Integer, PlayStats> byId = new HashMap<>();
+        for (PlayStats playStats : stats) {
+            byId.put(playStats.songId, playStats);
+        }
+
+        double[] expected = new double[4];
+        for (int id = 1; id <= size; id++) {
+            expected[id % 4] += SmartShuffle.weight(byId.get(id), 0);
+        }
+        double total = Arrays.stream(expected).sum();
+
+        int draws = 400_000;
+        int[] counts = new int[4];
+        int current = 0;
+        shuffle.next(queue, current); // Monta a tabela
+        for (int i = 0; i < draws; i++) {
+            current = shuffle.next(queue, current);
+            counts[queue.get(current).getSongId() % 4]++;
+        }
+        for (int group = 0; group < 4; group++) {
+            double share = expected[group] / total;
+            double observed = counts[group] / (double) draws;
+            // A janela de recentes tira um pouco das favoritas: tolerância relativa de 10%
+            assertEquals("Classe " + group, share, observed, share * 0.10);
+        }
+        assertTrue(counts[0] > counts[2] * 3); // Favoritas muito acima das nunca tocadas
+        assertTrue(counts[1] < counts[2]); // Puladas abaixo das nunca tocadas
+    }
+
+    @Test
+    public void next_neverRepeatsWithinWindow() {
+        int size = 30; // Janela de 15 músicas
+        List<Musica> queue = PlaybackQueueTest.songs(1, size);
+        List<PlayStats> stats = Collections.singletonList(stats(1, 1000, 0, 0)); // Uma favorita absoluta
+        SmartShuffle shuffle = shuffle(stats);
+        List<Integer> picks = new ArrayList<>();
+        int current = 0;
+        shuffle.next(queue, current);
+        for (int i = 0; i < 2000; i++) {
+            current = shuffle.next(queue, current);
+            picks.add(current);
+        }
+        for (int i = 0; i < picks.size(); i++) {
+            for (int j = Math.max(0, i - 14); j < i; j++) {
+                assertNotEquals("Repetida dentro da janela na posição " + i, picks.get(j), picks.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void previous_returnsEarlierPicks() {
+        List<Musica> queue = PlaybackQueueTest.songs(1, 100);
+        SmartShuffle shuffle = shuffle(Collections.emptyList());
+        int first = 0;
+        shuffle.next(queue, first);
+        int second = shuffle.next(queue, first);
+        int third = shuffle.next(queue, second);
+
+        assertEquals(second, shuffle.previous(queue, third));
+        assertEquals(first, shuffle.previous(queue, second));
+        assertEquals(-1, shuffle.previous(queue, first)); // Sem histórico anterior
+    }
+
+    @Test
+    public void prepare_rebuildsOnlyWhenStatsAreOld() {
+        int[] loads = {0};
+        SmartShuffle shuffle = new SmartShuffle(() -> {
+            loads[0]++;
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }, () -> clock, Runnable::run, new Random(5));
+        List<Musica> queue = PlaybackQueueTest.songs(1, 10);
+
+        shuffle.prepare(queue);
+        shuffle.prepare(queue);
+        assertEquals(1, loads[0]);
+
+        clock += 11 * 60 * 1000; // Mais velha que o limite de 10 minutos
+        shuffle.prepare(queue);
+        assertEquals(2, loads[0]);
+    }
+
+    @Test
+    public void weight_ordersByCompletionAndRecency() {
+        long now = 10L * 24 * 60 * 60 * 1000;
+        double unplayed = SmartShuffle.weight(null, now);
+        double favorite = SmartShuffle.weight(stats(1, 20, 1, 0), now);
+        double skipped = SmartShuffle.weight(stats(2, 1, 20, 0), now);
+        double justPlayed = SmartShuffle.weight(stats(3, 20, 1, now), now);
+        double playedDaysAgo = SmartShuffle.weight(stats(4, 20, 1, now - 5L * 24 * 60 * 60 * 1000), now);
+
+        assertTrue(favorite > unplayed);
+        assertTrue(skipped < unplayed);
+        assertTrue(justPlayed < favorite * 0.2);
+        assertTrue(playedDaysAgo > justPlayed);
+        assertTrue(playedDaysAgo <= favorite);
+        assertTrue(SmartShuffle.weight(stats(5, 0, 10_000, 0), now) > 0);
+    }
+
+    private SmartShuffle shuffle(List<PlayStats> stats) {
+        return new SmartShuffle(() -> CompletableFuture.completedFuture(stats), () -> clock, Runnable::run,
+                new Random(1234));
+    }
+
+    private static PlayStats stats(int songId, int plays, int skips, long lastPlayedAt) {
+        PlayStats stats = new PlayStats();
+        stats.songId = songId;
+        stats.playCount = plays;
+        stats.skipCount = skips;
+        stats.lastPlayedAt = lastPlayedAt;
+        return stats;
+    }
+}
@@ -0,0 +1,147 @@
+package com.mussaldynerhey.meuleitorrhey.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Testes do {@link FileSystemScanner} em pastas temporárias, na JVM local.
+ */
+public class FileSystemScannerTest {
+    private static final byte[] ID3_HEADER = {'I', 'D', '3', 3, 0, 0, 0, 0, 0, 0, 0, 0}; // Cabeçalho de MP3 com tag
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void scan_acceptsOnlyAudioExtensions() throws IOException {
+        File root = folder.getRoot();
+        File song = write(root, "song.mp3", "x");
+        File upper = write(root, "LOUD.FLAC", "x");
+        write(root, "cover.jpg", "x");
+        write(root, "notes.txt", "x");
+        write(root, "empty.mp3", "");
+
+        assertEquals(paths(song, upper), scan(root));
+    }
+
+    @Test
+    public void scan_detectsAudioWithoutExtensionByHeader() throws IOException {
+        File root = folder.getRoot();
+        File tagged = new File(root, "track01");
+        Files.write(tagged.toPath(), ID3_HEADER);
+        write(root, "readme", "not audio at all");
+
+        assertEquals(paths(tagged), scan(root));
+    }
+
+    @Test
+    public void scan_walksNestedDirectories() throws IOException {
+        File deep = folder.newFolder("artist", "album", "disc1");
+        File top = write(folder.getRoot(), "a.ogg", "x");
+        File middle = write(deep.getParentFile(), "b.m4a", "x");
+        File bottom = write(deep, "c.opus", "x");
+
+        assertEquals(paths(top, middle, bottom), scan(folder.getRoot()));
+    }
+
+    @Test
+    public void scan_includesNoMediaFoldersButSkipsHiddenEntries() throws IOException {
+        File noMedia = folder.newFolder("whatsapp");
+        write(noMedia, ".nomedia", "");
+        File voice = write(noMedia, "voice.opus", "x");
+        File hidden = folder.newFolder(".thumbnails");
+        write(hidden, "preview.mp3", "x");
+        write(folder.getRoot(), ".hidden.mp3", "x");
+
+        // Pastas com .nomedia são justamente as que o MediaStore não indexa
+        assertEquals(paths(voice), scan(folder.getRoot()));
+    }
+
+    @Test
+    public void scan_skipsUnreadableDirectories() throws IOException {
+        File locked = folder.newFolder("locked");
+        write(locked, "secret.mp3", "x");
+        File open = write(folder.getRoot(), "open.mp3", "x");
+        assumeTrue(locked.setReadable(false, false) && locked.setExecutable(false, false));
+        try {
+            assumeFalse("Sem efeito para o superusuário", locked.canRead());
+            assertEquals(paths(open), scan(folder.getRoot()));
+        } finally {
+            locked.setReadable(true, false);
+            locked.setExecutable(true, false);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void scan_doesNotFollowSymlinkLoops() throws IOException {
+        File album = folder.newFolder("album");
+        File song = write(album, "song.wav", "x");
+        try {
+            Files.createSymbolicLink(new File(album, "loop").toPath(), folder.getRoot().toPath());
+            Files.createSymbolicLink(new File(album, "alias.wav").toPath(), song.toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue("Links simbólicos não suportados", false);
+        }
+
+        List<FileSystemScanner.AudioFile> found = new FileSystemScanner(4)
+                .scan(Collections.singletonList(folder.getRoot().toPath()), () -> false);
+        assertEquals(1, found.size());
+        assertEquals(song.getAbsolutePath(), found.get(0).path);
+    }
+
+    @Test
+    public void scan_stopsWhenCancelled() throws IOException {
+        File nested = folder.newFolder("a", "b");
+        write(nested, "song.mp3", "x");
+
+        List<FileSystemScanner.AudioFile> found = new FileSystemScanner(2)
+                .scan(Collections.singletonList(folder.getRoot().toPath()), () -> true);
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    public void scan_ignoresMissingRoots() {
+        Path missing = new File(folder.getRoot(), "missing").toPath();
+
+        assertTrue(new FileSystemScanner(1).scan(Collections.singletonList(missing), () -> false).isEmpty());
+    }
+
+    private static Set<String> scan(File root) {
+        List<FileSystemScanner.AudioFile> found = new FileSystemScanner(4)
+                .scan(Collections.singletonList(root.toPath()), () -> false);
+        Set<String> paths = new HashSet<>();
+        for (FileSystemScanner.AudioFile file : found) {
+            assertTrue("Arquivo repetido: " + file.path, paths.add(file.path));
+        }
+        return paths;
+    }
+
+    private static Set<String> paths(File... files) {
+        List<String> paths = new ArrayList<>();
+        for (File file : files) {
+            paths.add(file.getAbsolutePath());
+        }
+        return new HashSet<>(paths);
+    }
+
+    private static File write(File directory, String name, String content) throws IOException {
+        File file = new File(directory, name);
+        Files.write(file.toPath(), content.getBytes("UTF-8"));
+        return file;
+    }
+}